@@ -66,7 +66,8 @@ public class ShoppingController {
         return ResponseEntity.ok(Map.of(
                 "status", "UP",
                 "service", "MCP Shopping Client",
-                "features", "search, compare, order, conversation-memory"));
+                "features", "search, compare, order, conversation-memory",
+                "threads", Thread.currentThread().isVirtual() ? "virtual" : "platform"));
     }
 
     @Data
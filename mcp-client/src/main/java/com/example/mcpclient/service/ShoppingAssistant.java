@@ -82,7 +82,11 @@ public class ShoppingAssistant {
                                                    IMPORTANT: Always follow all 3 AP2 steps in order.
                                                    Never skip the mandate chain — it ensures secure, verified payments.
 
-                                                4. TONE: Friendly Samsung expert. Always recommend with reasoning.
+                                                4. ORDER HISTORY ("show my orders"):
+                                                   - Call listOrders with the user's full name; add platform, product or dates if asked
+                                                   - If the reply has a cursor, pass it back to listOrders for the next page
+
+                                                5. TONE: Friendly Samsung expert. Always recommend with reasoning.
                                                 """)
                                 .defaultTools(tools)
                                 .defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory).build())
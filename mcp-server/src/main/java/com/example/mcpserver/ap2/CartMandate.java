@@ -1,60 +1,131 @@
 package com.example.mcpserver.ap2;
 
-import java.security.MessageDigest;
+import com.example.mcpserver.model.InrFormat;
+
 import java.time.Instant;
-import java.util.HexFormat;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
- * AP2 Cart Mandate — locks exact product, price, and quantity.
+ * AP2 Cart Mandate — locks exact products, prices, and quantities.
  * Links to an Intent Mandate to prove chain of authorization.
  * The user "signs" this to confirm "what I see is what I pay for."
+ *
+ * A cart holds one or more line items under one signature, so several phones
+ * are held, confirmed and paid for in a single Intent → Cart → Payment chain.
  */
 public record CartMandate(
         String mandateId,
         String intentMandateId, // link to parent Intent Mandate
-        String productId, // exact product: "FK-S24U-256"
-        String productName,
-        String platform,
-        double unitPrice,
-        int quantity,
+        List<LineItem> items, // exact products: "FK-S24U-256" × 1, ...
         double totalAmount,
         Instant createdAt,
-        String signature // mock SHA-256 signature
+        Instant holdExpiresAt, // stock for every line is held for this cart until then
+        String signature // HMAC-SHA256 over signingPayload(intent signature)
 ) {
-    public static CartMandate create(String intentMandateId, String productId, String productName,
-            String platform, double unitPrice, int quantity) {
-        String id = "CM-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        double total = unitPrice * quantity;
-        Instant now = Instant.now();
-        String sig = sign(id + "|" + intentMandateId + "|" + productId + "|" + total + "|" + now);
-        return new CartMandate(id, intentMandateId, productId, productName, platform, unitPrice, quantity, total, now,
-                sig);
-    }
-
-    private static String sign(String data) {
-        try {
-            byte[] hash = MessageDigest.getInstance("SHA-256").digest(data.getBytes());
-            return HexFormat.of().formatHex(hash).substring(0, 16);
-        } catch (Exception e) {
-            return "mock-sig-" + data.hashCode();
+    public CartMandate {
+        items = List.copyOf(items);
+    }
+
+    /**
+     * One product line of a cart.
+     */
+    public record LineItem(String productId, String productName, String platform, double unitPrice,
+            int quantity) {
+        public double lineTotal() {
+            return unitPrice * quantity;
         }
     }
 
+    /**
+     * Signs the cart together with its intent's signature, so the cart only verifies
+     * against the exact intent it was built from.
+     */
+    public static CartMandate create(String id, IntentMandate intent, List<LineItem> items, Instant holdExpiresAt,
+            MandateSigner signer) {
+        double total = 0;
+        for (LineItem item : items)
+            total += item.lineTotal();
+        CartMandate unsigned = new CartMandate(id, intent.mandateId(), items, total, Instant.now(), holdExpiresAt,
+                null);
+        return unsigned.withSignature(signer.sign(unsigned.signingPayload(intent.signature())));
+    }
+
+    /**
+     * Five fields per line, so a one-line cart signs exactly as single-product
+     * carts always have.
+     */
+    public String signingPayload(String intentSignature) {
+        List<Object> fields = new ArrayList<>(8 + 5 * items.size());
+        fields.add("CM");
+        fields.add(mandateId);
+        fields.add(intentMandateId);
+        fields.add(intentSignature);
+        for (LineItem item : items) {
+            fields.add(item.productId());
+            fields.add(item.productName());
+            fields.add(item.platform());
+            fields.add(item.unitPrice());
+            fields.add(item.quantity());
+        }
+        fields.add(totalAmount);
+        fields.add(createdAt);
+        fields.add(holdExpiresAt);
+        return MandateSigner.payload(fields.toArray());
+    }
+
+    private CartMandate withSignature(String signature) {
+        return new CartMandate(mandateId, intentMandateId, items, totalAmount, createdAt, holdExpiresAt, signature);
+    }
+
+    /**
+     * The product name for one line; "name × qty + ..." for several.
+     */
+    public String description() {
+        if (items.size() == 1)
+            return items.get(0).productName();
+        return items.stream().map(i -> i.productName() + " × " + i.quantity()).collect(Collectors.joining(" + "));
+    }
+
+    public String platforms() {
+        return items.stream().map(LineItem::platform).distinct().collect(Collectors.joining(", "));
+    }
+
+    public int totalQuantity() {
+        int units = 0;
+        for (LineItem item : items)
+            units += item.quantity();
+        return units;
+    }
+
     public String toSummary() {
-        return String.format("""
-                🛒 CART MANDATE (AP2)
-                ├─ Cart ID:       %s
-                ├─ Intent Link:   %s ✅ (verified)
-                ├─ Product:       %s
-                ├─ Product ID:    %s
-                ├─ Platform:      %s
-                ├─ Unit Price:    ₹%,.0f
-                ├─ Quantity:      %d
-                ├─ Total:         ₹%,.0f
-                ├─ Created:       %s
-                └─ Signature:     %s ✅ (SHA-256)""",
-                mandateId, intentMandateId, productName, productId,
-                platform, unitPrice, quantity, totalAmount, createdAt, signature);
+        StringBuilder sb = new StringBuilder(448 + 160 * items.size());
+        sb.append("🛒 CART MANDATE (AP2)\n");
+        sb.append("├─ Cart ID:       ").append(mandateId).append('\n');
+        sb.append("├─ Intent Link:   ").append(intentMandateId).append(" ✅ (verified)\n");
+        if (items.size() == 1) {
+            LineItem item = items.get(0);
+            sb.append("├─ Product:       ").append(item.productName()).append('\n');
+            sb.append("├─ Product ID:    ").append(item.productId()).append('\n');
+            sb.append("├─ Platform:      ").append(item.platform()).append('\n');
+            InrFormat.append(sb.append("├─ Unit Price:    "), item.unitPrice()).append('\n');
+            sb.append("├─ Quantity:      ").append(item.quantity()).append('\n');
+        } else {
+            sb.append("├─ Items:         ").append(items.size()).append(" lines, ").append(totalQuantity())
+                    .append(" units\n");
+            for (int i = 0; i < items.size(); i++) {
+                LineItem item = items.get(i);
+                sb.append("│  ").append(i + 1).append(". ").append(item.productName()).append('\n');
+                sb.append("│     ").append(item.productId()).append(" on ").append(item.platform()).append(" — ");
+                InrFormat.append(sb, item.unitPrice()).append(" × ").append(item.quantity()).append(" = ");
+                InrFormat.append(sb, item.lineTotal()).append('\n');
+            }
+        }
+        InrFormat.append(sb.append("├─ Total:         "), totalAmount).append('\n');
+        sb.append("├─ Created:       ").append(createdAt).append('\n');
+        sb.append("├─ Stock held:    until ").append(holdExpiresAt).append('\n');
+        sb.append("└─ Signature:     ").append(signature).append(" ✅ (HMAC-SHA256)");
+        return sb.toString();
     }
 }
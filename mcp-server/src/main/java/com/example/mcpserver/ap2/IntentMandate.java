@@ -1,9 +1,8 @@
 package com.example.mcpserver.ap2;
 
-import java.security.MessageDigest;
+import com.example.mcpserver.model.InrFormat;
+
 import java.time.Instant;
-import java.util.HexFormat;
-import java.util.UUID;
 
 /**
  * AP2 Intent Mandate — captures the user's shopping intent.
@@ -16,35 +15,34 @@ public record IntentMandate(
         double maxBudget, // price ceiling the user is willing to pay
         String preferredPlatform, // optional: "Flipkart", "Amazon", etc.
         Instant createdAt,
-        String signature // mock SHA-256 signature
+        String signature // HMAC-SHA256 over signingPayload()
 ) {
-    public static IntentMandate create(String userIntent, double maxBudget, String preferredPlatform) {
-        String id = "IM-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        Instant now = Instant.now();
-        String sig = sign(id + "|" + userIntent + "|" + maxBudget + "|" + now);
-        return new IntentMandate(id, userIntent, maxBudget, preferredPlatform, now, sig);
+    public static IntentMandate create(String id, String userIntent, double maxBudget, String preferredPlatform,
+            MandateSigner signer) {
+        IntentMandate unsigned = new IntentMandate(id, userIntent, maxBudget, preferredPlatform, Instant.now(), null);
+        return unsigned.withSignature(signer.sign(unsigned.signingPayload()));
+    }
+
+    /**
+     * Every field but the signature, in a fixed order.
+     */
+    public String signingPayload() {
+        return MandateSigner.payload("IM", mandateId, userIntent, maxBudget, preferredPlatform, createdAt);
     }
 
-    private static String sign(String data) {
-        try {
-            byte[] hash = MessageDigest.getInstance("SHA-256").digest(data.getBytes());
-            return HexFormat.of().formatHex(hash).substring(0, 16);
-        } catch (Exception e) {
-            return "mock-sig-" + data.hashCode();
-        }
+    private IntentMandate withSignature(String signature) {
+        return new IntentMandate(mandateId, userIntent, maxBudget, preferredPlatform, createdAt, signature);
     }
 
     public String toSummary() {
-        return String.format("""
-                🔒 INTENT MANDATE (AP2)
-                ├─ Mandate ID:  %s
-                ├─ Intent:      %s
-                ├─ Max Budget:  ₹%,.0f
-                ├─ Platform:    %s
-                ├─ Created:     %s
-                └─ Signature:   %s ✅ (SHA-256)""",
-                mandateId, userIntent, maxBudget,
-                preferredPlatform != null ? preferredPlatform : "Any",
-                createdAt, signature);
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("🔒 INTENT MANDATE (AP2)\n");
+        sb.append("├─ Mandate ID:  ").append(mandateId).append('\n');
+        sb.append("├─ Intent:      ").append(userIntent).append('\n');
+        InrFormat.append(sb.append("├─ Max Budget:  "), maxBudget).append('\n');
+        sb.append("├─ Platform:    ").append(preferredPlatform != null ? preferredPlatform : "Any").append('\n');
+        sb.append("├─ Created:     ").append(createdAt).append('\n');
+        sb.append("└─ Signature:   ").append(signature).append(" ✅ (HMAC-SHA256)");
+        return sb.toString();
     }
 }
@@ -0,0 +1,144 @@
+package com.example.mcpserver.ap2;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * HMAC-SHA256 signatures for AP2 mandates and payment receipts.
+ *
+ * Each thread keeps its own initialized {@link Mac}, so signing is one
+ * {@code doFinal} without a provider lookup or key setup. Signatures are the full
+ * 32-byte tag, base64url-encoded; verification compares in constant time.
+ */
+@Component
+public class MandateSigner {
+
+    private static final Logger log = LoggerFactory.getLogger(MandateSigner.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final char SEPARATOR = '\u001f';
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final String KEY_FILE = "signing.key";
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::newMac);
+
+    /**
+     * With no configured key and the write-ahead log on, a key generated on first
+     * start is kept in the log directory: recovered mandates and archived receipts
+     * must still verify after a restart.
+     */
+    public MandateSigner(@Value("${shopping.ap2.signing-key:}") String base64Key,
+            @Value("${shopping.wal.enabled:true}") boolean walEnabled,
+            @Value("${shopping.wal.dir:data/wal}") String walDir) {
+        this(keyBytes(base64Key, walEnabled ? Path.of(walDir).toAbsolutePath().resolve(KEY_FILE) : null));
+    }
+
+    private MandateSigner(byte[] key) {
+        this.key = new SecretKeySpec(key, ALGORITHM);
+    }
+
+    /**
+     * Unambiguous signing input: fields joined by the ASCII unit separator, so
+     * ("a|b", "c") and ("a", "b|c") sign differently. Nulls sign as "null".
+     */
+    public static String payload(Object... fields) {
+        StringBuilder sb = new StringBuilder(256);
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0)
+                sb.append(SEPARATOR);
+            sb.append(fields[i]);
+        }
+        return sb.toString();
+    }
+
+    public String sign(String payload) {
+        return ENCODER.encodeToString(tag(payload));
+    }
+
+    public boolean verify(String payload, String signature) {
+        if (signature == null)
+            return false;
+        byte[] given;
+        try {
+            given = Base64.getUrlDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(tag(payload), given);
+    }
+
+    private byte[] tag(String payload) {
+        // doFinal resets the Mac for the thread's next use
+        return mac.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac m = Mac.getInstance(ALGORITHM);
+            m.init(key);
+            return m;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+
+    private static byte[] keyBytes(String base64Key, Path keyFile) {
+        if (base64Key == null || base64Key.isBlank()) {
+            if (keyFile != null)
+                return storedKey(keyFile);
+            log.warn("🔐 [AP2] No shopping.ap2.signing-key set — using a random key; "
+                    + "signatures won't verify after a restart");
+            return randomKey();
+        }
+        byte[] key = Base64.getDecoder().decode(base64Key.trim());
+        if (key.length < 32)
+            throw new IllegalArgumentException("shopping.ap2.signing-key must be at least 32 bytes, was " + key.length);
+        log.info("🔐 [AP2] Mandate signing key loaded ({} bytes)", key.length);
+        return key;
+    }
+
+    private static byte[] storedKey(Path keyFile) {
+        try {
+            if (Files.exists(keyFile)) {
+                byte[] key = Base64.getDecoder().decode(Files.readString(keyFile).trim());
+                if (key.length < 32)
+                    throw new IllegalStateException(keyFile + " holds a " + key.length + "-byte key, need 32");
+                log.info("🔐 [AP2] Mandate signing key loaded from {}", keyFile);
+                return key;
+            }
+            byte[] key = randomKey();
+            Files.createDirectories(keyFile.getParent());
+            Path tmp = keyFile.resolveSibling(keyFile.getFileName() + ".tmp");
+            Files.writeString(tmp, Base64.getEncoder().encodeToString(key));
+            if (tmp.getFileSystem().supportedFileAttributeViews().contains("posix"))
+                Files.setPosixFilePermissions(tmp, PosixFilePermissions.fromString("rw-------"));
+            Files.move(tmp, keyFile, StandardCopyOption.ATOMIC_MOVE);
+            log.warn("🔐 [AP2] No shopping.ap2.signing-key set — generated one and saved it to {}", keyFile);
+            return key;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read or create the signing key " + keyFile, e);
+        }
+    }
+
+    private static byte[] randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.mcpserver.ap2;
+
+import com.example.mcpserver.model.InrFormat;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Local stand-in for a payment gateway, plus the settlement pipeline in front of it.
+ *
+ * Charges wait in a bounded queue for a fixed set of workers; each charge takes
+ * {@code latency-ms} ± {@code jitter-ms} and is declined with probability
+ * {@code failure-rate}, like a real PSP round trip. All three default to 0, so
+ * payments settle at once and never decline; the {@code realistic-gateway}
+ * profile turns on 1500 ± 1000 ms and 5% declines. Callers get an answer
+ * immediately — accepted or queue full — and the outcome later, on a worker.
+ *
+ * With {@code spring.threads.virtual.enabled} every charge gets its own virtual
+ * thread instead: a sleeping charge parks without holding an OS thread, so up to
+ * {@code virtual-workers} charges run at once and {@code queue-capacity} more
+ * wait for a permit. Both limits still fail fast when reached.
+ */
+@Component
+public class PaymentGateway {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentGateway.class);
+    private static final List<String> DECLINES = List.of("Insufficient funds", "Issuer declined",
+            "Authentication timed out", "Risk check failed");
+
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double failureRate;
+    private final int queueCapacity;
+    private final int concurrency;
+    // Platform mode: a fixed pool; virtual mode: a thread per charge, gated by the two semaphores
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService virtualThreads;
+    private final Semaphore admitted;
+    private final Semaphore charging;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder approved = new LongAdder();
+    private final LongAdder declined = new LongAdder();
+    private final LongAdder settleMillis = new LongAdder();
+    private final long startedAt = System.currentTimeMillis();
+    // Called on the worker as each charge starts; lets tests wait for charges in flight
+    private volatile Runnable onChargeStart = () -> {
+    };
+
+    public record Stats(int workers, int active, int queued, int queueCapacity, long accepted, long rejected,
+            long approved, long declined, double avgSettleMillis, double settledPerSecond) {
+    }
+
+    public PaymentGateway(@Value("${shopping.ap2.gateway.latency-ms:0}") long latencyMillis,
+            @Value("${shopping.ap2.gateway.jitter-ms:0}") long jitterMillis,
+            @Value("${shopping.ap2.gateway.failure-rate:0}") double failureRate,
+            @Value("${shopping.ap2.gateway.workers:64}") int workers,
+            @Value("${shopping.ap2.gateway.queue-capacity:1024}") int queueCapacity,
+            @Value("${shopping.ap2.gateway.virtual-workers:10000}") int virtualWorkers,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtual) {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.failureRate = failureRate;
+        this.queueCapacity = queueCapacity;
+        if (virtual) {
+            this.concurrency = virtualWorkers;
+            this.pool = null;
+            this.virtualThreads = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("payment-gateway-", 1).factory());
+            this.admitted = new Semaphore(virtualWorkers + queueCapacity);
+            this.charging = new Semaphore(virtualWorkers);
+        } else {
+            this.concurrency = workers;
+            AtomicInteger counter = new AtomicInteger();
+            this.pool = new ThreadPoolExecutor(workers, workers, 30, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), r -> {
+                        Thread t = new Thread(r, "payment-gateway-" + counter.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+            this.pool.allowCoreThreadTimeOut(true);
+            this.virtualThreads = null;
+            this.admitted = null;
+            this.charging = null;
+        }
+        log.info("🏦 [GATEWAY] Simulated gateway ready — {}±{}ms, {}% declines, {} {} workers, queue {}",
+                latencyMillis, jitterMillis, failureRate * 100, concurrency, virtual ? "virtual" : "platform",
+                queueCapacity);
+    }
+
+    /**
+     * Queues a charge. {@code onOutcome} later receives null when it is approved,
+     * or the decline reason. False, and nothing queued, when the queue is full.
+     */
+    public boolean submit(String transactionId, double amount, Consumer<String> onOutcome) {
+        Runnable task = () -> {
+            onChargeStart.run();
+            long start = System.currentTimeMillis();
+            String decline;
+            try {
+                decline = charge(transactionId, amount);
+            } catch (InterruptedException e) {
+                // Shutting down: no outcome, so the payment stays PENDING and is resubmitted on recovery
+                return;
+            }
+            settleMillis.add(System.currentTimeMillis() - start);
+            (decline == null ? approved : declined).increment();
+            onOutcome.accept(decline);
+        };
+        try {
+            if (pool != null)
+                pool.execute(task);
+            else
+                startVirtual(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return false;
+        }
+        accepted.increment();
+        return true;
+    }
+
+    private void startVirtual(Runnable task) {
+        if (!admitted.tryAcquire())
+            throw new RejectedExecutionException("gateway queue full");
+        try {
+            virtualThreads.execute(() -> {
+                try {
+                    charging.acquire();
+                    try {
+                        task.run();
+                    } finally {
+                        charging.release();
+                    }
+                } catch (InterruptedException e) {
+                    // Shut down while waiting for a permit: the payment stays PENDING
+                } finally {
+                    admitted.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            admitted.release();
+            throw e;
+        }
+    }
+
+    void onChargeStart(Runnable hook) {
+        this.onChargeStart = hook;
+    }
+
+    public Stats stats() {
+        long settled = approved.sum() + declined.sum();
+        double seconds = Math.max(1, System.currentTimeMillis() - startedAt) / 1000.0;
+        int active;
+        int queued;
+        if (pool != null) {
+            active = pool.getActiveCount();
+            queued = pool.getQueue().size();
+        } else {
+            active = concurrency - charging.availablePermits();
+            queued = Math.max(0, concurrency + queueCapacity - admitted.availablePermits() - active);
+        }
+        return new Stats(concurrency, active, queued, queueCapacity, accepted.sum(), rejected.sum(), approved.sum(),
+                declined.sum(), settled == 0 ? 0 : (double) settleMillis.sum() / settled, settled / seconds);
+    }
+
+    private String charge(String transactionId, double amount) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latencyMillis + (jitterMillis > 0 ? random.nextLong(-jitterMillis, jitterMillis + 1) : 0);
+        Thread.sleep(Math.max(0, delay));
+        if (random.nextDouble() < failureRate) {
+            String reason = DECLINES.get(random.nextInt(DECLINES.size()));
+            log.debug("🏦 [GATEWAY] {} declined after {}ms: {} ({})", transactionId, delay, reason,
+                    InrFormat.format(amount));
+            return reason;
+        }
+        log.debug("🏦 [GATEWAY] {} approved after {}ms ({})", transactionId, delay, InrFormat.format(amount));
+        return null;
+    }
+
+    @PreDestroy
+    void close() {
+        if (pool != null)
+            pool.shutdownNow();
+        else
+            virtualThreads.shutdownNow();
+    }
+}
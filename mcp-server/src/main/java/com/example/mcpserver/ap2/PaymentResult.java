@@ -1,9 +1,8 @@
 package com.example.mcpserver.ap2;
 
-import java.security.MessageDigest;
+import com.example.mcpserver.model.InrFormat;
+
 import java.time.Instant;
-import java.util.HexFormat;
-import java.util.UUID;
 
 /**
  * AP2 Payment Result — outcome of payment processing.
@@ -13,7 +12,7 @@ public record PaymentResult(
         String transactionId,
         String cartMandateId,
         String intentMandateId,
-        String status, // COMPLETED, FAILED, PENDING
+        String status, // PENDING → COMPLETED or FAILED
         String paymentMethod, // UPI, CREDIT_CARD, NET_BANKING, WALLET
         double amount,
         String customerName,
@@ -22,14 +21,32 @@ public record PaymentResult(
         String platform,
         Instant processedAt,
         String signature) {
-    public static PaymentResult success(CartMandate cart, String intentMandateId,
-            String paymentMethod, String customerName, String deliveryAddress) {
-        String txnId = "TXN-" + UUID.randomUUID().toString().substring(0, 12).toUpperCase();
-        Instant now = Instant.now();
-        String sig = sign(txnId + "|" + cart.mandateId() + "|" + intentMandateId + "|" + now);
-        return new PaymentResult(txnId, cart.mandateId(), intentMandateId, "COMPLETED",
+    public static final String PENDING = "PENDING";
+    public static final String COMPLETED = "COMPLETED";
+
+    /**
+     * A payment handed to the gateway: signed as PENDING until it settles.
+     */
+    public static PaymentResult pending(String txnId, CartMandate cart, String paymentMethod, String customerName,
+            String deliveryAddress, MandateSigner signer) {
+        PaymentResult unsigned = new PaymentResult(txnId, cart.mandateId(), cart.intentMandateId(), PENDING,
                 paymentMethod, cart.totalAmount(), customerName, deliveryAddress,
-                cart.productName(), cart.platform(), now, sig);
+                cart.description(), cart.platforms(), Instant.now(), null);
+        return unsigned.withSignature(signer.sign(unsigned.signingPayload(cart.signature())));
+    }
+
+    /**
+     * The same transaction in its final state, re-signed: COMPLETED, or
+     * "FAILED: reason".
+     */
+    public PaymentResult settle(String finalStatus, CartMandate cart, MandateSigner signer) {
+        PaymentResult unsigned = new PaymentResult(transactionId, cartMandateId, intentMandateId, finalStatus,
+                paymentMethod, amount, customerName, deliveryAddress, productName, platform, Instant.now(), null);
+        return unsigned.withSignature(signer.sign(unsigned.signingPayload(cart.signature())));
+    }
+
+    public boolean isPending() {
+        return PENDING.equals(status);
     }
 
     public static PaymentResult failed(String cartMandateId, String reason) {
@@ -37,38 +54,55 @@ public record PaymentResult(
                 "NONE", 0, "NONE", "NONE", "NONE", "NONE", Instant.now(), "NONE");
     }
 
-    private static String sign(String data) {
-        try {
-            byte[] hash = MessageDigest.getInstance("SHA-256").digest(data.getBytes());
-            return HexFormat.of().formatHex(hash).substring(0, 16);
-        } catch (Exception e) {
-            return "mock-sig-" + data.hashCode();
-        }
+    /**
+     * Receipt fields plus the cart's signature, chaining the receipt to the cart.
+     */
+    public String signingPayload(String cartSignature) {
+        return MandateSigner.payload("TXN", transactionId, cartMandateId, cartSignature, intentMandateId, status,
+                paymentMethod, amount, customerName, deliveryAddress, productName, platform, processedAt);
+    }
+
+    private PaymentResult withSignature(String signature) {
+        return new PaymentResult(transactionId, cartMandateId, intentMandateId, status, paymentMethod, amount,
+                customerName, deliveryAddress, productName, platform, processedAt, signature);
     }
 
     public String toSummary() {
         if (status.startsWith("FAILED")) {
-            return "❌ PAYMENT FAILED\n   Reason: " + status.replace("FAILED: ", "");
+            String reason = "❌ PAYMENT FAILED\n   Reason: " + status.replace("FAILED: ", "");
+            return "NONE".equals(transactionId) ? reason : reason + "\n   Transaction: " + transactionId;
+        }
+        if (isPending()) {
+            StringBuilder sb = new StringBuilder(448);
+            sb.append("⏳ PAYMENT PENDING (AP2)\n");
+            sb.append("══════════════════════════════════════\n");
+            sb.append("💳 Transaction ID:  ").append(transactionId).append('\n');
+            sb.append("📱 Product:         ").append(productName).append('\n');
+            InrFormat.append(sb.append("💰 Amount:          "), amount).append('\n');
+            sb.append("💳 Payment Method:  ").append(paymentMethod).append('\n');
+            sb.append("🕐 Submitted At:    ").append(processedAt).append('\n');
+            sb.append("══════════════════════════════════════\n");
+            sb.append("🏦 With the payment gateway; stock stays held until it settles.\n");
+            sb.append("💡 Poll checkOrderStatus with ").append(transactionId).append(" for COMPLETED or FAILED.");
+            return sb.toString();
         }
-        return String.format("""
-                ✅ PAYMENT SUCCESSFUL (AP2)
-                ══════════════════════════════════════
-                💳 Transaction ID:  %s
-                📱 Product:         %s
-                🏪 Platform:        %s
-                💰 Amount Paid:     ₹%,.0f
-                💳 Payment Method:  %s
-                👤 Customer:        %s
-                📍 Deliver To:      %s
-                🕐 Processed At:    %s
-                ══════════════════════════════════════
-                🔐 AP2 AUDIT TRAIL (Non-repudiable):
-                   Intent Mandate: %s ✅
-                   Cart Mandate:   %s ✅
-                   Payment Sig:    %s ✅
-                ══════════════════════════════════════""",
-                transactionId, productName, platform, amount, paymentMethod,
-                customerName, deliveryAddress, processedAt,
-                intentMandateId, cartMandateId, signature);
+        StringBuilder sb = new StringBuilder(640);
+        sb.append("✅ PAYMENT SUCCESSFUL (AP2)\n");
+        sb.append("══════════════════════════════════════\n");
+        sb.append("💳 Transaction ID:  ").append(transactionId).append('\n');
+        sb.append("📱 Product:         ").append(productName).append('\n');
+        sb.append("🏪 Platform:        ").append(platform).append('\n');
+        InrFormat.append(sb.append("💰 Amount Paid:     "), amount).append('\n');
+        sb.append("💳 Payment Method:  ").append(paymentMethod).append('\n');
+        sb.append("👤 Customer:        ").append(customerName).append('\n');
+        sb.append("📍 Deliver To:      ").append(deliveryAddress).append('\n');
+        sb.append("🕐 Processed At:    ").append(processedAt).append('\n');
+        sb.append("══════════════════════════════════════\n");
+        sb.append("🔐 AP2 AUDIT TRAIL (Non-repudiable):\n");
+        sb.append("   Intent Mandate: ").append(intentMandateId).append(" ✅\n");
+        sb.append("   Cart Mandate:   ").append(cartMandateId).append(" ✅\n");
+        sb.append("   Payment Sig:    ").append(signature).append(" ✅\n");
+        sb.append("══════════════════════════════════════");
+        return sb.toString();
     }
 }
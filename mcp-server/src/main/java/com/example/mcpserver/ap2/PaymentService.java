@@ -1,44 +1,156 @@
 package com.example.mcpserver.ap2;
 
-import com.example.mcpserver.mock.MockDataProvider;
+import com.example.mcpserver.catalog.CatalogStore;
+import com.example.mcpserver.events.EventBus;
+import com.example.mcpserver.events.ShopEvent;
+import com.example.mcpserver.id.IdGenerator;
+import com.example.mcpserver.inventory.InventoryLedger;
+import com.example.mcpserver.model.InrFormat;
 import com.example.mcpserver.model.Product;
+import com.example.mcpserver.order.Order;
+import com.example.mcpserver.order.OrderStore;
+import com.example.mcpserver.store.ExpiringStore;
+import com.example.mcpserver.store.TimingWheel;
+import com.example.mcpserver.store.WriteAheadLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Mock Payment Service Provider (PSP) implementing AP2 protocol.
  * Manages the mandate chain: Intent → Cart → Payment.
+ *
+ * Open mandates and recent receipts live in bounded stores that expire them after
+ * a per-type TTL, or evict the oldest when full; an expired or evicted cart gives
+ * its held stock back. Every completed
+ * payment is also written, with its intent and cart, to the compact archive.
+ *
+ * Every mandate, payment and order is applied in memory, then appended to the
+ * write-ahead log, and only returned once the log has it on disk; on startup the
+ * log is replayed to rebuild the stores, the archive and the orders.
  */
 @Service
 public class PaymentService {
 
     private static final Logger log = LoggerFactory.getLogger(PaymentService.class);
 
-    private final MockDataProvider mockDataProvider;
-    private final Map<String, IntentMandate> intentMandates = new ConcurrentHashMap<>();
-    private final Map<String, CartMandate> cartMandates = new ConcurrentHashMap<>();
-    private final Map<String, PaymentResult> transactions = new ConcurrentHashMap<>();
+    // Write-ahead log record types
+    private static final byte WAL_INTENT = 1;
+    private static final byte WAL_CART = 2;
+    private static final byte WAL_PAYMENT = 3;
+    private static final byte WAL_ORDER = 4;
+    private static final byte WAL_PENDING = 5;
+    private static final byte WAL_DECLINED = 6;
 
-    public PaymentService(MockDataProvider mockDataProvider) {
-        this.mockDataProvider = mockDataProvider;
-        log.info("💳 [AP2] PaymentService initialized (mock PSP)");
+    private final CatalogStore catalogStore;
+    private final OrderStore orderStore;
+    private final EventBus events;
+    private final InventoryLedger inventory;
+    private final MandateSigner signer;
+    private final IdGenerator ids;
+    private final ExpiringStore<IntentMandate> intentMandates;
+    private final ExpiringStore<CartMandate> cartMandates;
+    // Hot receipts with the mandates they settle, so a checkpoint can write a declined chain
+    private final ExpiringStore<Settlement> transactions;
+    // Idempotency: cart → its transaction once paid, and the payment running for a cart right now
+    private final ExpiringStore<String> paidCarts;
+    private final ConcurrentHashMap<String, CompletableFuture<PaymentResult>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    // Payments handed to the gateway and not yet settled, by transaction ID
+    private final ConcurrentHashMap<String, Settlement> pending = new ConcurrentHashMap<>();
+    private final PaymentGateway gateway;
+    private final TransactionArchive archive;
+    private final WriteAheadLog wal;
+
+    /**
+     * Outcome of re-verifying every transaction's Intent → Cart → Payment chain.
+     */
+    public record AuditReport(int checked, int valid, List<String> broken) {
+    }
+
+    private record Settlement(IntentMandate intent, CartMandate cart, PaymentResult result) {
+    }
+
+    /**
+     * One requested line of a cart: a product and how many units.
+     */
+    public record CartLine(String productId, int quantity) {
+    }
+
+    public record StoreStats(ExpiringStore.Stats intents, ExpiringStore.Stats carts,
+            ExpiringStore.Stats transactions, ExpiringStore.Stats paidCarts, TransactionArchive.Stats archive,
+            long duplicatesCoalesced, long duplicatesReplayed) {
+    }
+
+    public PaymentService(CatalogStore catalogStore, OrderStore orderStore, InventoryLedger inventory,
+            MandateSigner signer, IdGenerator ids, PaymentGateway gateway, EventBus events, TimingWheel wheel,
+            WriteAheadLog wal,
+            @Value("${shopping.ap2.store.intent-ttl-minutes:30}") long intentTtlMinutes,
+            @Value("${shopping.ap2.store.cart-ttl-minutes:10}") long cartTtlMinutes,
+            @Value("${shopping.ap2.store.transaction-ttl-minutes:30}") long transactionTtlMinutes,
+            @Value("${shopping.ap2.store.max-entries:100000}") int maxEntries,
+            @Value("${shopping.ap2.store.archive-max-entries:1000000}") int archiveMaxEntries) {
+        this.catalogStore = catalogStore;
+        this.orderStore = orderStore;
+        this.inventory = inventory;
+        this.signer = signer;
+        this.ids = ids;
+        this.gateway = gateway;
+        this.events = events;
+        this.intentMandates = new ExpiringStore<>("intents", Duration.ofMinutes(intentTtlMinutes), maxEntries, true,
+                wheel, (id, intent) -> log.debug("⌛ [AP2] Intent Mandate {} expired", id), PaymentService::approxBytes);
+        this.cartMandates = new ExpiringStore<>("carts", Duration.ofMinutes(cartTtlMinutes), maxEntries, true, wheel,
+                (id, cart) -> {
+                    log.debug("⌛ [AP2] Cart Mandate {} expired unpaid", id);
+                    inventory.release(id);
+                }, PaymentService::approxBytes);
+        // Receipts stay hot for quick status checks; the archive already has them
+        this.transactions = new ExpiringStore<>("transactions", Duration.ofMinutes(transactionTtlMinutes),
+                maxEntries, true, wheel, (id, settlement) -> {
+                }, settlement -> approxBytes(settlement.result()));
+        // Outlives the cart it guards, so a late retry can't find the cart but not the payment;
+        // never evicts, since a lost guard would let the cart be charged twice
+        this.paidCarts = new ExpiringStore<>("paid-carts",
+                Duration.ofMinutes(Math.max(cartTtlMinutes, transactionTtlMinutes)), maxEntries, false, wheel,
+                (id, txnId) -> {
+                }, txnId -> 96);
+        this.archive = new TransactionArchive(archiveMaxEntries);
+        this.wal = wal;
+        recover();
+        log.info("💳 [AP2] PaymentService initialized (mock PSP) — TTLs: intents {}m, carts {}m, receipts {}m",
+                intentTtlMinutes, cartTtlMinutes, transactionTtlMinutes);
     }
 
     /**
      * Step 1: Create Intent Mandate — captures user's shopping intent.
      */
     public IntentMandate createIntentMandate(String userIntent, double maxBudget, String preferredPlatform) {
-        IntentMandate mandate = IntentMandate.create(userIntent, maxBudget, preferredPlatform);
+        IntentMandate mandate = IntentMandate.create(ids.next("IM-"), userIntent, maxBudget, preferredPlatform,
+                signer);
         intentMandates.put(mandate.mandateId(), mandate);
+        wal.sync(wal.append(WAL_INTENT, RecordCodec.intent(mandate)));
+        events.publish(ShopEvent.Type.MANDATE_CREATED, mandate);
 
         log.info("🔒 [AP2] Intent Mandate created: {}", mandate.mandateId());
-        log.info("   Intent: '{}', Budget: ₹{}, Platform: {}",
-                userIntent, String.format("%,.0f", maxBudget),
+        log.info("   Intent: '{}', Budget: {}, Platform: {}",
+                userIntent, InrFormat.format(maxBudget),
                 preferredPlatform != null ? preferredPlatform : "Any");
         log.info("   Signature: {} ✅", mandate.signature());
 
@@ -46,58 +158,138 @@ public class PaymentService {
     }
 
     /**
-     * Step 2: Create Cart Mandate — locks exact product, price, quantity.
-     * Validates against Intent Mandate (budget check).
+     * Step 2: Create Cart Mandate — locks exact products, prices, quantities.
+     * Validates against Intent Mandate (budget check) and holds the stock until
+     * the cart is paid for or its hold expires. Several products share one cart:
+     * one signature over every line, and stock held for all lines or none.
      */
-    public CartMandate createCartMandate(String intentMandateId, String productId, int quantity) {
+    public CartMandate createCartMandate(String intentMandateId, List<CartLine> lines) {
         // Validate intent mandate exists
         IntentMandate intent = intentMandates.get(intentMandateId);
         if (intent == null) {
             log.error("❌ [AP2] Cart Mandate failed: Intent Mandate '{}' not found", intentMandateId);
             return null;
         }
-
-        // Validate product exists
-        Optional<Product> productOpt = mockDataProvider.getProductById(productId);
-        if (productOpt.isEmpty()) {
-            log.error("❌ [AP2] Cart Mandate failed: Product '{}' not found", productId);
+        if (!signer.verify(intent.signingPayload(), intent.signature())) {
+            log.error("❌ [AP2] Cart Mandate failed: Intent Mandate '{}' signature invalid", intentMandateId);
+            return null;
+        }
+        if (lines.isEmpty()) {
+            log.error("❌ [AP2] Cart Mandate failed: no line items");
             return null;
         }
 
-        Product product = productOpt.get();
+        // Validate every product exists and is in stock
+        List<CartMandate.LineItem> items = new ArrayList<>(lines.size());
+        List<InventoryLedger.Units> units = new ArrayList<>(lines.size());
+        double total = 0;
+        for (CartLine line : lines) {
+            Optional<Product> productOpt = catalogStore.getProductById(line.productId());
+            if (productOpt.isEmpty()) {
+                log.error("❌ [AP2] Cart Mandate failed: Product '{}' not found", line.productId());
+                return null;
+            }
+            Product product = productOpt.get();
+            if (!product.isInStock()) {
+                log.error("❌ [AP2] Cart Mandate failed: '{}' is out of stock", line.productId());
+                return null;
+            }
+            items.add(new CartMandate.LineItem(product.getId(),
+                    product.getName() + " (" + product.getColor() + ", " + product.getStorage() + ")",
+                    product.getPlatform(), product.getPrice(), line.quantity()));
+            units.add(new InventoryLedger.Units(product.getId(), line.quantity()));
+            total += product.getPrice() * line.quantity();
+        }
 
         // Validate budget
-        double total = product.getPrice() * quantity;
         if (total > intent.maxBudget()) {
-            log.warn("⚠️ [AP2] Cart total ₹{} exceeds intent budget ₹{}",
-                    String.format("%,.0f", total), String.format("%,.0f", intent.maxBudget()));
+            log.warn("⚠️ [AP2] Cart total {} exceeds intent budget {}",
+                    InrFormat.format(total), InrFormat.format(intent.maxBudget()));
         }
 
-        // Validate stock
-        if (!product.isInStock() || product.getStockCount() < quantity) {
-            log.error("❌ [AP2] Cart Mandate failed: Insufficient stock for '{}'", productId);
+        // Hold the stock for every line; the last units can only go to one cart
+        // Drawn before the cart exists so the stock hold can be keyed by it
+        String cartId = ids.next("CM-");
+        Instant holdExpiresAt = inventory.reserve(cartId, units);
+        if (holdExpiresAt == null) {
+            log.error("❌ [AP2] Cart Mandate failed: Insufficient stock for {}", lines);
             return null;
         }
 
-        CartMandate cart = CartMandate.create(intentMandateId, productId,
-                product.getName() + " (" + product.getColor() + ", " + product.getStorage() + ")",
-                product.getPlatform(), product.getPrice(), quantity);
+        CartMandate cart = CartMandate.create(cartId, intent, items, holdExpiresAt, signer);
         cartMandates.put(cart.mandateId(), cart);
+        // The intent must outlive the cart that links to it
+        intentMandates.extend(intentMandateId, holdExpiresAt);
+        wal.sync(wal.append(WAL_CART, RecordCodec.cart(cart)));
+        events.publish(ShopEvent.Type.MANDATE_CREATED, cart);
 
         log.info("🛒 [AP2] Cart Mandate created: {}", cart.mandateId());
-        log.info("   Product: {} on {}", product.getName(), product.getPlatform());
-        log.info("   Price: {} × {} = ₹{}", product.getFormattedPrice(), quantity, String.format("%,.0f", total));
+        for (CartMandate.LineItem item : items) {
+            log.info("   Product: {} on {}", item.productName(), item.platform());
+            log.info("   Price: {} × {} = {}", InrFormat.format(item.unitPrice()), item.quantity(),
+                    InrFormat.format(item.lineTotal()));
+        }
+        if (items.size() > 1)
+            log.info("   Total: {} for {} lines", InrFormat.format(cart.totalAmount()), items.size());
         log.info("   Intent Link: {} ✅", intentMandateId);
+        log.info("   Stock held until {}", holdExpiresAt);
         log.info("   Signature: {} ✅", cart.signature());
 
         return cart;
     }
 
     /**
-     * Step 3: Process Payment — validates mandate chain and executes payment.
+     * Step 3: Process Payment — validates mandate chain and hands the payment to
+     * the gateway. Returns within milliseconds with a PENDING receipt; a gateway
+     * worker later settles it to COMPLETED or FAILED, which getTransaction shows.
+     *
+     * Idempotent per cart: a cart is charged at most once. A call made while the
+     * cart's payment is being submitted waits for it and gets the same result; a
+     * call after that gets the receipt in its current state. A declined payment
+     * frees the cart for another attempt.
      */
     public PaymentResult processPayment(String cartMandateId, String paymentMethod,
             String customerName, String deliveryAddress) {
+        PaymentResult paid = paidReceipt(cartMandateId);
+        if (paid != null)
+            return paid;
+
+        CompletableFuture<PaymentResult> mine = new CompletableFuture<>();
+        CompletableFuture<PaymentResult> running = inFlight.putIfAbsent(cartMandateId, mine);
+        if (running != null) {
+            coalesced.increment();
+            log.info("♻️ [AP2] Duplicate payment for cart '{}' joined the one in flight", cartMandateId);
+            return running.join();
+        }
+        try {
+            // The previous flight may have settled between the check above and claiming the slot
+            paid = paidReceipt(cartMandateId);
+            PaymentResult result = paid != null ? paid
+                    : charge(cartMandateId, paymentMethod, customerName, deliveryAddress);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cartMandateId, mine);
+        }
+    }
+
+    private PaymentResult paidReceipt(String cartMandateId) {
+        String txnId = paidCarts.get(cartMandateId);
+        if (txnId == null)
+            return null;
+        PaymentResult result = getTransaction(txnId).orElse(null);
+        if (result != null) {
+            replayed.increment();
+            log.info("♻️ [AP2] Cart '{}' already has payment {} ({})", cartMandateId, txnId, result.status());
+        }
+        return result;
+    }
+
+    private PaymentResult charge(String cartMandateId, String paymentMethod, String customerName,
+            String deliveryAddress) {
         // Validate cart mandate
         CartMandate cart = cartMandates.get(cartMandateId);
         if (cart == null) {
@@ -112,34 +304,321 @@ public class PaymentService {
             return PaymentResult.failed(cartMandateId, "Intent Mandate chain broken — authorization invalid");
         }
 
+        // Re-verify both signatures; the cart's covers the intent's, so a swapped or
+        // edited intent fails here too
+        if (!verifyChain(intent, cart)) {
+            log.error("❌ [AP2] Payment failed: mandate signatures invalid for cart '{}'", cartMandateId);
+            inventory.release(cartMandateId);
+            return PaymentResult.failed(cartMandateId, "Mandate signature check failed — authorization invalid");
+        }
+
         // Validate payment method
         if (!isValidPaymentMethod(paymentMethod)) {
             log.error("❌ [AP2] Payment failed: Invalid payment method '{}'", paymentMethod);
             return PaymentResult.failed(cartMandateId, "Invalid payment method: " + paymentMethod);
         }
 
-        log.info("💳 [AP2] Processing payment...");
-        log.info("   Cart: {} → Intent: {} (chain valid ✅)", cartMandateId, cart.intentMandateId());
-        log.info("   Amount: ₹{} via {}", String.format("%,.0f", cart.totalAmount()), paymentMethod);
-        log.info("   Customer: {} → {}", customerName, deliveryAddress);
+        // The units stay held while the gateway works; they are sold only once it approves
+        if (!inventory.isHeld(cartMandateId)) {
+            log.error("❌ [AP2] Payment failed: stock hold for cart '{}' expired or already settled", cartMandateId);
+            return PaymentResult.failed(cartMandateId,
+                    "Cart Mandate expired or already paid — create a new Cart Mandate");
+        }
 
-        // Mock payment processing (simulate gateway)
-        PaymentResult result = PaymentResult.success(cart, cart.intentMandateId(),
-                paymentMethod, customerName, deliveryAddress);
-        transactions.put(result.transactionId(), result);
+        log.info("💳 [AP2] Submitting payment to gateway...");
+        log.info("   Cart: {} → Intent: {} (signatures verified ✅)", cartMandateId, cart.intentMandateId());
+        log.info("   Amount: {} via {}", InrFormat.format(cart.totalAmount()), paymentMethod);
+        log.info("   Customer: {} → {}", customerName, deliveryAddress);
 
-        // Also record as an order in MockDataProvider for checkOrderStatus
-        mockDataProvider.placeOrder(cart.productId(), cart.quantity(), customerName, deliveryAddress);
+        PaymentResult result = PaymentResult.pending(ids.next("TXN-"), cart, paymentMethod, customerName,
+                deliveryAddress, signer);
+        // Without its guard a retry could charge the cart again, so no guard, no charge
+        if (!paidCarts.put(cartMandateId, result.transactionId())) {
+            log.error("❌ [AP2] Payment failed: {} paid carts tracked, store full", paidCarts.size());
+            return PaymentResult.failed(cartMandateId, "Payment service busy — retry shortly");
+        }
+        Settlement settlement = new Settlement(intent, cart, result);
+        pending.put(result.transactionId(), settlement);
+        transactions.put(result.transactionId(), settlement);
+        // Logged before the gateway can settle it, so the final record always follows
+        long lsn = wal.append(WAL_PENDING, RecordCodec.chain(intent, cart, result));
 
-        log.info("✅ [AP2] Payment COMPLETED!");
-        log.info("   Transaction: {}", result.transactionId());
-        log.info("   Audit: {} → {} → {} ✅", intent.mandateId(), cart.mandateId(), result.transactionId());
+        if (!gateway.submit(result.transactionId(), cart.totalAmount(), decline -> settle(settlement, decline))) {
+            log.error("❌ [AP2] Payment failed: gateway queue full for cart '{}'", cartMandateId);
+            PaymentResult busy = result.settle("FAILED: Payment gateway busy — retry shortly", cart, signer);
+            pending.remove(result.transactionId());
+            transactions.put(busy.transactionId(), new Settlement(intent, cart, busy));
+            paidCarts.remove(cartMandateId);
+            wal.sync(wal.append(WAL_DECLINED, RecordCodec.chain(intent, cart, busy)));
+            events.publish(ShopEvent.Type.PAYMENT_SETTLED, busy);
+            return busy;
+        }
+        wal.sync(lsn);
 
+        log.info("⏳ [AP2] Payment PENDING: {}", result.transactionId());
         return result;
     }
 
+    /**
+     * Records the gateway's answer, on a gateway worker. An approval sells the
+     * held stock and places the orders; a decline leaves the cart and its hold in
+     * place so the user can pay again, e.g. with another method.
+     */
+    private void settle(Settlement settlement, String decline) {
+        IntentMandate intent = settlement.intent();
+        CartMandate cart = settlement.cart();
+        String txnId = settlement.result().transactionId();
+        try {
+            String status = decline != null ? "FAILED: Declined by gateway — " + decline
+                    : inventory.commit(cart.mandateId()) ? PaymentResult.COMPLETED
+                    : "FAILED: Stock hold expired during settlement — payment voided";
+            PaymentResult result = settlement.result().settle(status, cart, signer);
+            byte[] chain = RecordCodec.chain(intent, cart, result);
+            transactions.put(txnId, new Settlement(intent, cart, result));
+
+            long lsn;
+            List<Order> orders = new ArrayList<>(cart.items().size());
+            if (PaymentResult.COMPLETED.equals(status)) {
+                archive.put(txnId, chain);
+                // Paid carts are settled; the archive keeps the chain from here on
+                cartMandates.remove(cart.mandateId());
+
+                // An order per paid line, as charged, for checkOrderStatus and listOrders
+                for (CartMandate.LineItem item : cart.items())
+                    orders.add(orderStore.place(item, catalogStore.getProductById(item.productId()).orElse(null),
+                            result.customerName(), result.deliveryAddress()));
+
+                // One group commit covers the payment and its orders
+                lsn = wal.append(WAL_PAYMENT, chain);
+                for (Order order : orders)
+                    lsn = wal.append(WAL_ORDER, RecordCodec.order(order));
+                log.info("✅ [AP2] Payment COMPLETED: {}", txnId);
+                log.info("   Audit: {} → {} → {} ✅", intent.mandateId(), cart.mandateId(), txnId);
+            } else {
+                paidCarts.remove(cart.mandateId());
+                lsn = wal.append(WAL_DECLINED, chain);
+                log.warn("❌ [AP2] Payment {} {}", txnId, status);
+            }
+            wal.sync(lsn);
+            // The settled record supersedes the pending one in every later checkpoint
+            pending.remove(txnId);
+
+            // Durable first, then downstream consumers hear about it
+            events.publish(ShopEvent.Type.PAYMENT_SETTLED, result);
+            for (Order order : orders)
+                events.publish(ShopEvent.Type.ORDER_PLACED, order);
+        } catch (RuntimeException e) {
+            log.error("❌ [AP2] Settling {} failed — it stays PENDING until recovery", txnId, e);
+        }
+    }
+
+    /**
+     * Re-verifies the full chain of every archived transaction in one pass.
+     */
+    public AuditReport auditTransactions() {
+        long start = System.nanoTime();
+        List<String> broken = new ArrayList<>();
+        int[] checked = {0};
+        archive.forEach(chain -> {
+            checked[0]++;
+            PaymentResult result = chain.result();
+            if (!verifyChain(chain.intent(), chain.cart())
+                    || !signer.verify(result.signingPayload(chain.cart().signature()), result.signature()))
+                broken.add(result.transactionId());
+        });
+        log.info("🔐 [AP2] Audited {} transactions in {}µs — {} broken", checked[0],
+                (System.nanoTime() - start) / 1_000, broken.size());
+        return new AuditReport(checked[0], checked[0] - broken.size(), broken);
+    }
+
+    public StoreStats storeStats() {
+        return new StoreStats(intentMandates.stats(), cartMandates.stats(), transactions.stats(), paidCarts.stats(),
+                archive.stats(), coalesced.sum(), replayed.sum());
+    }
+
+    /**
+     * Rebuilds mandates, receipts and orders from the write-ahead log. Records whose
+     * TTL ran out while the server was down are dropped; open carts take their stock
+     * hold again, or are dropped if the stock is gone. Payments still PENDING go
+     * back to the gateway.
+     */
+    private void recover() {
+        List<String> openCarts = new ArrayList<>();
+        Map<String, Settlement> unsettled = new LinkedHashMap<>();
+        // Transactions with a final record; a pending record for one of them is stale
+        Set<String> settled = new HashSet<>();
+        List<InventoryLedger.Units> sold = new ArrayList<>();
+        wal.open(new WriteAheadLog.Participant() {
+            @Override
+            public void replay(byte type, byte[] payload) {
+                switch (type) {
+                    case WAL_INTENT -> {
+                        IntentMandate intent = RecordCodec.intent(payload);
+                        intentMandates.restore(intent.mandateId(), intent,
+                                intent.createdAt().plus(intentMandates.ttl()));
+                    }
+                    case WAL_CART -> {
+                        CartMandate cart = RecordCodec.cart(payload);
+                        if (cartMandates.restore(cart.mandateId(), cart, cart.createdAt().plus(cartMandates.ttl()))) {
+                            intentMandates.extend(cart.intentMandateId(), cart.holdExpiresAt());
+                            openCarts.add(cart.mandateId());
+                        }
+                    }
+                    case WAL_PAYMENT -> {
+                        RecordCodec.Chain chain = RecordCodec.chain(payload);
+                        PaymentResult result = chain.result();
+                        archive.put(result.transactionId(), payload);
+                        transactions.restore(result.transactionId(), settlement(chain),
+                                result.processedAt().plus(transactions.ttl()));
+                        paidCarts.restore(result.cartMandateId(), result.transactionId(),
+                                result.processedAt().plus(paidCarts.ttl()));
+                        cartMandates.remove(result.cartMandateId());
+                        unsettled.remove(result.transactionId());
+                        settled.add(result.transactionId());
+                    }
+                    case WAL_PENDING -> {
+                        RecordCodec.Chain chain = RecordCodec.chain(payload);
+                        PaymentResult result = chain.result();
+                        if (settled.contains(result.transactionId()))
+                            return;
+                        transactions.restore(result.transactionId(), settlement(chain),
+                                result.processedAt().plus(transactions.ttl()));
+                        paidCarts.restore(result.cartMandateId(), result.transactionId(),
+                                result.processedAt().plus(paidCarts.ttl()));
+                        unsettled.put(result.transactionId(), settlement(chain));
+                    }
+                    case WAL_DECLINED -> {
+                        RecordCodec.Chain chain = RecordCodec.chain(payload);
+                        PaymentResult result = chain.result();
+                        transactions.restore(result.transactionId(), settlement(chain),
+                                result.processedAt().plus(transactions.ttl()));
+                        // Only its own guard: a retry of the cart may already hold a newer one
+                        if (result.transactionId().equals(paidCarts.get(result.cartMandateId())))
+                            paidCarts.remove(result.cartMandateId());
+                        unsettled.remove(result.transactionId());
+                        settled.add(result.transactionId());
+                    }
+                    case WAL_ORDER -> {
+                        Order order = RecordCodec.order(payload);
+                        if (orderStore.restore(order))
+                            sold.add(new InventoryLedger.Units(order.productId(), order.quantity()));
+                    }
+                    default -> throw new IllegalArgumentException("unknown record type " + type);
+                }
+            }
+
+            @Override
+            public void checkpoint(WriteAheadLog.RecordSink sink) throws IOException {
+                // Parents before children: a cart's intent, a payment's cart
+                try {
+                    intentMandates.forEach((id, intent) -> write(sink, WAL_INTENT, RecordCodec.intent(intent)));
+                    cartMandates.forEach((id, cart) -> write(sink, WAL_CART, RecordCodec.cart(cart)));
+                    // Declined before pending: a retry of a declined cart is the newer payment
+                    transactions.forEach((id, settlement) -> {
+                        PaymentResult result = settlement.result();
+                        if (!result.isPending() && !PaymentResult.COMPLETED.equals(result.status()))
+                            write(sink, WAL_DECLINED,
+                                    RecordCodec.chain(settlement.intent(), settlement.cart(), result));
+                    });
+                    pending.forEach((id, settlement) -> {
+                        // Settling, but not yet out of pending: the settled record is the truth
+                        Settlement hot = transactions.get(id);
+                        if (hot == null || hot.result().isPending())
+                            write(sink, WAL_PENDING,
+                                    RecordCodec.chain(settlement.intent(), settlement.cart(), settlement.result()));
+                    });
+                    archive.forEachRecord(chain -> write(sink, WAL_PAYMENT, chain));
+                    orderStore.forEach(order -> write(sink, WAL_ORDER, RecordCodec.order(order)));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+        });
+
+        // The ledger starts from the catalog's counts; units sold before the restart are gone
+        inventory.recordSold(sold);
+        int held = 0;
+        for (String cartId : openCarts) {
+            CartMandate cart = cartMandates.get(cartId);
+            if (cart == null)
+                continue;
+            List<InventoryLedger.Units> units = cart.items().stream()
+                    .map(item -> new InventoryLedger.Units(item.productId(), item.quantity()))
+                    .toList();
+            if (inventory.reserve(cartId, units) != null)
+                held++;
+            else
+                cartMandates.remove(cartId);
+        }
+        if (!openCarts.isEmpty())
+            log.info("💳 [AP2] Recovered {} open carts with their stock held", held);
+
+        // A cart that lost its hold settles as FAILED; the rest charge as normal
+        for (Settlement settlement : unsettled.values())
+            pending.put(settlement.result().transactionId(), settlement);
+        // Every pending payment is back in place, so a checkpoint from here on includes it
+        wal.recovered();
+        for (Settlement settlement : unsettled.values()) {
+            if (!gateway.submit(settlement.result().transactionId(), settlement.cart().totalAmount(),
+                    decline -> settle(settlement, decline)))
+                settle(settlement, "gateway queue full after restart");
+        }
+        if (!unsettled.isEmpty())
+            log.info("💳 [AP2] Resubmitted {} pending payments to the gateway", unsettled.size());
+    }
+
+    private static Settlement settlement(RecordCodec.Chain chain) {
+        return new Settlement(chain.intent(), chain.cart(), chain.result());
+    }
+
+    private static void write(WriteAheadLog.RecordSink sink, byte type, byte[] payload) {
+        try {
+            sink.write(type, payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean verifyChain(IntentMandate intent, CartMandate cart) {
+        return cart.intentMandateId().equals(intent.mandateId())
+                && signer.verify(intent.signingPayload(), intent.signature())
+                && signer.verify(cart.signingPayload(intent.signature()), cart.signature());
+    }
+
     public Optional<PaymentResult> getTransaction(String transactionId) {
-        return Optional.ofNullable(transactions.get(transactionId));
+        // A payment still with the gateway may have been evicted from the hot store; it must
+        // stay visible, or a retry of its cart would find no receipt and charge it again
+        Settlement inFlight = pending.get(transactionId);
+        Settlement hot = inFlight != null ? inFlight : transactions.get(transactionId);
+        if (hot != null)
+            return Optional.of(hot.result());
+        RecordCodec.Chain chain = archive.get(transactionId);
+        return Optional.ofNullable(chain == null ? null : chain.result());
+    }
+
+    // Rough heap sizes: headers and boxed fields plus ~40 bytes and two per char for each string
+    private static long approxBytes(IntentMandate m) {
+        return 160 + chars(m.mandateId(), m.userIntent(), m.preferredPlatform(), m.signature());
+    }
+
+    private static long approxBytes(CartMandate m) {
+        long bytes = 200 + chars(m.mandateId(), m.intentMandateId(), m.signature());
+        for (CartMandate.LineItem item : m.items())
+            bytes += 80 + chars(item.productId(), item.productName(), item.platform());
+        return bytes;
+    }
+
+    private static long approxBytes(PaymentResult r) {
+        return 200 + chars(r.transactionId(), r.cartMandateId(), r.intentMandateId(), r.status(),
+                r.paymentMethod(), r.customerName(), r.deliveryAddress(), r.productName(), r.platform(),
+                r.signature());
+    }
+
+    private static long chars(String... values) {
+        long bytes = 0;
+        for (String value : values)
+            bytes += value == null ? 0 : 40 + 2L * value.length();
+        return bytes;
     }
 
     private boolean isValidPaymentMethod(String method) {
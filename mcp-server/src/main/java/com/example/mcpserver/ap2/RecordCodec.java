@@ -0,0 +1,228 @@
+package com.example.mcpserver.ap2;
+
+import com.example.mcpserver.order.Order;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary form of the AP2 records, shared by the transaction archive and
+ * the write-ahead log. Strings are UTF-8 bytes after a varint of length + 1
+ * (0 for null), so free text like the user's intent or a delivery address has no
+ * size cap; instants are epoch seconds plus nanos.
+ *
+ * A payment chain stores the receipt without the product name, platform, amount
+ * and mandate IDs it repeats from the cart. Every record starts with the format
+ * version, and only the current one decodes.
+ */
+final class RecordCodec {
+
+    private static final byte VERSION = 3;
+
+    record Chain(IntentMandate intent, CartMandate cart, PaymentResult result) {
+    }
+
+    private RecordCodec() {
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Reader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    static byte[] intent(IntentMandate intent) {
+        return encode(out -> writeIntent(out, intent));
+    }
+
+    static IntentMandate intent(byte[] record) {
+        return decode(record, RecordCodec::readIntent);
+    }
+
+    static byte[] cart(CartMandate cart) {
+        return encode(out -> writeCart(out, cart));
+    }
+
+    static CartMandate cart(byte[] record) {
+        return decode(record, RecordCodec::readCart);
+    }
+
+    static byte[] chain(IntentMandate intent, CartMandate cart, PaymentResult result) {
+        return encode(out -> {
+            writeIntent(out, intent);
+            writeCart(out, cart);
+            writeString(out, result.transactionId());
+            writeString(out, result.status());
+            writeString(out, result.paymentMethod());
+            writeString(out, result.customerName());
+            writeString(out, result.deliveryAddress());
+            writeInstant(out, result.processedAt());
+            writeString(out, result.signature());
+        });
+    }
+
+    static Chain chain(byte[] record) {
+        return decode(record, in -> {
+            IntentMandate intent = readIntent(in);
+            CartMandate cart = readCart(in);
+            PaymentResult result = new PaymentResult(readString(in), cart.mandateId(), intent.mandateId(),
+                    readString(in), readString(in), cart.totalAmount(), readString(in), readString(in),
+                    cart.description(), cart.platforms(), readInstant(in), readString(in));
+            return new Chain(intent, cart, result);
+        });
+    }
+
+    static byte[] order(Order order) {
+        return encode(out -> {
+            writeString(out, order.orderId());
+            writeString(out, order.productId());
+            writeString(out, order.productName());
+            writeString(out, order.platform());
+            out.writeInt(order.quantity());
+            out.writeDouble(order.unitPrice());
+            out.writeDouble(order.totalAmount());
+            writeString(out, order.customerName());
+            writeString(out, order.deliveryAddress());
+            writeString(out, order.expectedDelivery());
+            writeString(out, order.deliveryPartner());
+            writeString(out, order.status());
+            writeString(out, order.orderTime());
+        });
+    }
+
+    static Order order(byte[] record) {
+        return decode(record, in -> new Order(readString(in), readString(in), readString(in),
+                readString(in), in.readInt(), in.readDouble(), in.readDouble(), readString(in), readString(in),
+                readString(in), readString(in), readString(in), readString(in)));
+    }
+
+    private static void writeIntent(DataOutputStream out, IntentMandate intent) throws IOException {
+        writeString(out, intent.mandateId());
+        writeString(out, intent.userIntent());
+        out.writeDouble(intent.maxBudget());
+        writeString(out, intent.preferredPlatform());
+        writeInstant(out, intent.createdAt());
+        writeString(out, intent.signature());
+    }
+
+    private static IntentMandate readIntent(DataInputStream in) throws IOException {
+        return new IntentMandate(readString(in), readString(in), in.readDouble(), readString(in), readInstant(in),
+                readString(in));
+    }
+
+    private static void writeCart(DataOutputStream out, CartMandate cart) throws IOException {
+        writeString(out, cart.mandateId());
+        writeString(out, cart.intentMandateId());
+        out.writeShort(cart.items().size());
+        for (CartMandate.LineItem item : cart.items()) {
+            writeString(out, item.productId());
+            writeString(out, item.productName());
+            writeString(out, item.platform());
+            out.writeDouble(item.unitPrice());
+            out.writeInt(item.quantity());
+        }
+        out.writeDouble(cart.totalAmount());
+        writeInstant(out, cart.createdAt());
+        writeInstant(out, cart.holdExpiresAt());
+        writeString(out, cart.signature());
+    }
+
+    private static CartMandate readCart(DataInputStream in) throws IOException {
+        String mandateId = readString(in);
+        String intentMandateId = readString(in);
+        int lines = in.readUnsignedShort();
+        List<CartMandate.LineItem> items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++)
+            items.add(new CartMandate.LineItem(readString(in), readString(in), readString(in), in.readDouble(),
+                    in.readInt()));
+        return new CartMandate(mandateId, intentMandateId, items, in.readDouble(), readInstant(in),
+                readInstant(in), readString(in));
+    }
+
+    private static byte[] encode(Writer writer) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeByte(VERSION);
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static <T> T decode(byte[] record, Reader<T> reader) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            byte version = in.readByte();
+            if (version != VERSION)
+                throw new IOException("Unsupported AP2 record version " + version + ", expected " + VERSION);
+            return reader.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeByte(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in) - 1;
+        if (length < 0)
+            return null;
+        // The whole record is in memory, so a length past its end can only be corruption
+        if (length > in.available())
+            throw new IOException("String of " + length + " bytes overruns the record");
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed length in AP2 record");
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getEpochSecond());
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+    }
+}
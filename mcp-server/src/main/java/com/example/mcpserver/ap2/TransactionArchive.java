@@ -0,0 +1,75 @@
+package com.example.mcpserver.ap2;
+
+import com.example.mcpserver.ap2.RecordCodec.Chain;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Cold tier for completed payments. Each transaction is kept with its intent and
+ * cart as one compact binary record (a few hundred bytes instead of three records
+ * of objects and strings), so a receipt and its whole signed chain stay verifiable
+ * after the hot mandate stores have expired them.
+ *
+ * Keyed by transaction ID, which sorts by time, so the cap drops the oldest first.
+ */
+public final class TransactionArchive {
+
+    private final ConcurrentSkipListMap<String, byte[]> records = new ConcurrentSkipListMap<>();
+    private final int maxEntries;
+    private final AtomicLong bytes = new AtomicLong();
+    private final LongAdder evicted = new LongAdder();
+
+    public record Stats(int size, int maxEntries, long evicted, long bytes) {
+    }
+
+    TransactionArchive(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    void put(IntentMandate intent, CartMandate cart, PaymentResult result) {
+        put(result.transactionId(), RecordCodec.chain(intent, cart, result));
+    }
+
+    /**
+     * Stores an already encoded chain, as written to the write-ahead log.
+     */
+    void put(String transactionId, byte[] record) {
+        byte[] previous = records.put(transactionId, record);
+        bytes.addAndGet(record.length - (previous == null ? 0 : previous.length));
+        while (records.size() > maxEntries) {
+            Map.Entry<String, byte[]> oldest = records.pollFirstEntry();
+            if (oldest == null)
+                break;
+            bytes.addAndGet(-oldest.getValue().length);
+            evicted.increment();
+        }
+    }
+
+    Chain get(String transactionId) {
+        byte[] record = records.get(transactionId);
+        return record == null ? null : RecordCodec.chain(record);
+    }
+
+    /**
+     * Decodes every archived chain in transaction (time) order.
+     */
+    void forEach(Consumer<Chain> action) {
+        for (byte[] record : records.values())
+            action.accept(RecordCodec.chain(record));
+    }
+
+    /**
+     * Every archived chain still encoded, for checkpoints.
+     */
+    void forEachRecord(Consumer<byte[]> action) {
+        records.values().forEach(action);
+    }
+
+    Stats stats() {
+        return new Stats(records.size(), maxEntries, evicted.sum(), bytes.get());
+    }
+}
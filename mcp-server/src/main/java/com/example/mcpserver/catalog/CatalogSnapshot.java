@@ -0,0 +1,44 @@
+package com.example.mcpserver.catalog;
+
+import com.example.mcpserver.model.Product;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * One immutable version of the whole catalog. Every read made through the same
+ * snapshot sees the same prices and stock on all 4 platforms, however many
+ * updates are published meanwhile.
+ */
+public interface CatalogSnapshot {
+
+    /**
+     * Monotonic catalog version; bumped by every published batch of deltas.
+     */
+    long version();
+
+    /**
+     * Searches one platform's listings; unknown platforms return an empty list.
+     */
+    List<Product> search(String platform, String query);
+
+    Optional<Product> getProductById(String id);
+
+    /**
+     * Catalog ordinal of a listing, or -1 if unknown. Ordinals are stable across
+     * versions and index {@link #priceColumns()}.
+     */
+    int ordinalOf(String id);
+
+    Product get(int ordinal);
+
+    /**
+     * Columnar snapshot of prices, stock and ratings for comparison queries.
+     */
+    PriceColumns priceColumns();
+
+    /**
+     * Total number of listings across all platforms.
+     */
+    int size();
+}
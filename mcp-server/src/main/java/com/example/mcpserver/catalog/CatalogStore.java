@@ -0,0 +1,61 @@
+package com.example.mcpserver.catalog;
+
+import com.example.mcpserver.model.Product;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Versioned product catalog across all 4 platforms.
+ * The backend is picked with {@code shopping.catalog.store}: {@code memory}
+ * (default, on-heap) or {@code mapped} (off-heap, memory-mapped file).
+ *
+ * Reads are lock-free: {@link #snapshot()} returns the current immutable version.
+ * Writers publish a new version with {@link #applyDeltas(List)} via an atomic swap.
+ */
+public interface CatalogStore {
+
+    String AMAZON = "Amazon India";
+    String FLIPKART = "Flipkart";
+    String SAMSUNG_STORE = "Samsung.com India";
+    String CROMA = "Croma";
+
+    List<String> PLATFORMS = List.of(AMAZON, FLIPKART, SAMSUNG_STORE, CROMA);
+
+    CatalogSnapshot snapshot();
+
+    /**
+     * Applies a batch of listing changes as one new catalog version.
+     * The batch is all-or-nothing: an unknown product id rejects it with
+     * {@link IllegalArgumentException} and nothing is published.
+     */
+    CatalogSnapshot applyDeltas(List<ListingDelta> deltas);
+
+    default long version() {
+        return snapshot().version();
+    }
+
+    default List<Product> search(String platform, String query) {
+        return snapshot().search(platform, query);
+    }
+
+    default Optional<Product> getProductById(String id) {
+        return snapshot().getProductById(id);
+    }
+
+    default List<Product> searchAmazon(String query) {
+        return search(AMAZON, query);
+    }
+
+    default List<Product> searchFlipkart(String query) {
+        return search(FLIPKART, query);
+    }
+
+    default List<Product> searchSamsungStore(String query) {
+        return search(SAMSUNG_STORE, query);
+    }
+
+    default List<Product> searchCroma(String query) {
+        return search(CROMA, query);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.mcpserver.catalog;
+
+import com.example.mcpserver.model.Product;
+import com.example.mcpserver.search.ProductIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable on-heap catalog version. Deltas only touch prices, stock and offers,
+ * so a new version shares the token indexes and id map with its predecessor and
+ * copies just the listing array and the price columns.
+ */
+final class HeapCatalogSnapshot implements CatalogSnapshot {
+
+    private final long version;
+    private final Product[] listings;
+    private final Map<String, ProductIndex> indexes;
+    private final Map<String, Integer> ordinalById;
+    private final PriceColumns priceColumns;
+    private final SearchResultCache searchCache;
+
+    private HeapCatalogSnapshot(long version, Product[] listings, Map<String, ProductIndex> indexes,
+            Map<String, Integer> ordinalById, PriceColumns priceColumns, SearchResultCache searchCache) {
+        this.version = version;
+        this.listings = listings;
+        this.indexes = indexes;
+        this.ordinalById = ordinalById;
+        this.priceColumns = priceColumns;
+        this.searchCache = searchCache;
+    }
+
+    static HeapCatalogSnapshot load(Map<String, List<Product>> listingsByPlatform, SearchResultCache searchCache) {
+        List<Product> all = new ArrayList<>();
+        Map<String, ProductIndex> indexes = new LinkedHashMap<>();
+        Map<String, Integer> ordinalById = new HashMap<>();
+        for (var entry : listingsByPlatform.entrySet()) {
+            ProductIndex.Builder index = new ProductIndex.Builder();
+            for (Product p : entry.getValue()) {
+                int ordinal = all.size();
+                all.add(p);
+                ordinalById.put(p.getId(), ordinal);
+                index.add(ordinal, p);
+            }
+            indexes.put(entry.getKey(), index.build());
+        }
+        return new HeapCatalogSnapshot(1, all.toArray(new Product[0]), Collections.unmodifiableMap(indexes),
+                Collections.unmodifiableMap(ordinalById), PriceColumns.of(all), searchCache);
+    }
+
+    /**
+     * Builds the next version with every delta applied; this version is left untouched.
+     */
+    HeapCatalogSnapshot withDeltas(List<ListingDelta> deltas) {
+        int[] ordinals = new int[deltas.size()];
+        Product[] updated = new Product[deltas.size()];
+        Product[] next = Arrays.copyOf(listings, listings.length);
+        for (int i = 0; i < deltas.size(); i++) {
+            ListingDelta delta = deltas.get(i);
+            int ordinal = ordinalOf(delta.productId());
+            if (ordinal < 0)
+                throw new IllegalArgumentException("Unknown product id: " + delta.productId());
+            ordinals[i] = ordinal;
+            next[ordinal] = delta.applyTo(next[ordinal]);
+        }
+        for (int i = 0; i < ordinals.length; i++) {
+            updated[i] = next[ordinals[i]];
+        }
+        return new HeapCatalogSnapshot(version + 1, next, indexes, ordinalById,
+                priceColumns.patch(ordinals, updated), searchCache);
+    }
+
+    @Override
+    public long version() {
+        return version;
+    }
+
+    @Override
+    public List<Product> search(String platform, String query) {
+        return searchCache.get(platform, query, version, () -> lookup(platform, query));
+    }
+
+    private List<Product> lookup(String platform, String query) {
+        ProductIndex index = indexes.get(platform);
+        if (index == null)
+            return List.of();
+        int[] ordinals = index.lookup(query);
+        List<Product> matched = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals)
+            matched.add(listings[ordinal]);
+        return matched;
+    }
+
+    @Override
+    public Optional<Product> getProductById(String id) {
+        int ordinal = ordinalOf(id);
+        return ordinal < 0 ? Optional.empty() : Optional.of(listings[ordinal]);
+    }
+
+    @Override
+    public int ordinalOf(String id) {
+        Integer ordinal = id == null ? null : ordinalById.get(id);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    @Override
+    public Product get(int ordinal) {
+        return listings[ordinal];
+    }
+
+    @Override
+    public PriceColumns priceColumns() {
+        return priceColumns;
+    }
+
+    @Override
+    public int size() {
+        return listings.length;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.mcpserver.catalog;
+
+import com.example.mcpserver.mock.MockDataProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Default catalog backend — immutable on-heap snapshots seeded from
+ * {@link MockDataProvider}, replaced wholesale on every update.
+ */
+@Component
+@ConditionalOnProperty(name = "shopping.catalog.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryCatalogStore implements CatalogStore {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryCatalogStore.class);
+
+    private final AtomicReference<HeapCatalogSnapshot> current;
+
+    public InMemoryCatalogStore(MockDataProvider mockDataProvider, SearchResultCache searchCache) {
+        this.current = new AtomicReference<>(
+                HeapCatalogSnapshot.load(mockDataProvider.getListingsByPlatform(), searchCache));
+        log.info("🗂️ [CATALOG] In-memory catalog store active ({} listings)", current.get().size());
+    }
+
+    @Override
+    public CatalogSnapshot snapshot() {
+        return current.get();
+    }
+
+    @Override
+    public synchronized CatalogSnapshot applyDeltas(List<ListingDelta> deltas) {
+        HeapCatalogSnapshot next = current.get().withDeltas(deltas);
+        current.set(next);
+        log.info("🗂️ [CATALOG] Published catalog v{} ({} listing changes)", next.version(), deltas.size());
+        return next;
+    }
+}
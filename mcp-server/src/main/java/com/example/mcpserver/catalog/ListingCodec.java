@@ -0,0 +1,127 @@
+package com.example.mcpserver.catalog;
+
+import com.example.mcpserver.model.Product;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary layout for one listing, used by the off-heap store.
+ *
+ * <pre>
+ * int    recordLength (including this header)
+ * double price, mrp, rating, deliveryCharge
+ * int    reviewCount, stockCount
+ * byte   flags (bit 0 = inStock, bit 1 = codAvailable)
+ * str    id, name, platform, ... (u16 length + UTF-8, 0xFFFF = null)
+ * </pre>
+ *
+ * The id is the first string so lookups can compare it without decoding the rest.
+ */
+final class ListingCodec {
+
+    static final int ID_OFFSET = 4 + 8 * 4 + 4 * 2 + 1;
+    private static final int NULL_LENGTH = 0xFFFF;
+    private static final int STRING_FIELDS = 23;
+
+    private ListingCodec() {
+    }
+
+    static byte[] encode(Product p) {
+        String[] strings = strings(p);
+        byte[][] utf8 = new byte[strings.length][];
+        int length = ID_OFFSET;
+        for (int i = 0; i < strings.length; i++) {
+            utf8[i] = strings[i] == null ? null : strings[i].getBytes(StandardCharsets.UTF_8);
+            length += 2 + (utf8[i] == null ? 0 : utf8[i].length);
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        buf.putInt(length);
+        buf.putDouble(p.getPrice()).putDouble(p.getMrp()).putDouble(p.getRating()).putDouble(p.getDeliveryCharge());
+        buf.putInt(p.getReviewCount()).putInt(p.getStockCount());
+        buf.put((byte) ((p.isInStock() ? 1 : 0) | (p.isCodAvailable() ? 2 : 0)));
+        for (byte[] s : utf8) {
+            if (s == null) {
+                buf.putShort((short) NULL_LENGTH);
+            } else {
+                if (s.length >= NULL_LENGTH)
+                    throw new IllegalArgumentException("Listing field too long for " + p.getId());
+                buf.putShort((short) s.length).put(s);
+            }
+        }
+        return buf.array();
+    }
+
+    static Product decode(ByteBuffer buf, int at) {
+        int pos = at + 4;
+        double price = buf.getDouble(pos);
+        double mrp = buf.getDouble(pos + 8);
+        double rating = buf.getDouble(pos + 16);
+        double deliveryCharge = buf.getDouble(pos + 24);
+        int reviewCount = buf.getInt(pos + 32);
+        int stockCount = buf.getInt(pos + 36);
+        byte flags = buf.get(pos + 40);
+
+        String[] s = new String[STRING_FIELDS];
+        pos = at + ID_OFFSET;
+        for (int i = 0; i < s.length; i++) {
+            int len = buf.getShort(pos) & 0xFFFF;
+            pos += 2;
+            if (len != NULL_LENGTH) {
+                byte[] bytes = new byte[len];
+                buf.get(pos, bytes);
+                s[i] = new String(bytes, StandardCharsets.UTF_8);
+                pos += len;
+            }
+        }
+
+        return Product.builder()
+                .id(s[0]).name(s[1]).platform(s[2]).category(s[3])
+                .color(s[4]).storage(s[5]).ram(s[6])
+                .processor(s[7]).display(s[8]).camera(s[9]).battery(s[10]).os(s[11])
+                .price(price).mrp(mrp).currency(s[12])
+                .rating(rating).reviewCount(reviewCount)
+                .seller(s[13]).inStock((flags & 1) != 0).stockCount(stockCount)
+                .warranty(s[14]).offers(s[15]).emiOption(s[16]).returnPolicy(s[17])
+                .exchangeValue(s[18]).freebie(s[19])
+                .deliverySpeed(s[20]).deliveryDate(s[21]).deliveryCharge(deliveryCharge)
+                .codAvailable((flags & 2) != 0).deliveryPartner(s[22])
+                .build();
+    }
+
+    /**
+     * Length in bytes of the record at {@code at}, header included.
+     */
+    static int length(ByteBuffer buf, int at) {
+        return buf.getInt(at);
+    }
+
+    /**
+     * Returns true if the record at {@code at} has the given id, decoding only the id bytes.
+     */
+    static boolean idEquals(ByteBuffer buf, int at, byte[] id) {
+        int pos = at + ID_OFFSET;
+        int len = buf.getShort(pos) & 0xFFFF;
+        if (len != id.length)
+            return false;
+        pos += 2;
+        for (int i = 0; i < len; i++) {
+            if (buf.get(pos + i) != id[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static String[] strings(Product p) {
+        return new String[] {
+                p.getId(), p.getName(), p.getPlatform(), p.getCategory(),
+                p.getColor(), p.getStorage(), p.getRam(),
+                p.getProcessor(), p.getDisplay(), p.getCamera(), p.getBattery(), p.getOs(),
+                p.getCurrency(), p.getSeller(),
+                p.getWarranty(), p.getOffers(), p.getEmiOption(), p.getReturnPolicy(),
+                p.getExchangeValue(), p.getFreebie(),
+                p.getDeliverySpeed(), p.getDeliveryDate(), p.getDeliveryPartner()
+        };
+    }
+}
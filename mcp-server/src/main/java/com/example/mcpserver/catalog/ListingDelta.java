@@ -0,0 +1,34 @@
+package com.example.mcpserver.catalog;
+
+import com.example.mcpserver.model.Product;
+
+/**
+ * Change to one live listing. Null fields are left as they are.
+ * A stock count of 0 marks the listing out of stock; anything above puts it back.
+ */
+public record ListingDelta(
+        String productId,
+        Double price,
+        Double mrp,
+        Integer stockCount,
+        String offers,
+        String emiOption,
+        String freebie) {
+
+    Product applyTo(Product current) {
+        Product.ProductBuilder next = current.toBuilder();
+        if (price != null)
+            next.price(price);
+        if (mrp != null)
+            next.mrp(mrp);
+        if (stockCount != null)
+            next.stockCount(stockCount).inStock(stockCount > 0);
+        if (offers != null)
+            next.offers(offers);
+        if (emiOption != null)
+            next.emiOption(emiOption);
+        if (freebie != null)
+            next.freebie(freebie);
+        return next.build();
+    }
+}
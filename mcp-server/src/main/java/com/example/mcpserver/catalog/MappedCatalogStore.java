@@ -0,0 +1,376 @@
+package com.example.mcpserver.catalog;
+
+import com.example.mcpserver.mock.MockDataProvider;
+import com.example.mcpserver.model.Product;
+import com.example.mcpserver.search.ProductIndex;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Off-heap catalog backend. Listings are encoded with {@link ListingCodec} into an
+ * append-only memory-mapped file; the heap only holds primitive arrays (record
+ * offsets, an open-addressing id table), the per-platform token postings and a
+ * small direct-mapped cache of recently decoded listings, so millions of listings
+ * add almost nothing for the GC to trace.
+ *
+ * Updates append the changed records and publish a new offsets array, so older
+ * snapshots keep reading the records they were built on. Once superseded records
+ * outweigh the live ones, the live records are copied into a fresh file that
+ * replaces the old one; older snapshots keep their mappings of the old file until
+ * they are dropped. The file is rebuilt from the seed listings at every start.
+ */
+@Component
+@ConditionalOnProperty(name = "shopping.catalog.store", havingValue = "mapped")
+public class MappedCatalogStore implements CatalogStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedCatalogStore.class);
+
+    // Records never straddle a segment, so each fits in one int-addressed mapping (64 MB)
+    private static final int SEGMENT_BITS = 26;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+    // Below this much superseded data a compaction isn't worth the copy
+    private static final long MIN_COMPACT_BYTES = 4L << 20;
+
+    private final Path path;
+    private final int[] idSlots;
+    private final int[] idSlotHashes;
+    private final Map<String, ProductIndex> indexes = new HashMap<>();
+    private final SearchResultCache searchCache;
+    private final Decoded[] decoded;
+    private final AtomicReference<Snapshot> current;
+
+    // Writer state, guarded by this
+    private MappedFile file;
+    private long liveBytes;
+    private long compactions;
+
+    public MappedCatalogStore(MockDataProvider mockDataProvider, SearchResultCache searchCache,
+            @Value("${shopping.catalog.mapped.path:}") String path,
+            @Value("${shopping.catalog.mapped.decoded-cache:1024}") int decodedCache) {
+        this.searchCache = searchCache;
+        this.decoded = new Decoded[Integer.highestOneBit(Math.max(2, decodedCache) - 1) << 1];
+        // Built for this load only: once encoded, nothing on the heap refers to the seed listings
+        Map<String, List<Product>> listings = mockDataProvider.getListingsByPlatform();
+        int total = listings.values().stream().mapToInt(List::size).sum();
+        int capacity = Integer.highestOneBit(Math.max(2, total * 2) - 1) << 1;
+        this.idSlots = new int[capacity];
+        this.idSlotHashes = new int[capacity];
+
+        try {
+            this.path = path == null || path.isBlank()
+                    ? Files.createTempFile("mcp-catalog", ".bin")
+                    : Path.of(path);
+            if (path == null || path.isBlank())
+                this.path.toFile().deleteOnExit();
+            this.file = new MappedFile(this.path);
+            this.current = new AtomicReference<>(writeListings(listings, total));
+            log.info("🗂️ [CATALOG] Mapped catalog store active — {} listings, {} KB off-heap at {}",
+                    total, file.writePosition / 1024, this.path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to build mapped catalog", e);
+        }
+    }
+
+    private synchronized Snapshot writeListings(Map<String, List<Product>> listings, int total) throws IOException {
+        long[] offsets = new long[total];
+        List<Product> all = new ArrayList<>(total);
+        for (var entry : listings.entrySet()) {
+            ProductIndex.Builder index = new ProductIndex.Builder();
+            for (Product p : entry.getValue()) {
+                int ordinal = all.size();
+                byte[] record = ListingCodec.encode(p);
+                offsets[ordinal] = file.append(record);
+                liveBytes += record.length;
+                insertId(ordinal, p.getId());
+                index.add(ordinal, p);
+                all.add(p);
+            }
+            indexes.put(entry.getKey(), index.build());
+        }
+        return new Snapshot(1, offsets, file.segments, PriceColumns.of(all));
+    }
+
+    @Override
+    public CatalogSnapshot snapshot() {
+        return current.get();
+    }
+
+    @Override
+    public synchronized CatalogSnapshot applyDeltas(List<ListingDelta> deltas) {
+        Snapshot base = current.get();
+        int[] ordinals = new int[deltas.size()];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = base.ordinalOf(deltas.get(i).productId());
+            if (ordinals[i] < 0)
+                throw new IllegalArgumentException("Unknown product id: " + deltas.get(i).productId());
+        }
+
+        // Appended records are invisible until the new offsets are published
+        long[] offsets = Arrays.copyOf(base.offsets, base.offsets.length);
+        Product[] updated = new Product[ordinals.length];
+        long appendedBytes = 0;
+        try {
+            for (int i = 0; i < ordinals.length; i++) {
+                long offset = offsets[ordinals[i]];
+                ByteBuffer segment = file.segments[(int) (offset >>> SEGMENT_BITS)];
+                updated[i] = deltas.get(i).applyTo(ListingCodec.decode(segment, positionOf(offset)));
+                byte[] record = ListingCodec.encode(updated[i]);
+                offsets[ordinals[i]] = file.append(record);
+                appendedBytes += record.length - ListingCodec.length(segment, positionOf(offset));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append catalog update", e);
+        }
+        liveBytes += appendedBytes;
+        compactIfWasteful(offsets);
+
+        Snapshot next = new Snapshot(base.version + 1, offsets, file.segments,
+                base.priceColumns.patch(ordinals, updated));
+        current.set(next);
+        log.info("🗂️ [CATALOG] Published catalog v{} ({} listing changes, {} KB mapped)",
+                next.version, deltas.size(), file.writePosition / 1024);
+        return next;
+    }
+
+    /**
+     * Copies the records {@code offsets} points at into a fresh file, rewriting the
+     * offsets in place, once superseded records take more room than the live ones.
+     * The new file replaces the old one; snapshots already published keep their
+     * own mappings of the old file, which stay readable until they are dropped.
+     */
+    private void compactIfWasteful(long[] offsets) {
+        long waste = file.writePosition - liveBytes;
+        if (waste < Math.max(liveBytes, MIN_COMPACT_BYTES))
+            return;
+        Path target = path.resolveSibling(path.getFileName() + ".compact");
+        MappedFile old = file;
+        MappedFile compacted = null;
+        long[] moved = new long[offsets.length];
+        try {
+            compacted = new MappedFile(target);
+            for (int i = 0; i < offsets.length; i++) {
+                ByteBuffer segment = old.segments[(int) (offsets[i] >>> SEGMENT_BITS)];
+                int position = positionOf(offsets[i]);
+                byte[] record = new byte[ListingCodec.length(segment, position)];
+                segment.get(position, record);
+                moved[i] = compacted.append(record);
+            }
+            Files.move(target, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Optional housekeeping: keep appending to the current file and try again on a later update
+            log.warn("🗂️ [CATALOG] Compaction failed, still appending to {}: {}", path, e.getMessage());
+            if (compacted != null)
+                compacted.close();
+            try {
+                Files.deleteIfExists(target);
+            } catch (IOException ignored) {
+                // Overwritten by the next attempt
+            }
+            return;
+        }
+        System.arraycopy(moved, 0, offsets, 0, offsets.length);
+        file = compacted;
+        old.close();
+        compactions++;
+        log.info("🗂️ [CATALOG] Compacted mapped catalog — {} KB superseded, {} KB live", waste / 1024,
+                liveBytes / 1024);
+    }
+
+    private static int positionOf(long offset) {
+        return (int) (offset & SEGMENT_MASK);
+    }
+
+    private void insertId(int ordinal, String id) {
+        int hash = id.hashCode();
+        int mask = idSlots.length - 1;
+        int slot = spread(hash) & mask;
+        while (idSlots[slot] != 0)
+            slot = (slot + 1) & mask;
+        idSlots[slot] = ordinal + 1;
+        idSlotHashes[slot] = hash;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        file.close();
+    }
+
+    /**
+     * Number of compactions since start.
+     */
+    synchronized long compactions() {
+        return compactions;
+    }
+
+    /**
+     * The catalog file being appended to, mapped one segment at a time.
+     * Closing the channel leaves existing mappings readable.
+     */
+    private static final class MappedFile {
+
+        private final FileChannel channel;
+        private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+        private long writePosition;
+
+        MappedFile(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        long append(byte[] record) throws IOException {
+            long remaining = SEGMENT_SIZE - (writePosition & SEGMENT_MASK);
+            if (record.length > remaining)
+                writePosition += remaining;
+            int segment = (int) (writePosition >>> SEGMENT_BITS);
+            if (segment == segments.length) {
+                MappedByteBuffer[] grown = Arrays.copyOf(segments, segment + 1);
+                grown[segment] = channel.map(FileChannel.MapMode.READ_WRITE, (long) segment << SEGMENT_BITS,
+                        SEGMENT_SIZE);
+                segments = grown;
+            }
+            long offset = writePosition;
+            segments[segment].put(positionOf(offset), record);
+            writePosition += record.length;
+            return offset;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("🗂️ [CATALOG] Failed to close mapped catalog file: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A decoded listing and the record it came from. Records are never rewritten
+     * in place, so a match on segment and position is always current.
+     */
+    private record Decoded(ByteBuffer segment, int position, Product product) {
+    }
+
+    /**
+     * One published version: its own offsets and the segments they point into.
+     * Ids, ordinals and token postings never change, so those are shared.
+     */
+    private final class Snapshot implements CatalogSnapshot {
+
+        private final long version;
+        private final long[] offsets;
+        private final MappedByteBuffer[] segments;
+        private final PriceColumns priceColumns;
+
+        Snapshot(long version, long[] offsets, MappedByteBuffer[] segments, PriceColumns priceColumns) {
+            this.version = version;
+            this.offsets = offsets;
+            this.segments = segments;
+            this.priceColumns = priceColumns;
+        }
+
+        @Override
+        public long version() {
+            return version;
+        }
+
+        @Override
+        public List<Product> search(String platform, String query) {
+            return searchCache.get(platform, query, version, () -> lookup(platform, query));
+        }
+
+        private List<Product> lookup(String platform, String query) {
+            ProductIndex index = indexes.get(platform);
+            if (index == null)
+                return List.of();
+            int[] ordinals = index.lookup(query);
+            List<Product> matched = new ArrayList<>(ordinals.length);
+            for (int ordinal : ordinals)
+                matched.add(get(ordinal));
+            return matched;
+        }
+
+        @Override
+        public Optional<Product> getProductById(String id) {
+            int ordinal = ordinalOf(id);
+            return ordinal < 0 ? Optional.empty() : Optional.of(get(ordinal));
+        }
+
+        @Override
+        public int ordinalOf(String id) {
+            if (id == null)
+                return -1;
+            byte[] key = id.getBytes(StandardCharsets.UTF_8);
+            int hash = id.hashCode();
+            int mask = idSlots.length - 1;
+            for (int slot = spread(hash) & mask; idSlots[slot] != 0; slot = (slot + 1) & mask) {
+                int ordinal = idSlots[slot] - 1;
+                if (idSlotHashes[slot] == hash && ListingCodec.idEquals(segment(ordinal), position(ordinal), key))
+                    return ordinal;
+            }
+            return -1;
+        }
+
+        /**
+         * Decodes the listing, or returns it from the direct-mapped cache of recent
+         * decodes when the same record was read before. A racing read may decode it
+         * twice; entries are immutable, so either copy is safe to publish.
+         */
+        @Override
+        public Product get(int ordinal) {
+            ByteBuffer segment = segment(ordinal);
+            int position = position(ordinal);
+            int slot = spread(Long.hashCode(offsets[ordinal]) * 0x9E3779B9) & (decoded.length - 1);
+            Decoded hit = decoded[slot];
+            if (hit != null && hit.segment() == segment && hit.position() == position)
+                return hit.product();
+            Product product = ListingCodec.decode(segment, position);
+            decoded[slot] = new Decoded(segment, position, product);
+            return product;
+        }
+
+        @Override
+        public PriceColumns priceColumns() {
+            return priceColumns;
+        }
+
+        @Override
+        public int size() {
+            return offsets.length;
+        }
+
+        private ByteBuffer segment(int ordinal) {
+            return segments[(int) (offsets[ordinal] >>> SEGMENT_BITS)];
+        }
+
+        private int position(int ordinal) {
+            return positionOf(offsets[ordinal]);
+        }
+    }
+}
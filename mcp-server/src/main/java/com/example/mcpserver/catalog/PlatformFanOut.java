@@ -0,0 +1,112 @@
+package com.example.mcpserver.catalog;
+
+import com.example.mcpserver.model.Product;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queries all 4 platforms concurrently on a bounded pool, each against its own
+ * deadline. A slow platform caps the call's latency at its timeout instead of
+ * adding to the others; whatever finished in time is returned as partial results.
+ */
+@Component
+public class PlatformFanOut {
+
+    private static final Logger log = LoggerFactory.getLogger(PlatformFanOut.class);
+
+    private final CatalogStore catalogStore;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Long> timeoutMillis = new LinkedHashMap<>();
+
+    public PlatformFanOut(CatalogStore catalogStore,
+            @Value("${shopping.search.threads:16}") int threads,
+            @Value("${shopping.search.queue-capacity:256}") int queueCapacity,
+            @Value("${shopping.search.timeout.amazon-ms:800}") long amazonTimeout,
+            @Value("${shopping.search.timeout.flipkart-ms:800}") long flipkartTimeout,
+            @Value("${shopping.search.timeout.samsung-store-ms:800}") long samsungStoreTimeout,
+            @Value("${shopping.search.timeout.croma-ms:800}") long cromaTimeout) {
+        this.catalogStore = catalogStore;
+        timeoutMillis.put(CatalogStore.AMAZON, amazonTimeout);
+        timeoutMillis.put(CatalogStore.FLIPKART, flipkartTimeout);
+        timeoutMillis.put(CatalogStore.SAMSUNG_STORE, samsungStoreTimeout);
+        timeoutMillis.put(CatalogStore.CROMA, cromaTimeout);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "platform-search-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        log.info("🔀 [SEARCH] Platform fan-out ready — {} threads, timeouts {}", threads, timeoutMillis);
+    }
+
+    public PlatformResults searchAllPlatforms(String query) {
+        return searchAllPlatforms(catalogStore.snapshot(), query);
+    }
+
+    /**
+     * Searches every platform within one catalog snapshot, so prices published
+     * mid-search never mix into the results.
+     */
+    public PlatformResults searchAllPlatforms(CatalogSnapshot snapshot, String query) {
+        long start = System.nanoTime();
+        Map<String, Future<List<Product>>> pending = new LinkedHashMap<>();
+        List<String> failed = new ArrayList<>();
+        for (String platform : CatalogStore.PLATFORMS) {
+            try {
+                pending.put(platform, executor.submit(() -> snapshot.search(platform, query)));
+            } catch (RejectedExecutionException e) {
+                log.warn("   ⚠️ {} search rejected — fan-out pool saturated", platform);
+                failed.add(platform);
+            }
+        }
+
+        Map<String, List<Product>> byPlatform = new LinkedHashMap<>();
+        List<String> timedOut = new ArrayList<>();
+        for (var entry : pending.entrySet()) {
+            String platform = entry.getKey();
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis.get(platform));
+            try {
+                List<Product> found = entry.getValue().get(Math.max(0, deadline - System.nanoTime()),
+                        TimeUnit.NANOSECONDS);
+                if (!found.isEmpty())
+                    byPlatform.put(platform, found);
+            } catch (TimeoutException e) {
+                entry.getValue().cancel(true);
+                log.warn("   ⏱️ {} search timed out after {}ms", platform, timeoutMillis.get(platform));
+                timedOut.add(platform);
+            } catch (ExecutionException e) {
+                log.error("   ❌ {} search failed: {}", platform, e.getCause().toString());
+                failed.add(platform);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                entry.getValue().cancel(true);
+                timedOut.add(platform);
+            }
+        }
+        return new PlatformResults(byPlatform, timedOut, failed);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
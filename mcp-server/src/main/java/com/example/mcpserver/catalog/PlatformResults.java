@@ -0,0 +1,24 @@
+package com.example.mcpserver.catalog;
+
+import com.example.mcpserver.model.Product;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a cross-platform search. Platforms that missed their deadline or
+ * failed are listed separately so callers can flag the results as partial.
+ */
+public record PlatformResults(
+        Map<String, List<Product>> byPlatform, // only platforms with matches, in platform order
+        List<String> timedOut,
+        List<String> failed) {
+
+    public boolean isPartial() {
+        return !timedOut.isEmpty() || !failed.isEmpty();
+    }
+
+    public int totalProducts() {
+        return byPlatform.values().stream().mapToInt(List::size).sum();
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.mcpserver.catalog;
+
+import com.example.mcpserver.model.Product;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Struct-of-arrays snapshot of the numeric listing fields, indexed by catalog ordinal.
+ * Comparison queries run tight loops over these primitive columns instead of
+ * calling getters through comparators on {@link Product} objects.
+ *
+ * Also keeps each variant's listings (model + storage across platforms) in price
+ * order, so best price and spread are O(1). A patched version re-sorts only the
+ * variants whose listings changed and shares the rest.
+ */
+public final class PriceColumns {
+
+    private final double[] price;
+    private final double[] mrp;
+    private final int[] stockCount;
+    private final float[] rating;
+    private final int[] variantGroup;
+    private final String[] variantLabels;
+    private final int[][] byPrice; // per variant group: ordinals, cheapest first
+
+    private PriceColumns(double[] price, double[] mrp, int[] stockCount, float[] rating,
+            int[] variantGroup, String[] variantLabels, int[][] byPrice) {
+        this.price = price;
+        this.mrp = mrp;
+        this.stockCount = stockCount;
+        this.rating = rating;
+        this.variantGroup = variantGroup;
+        this.variantLabels = variantLabels;
+        this.byPrice = byPrice;
+    }
+
+    /**
+     * Builds the columns for listings in catalog order; list position is the ordinal.
+     * Listings with the same model and storage share a variant group.
+     */
+    public static PriceColumns of(List<Product> listings) {
+        int n = listings.size();
+        double[] price = new double[n];
+        double[] mrp = new double[n];
+        int[] stockCount = new int[n];
+        float[] rating = new float[n];
+        int[] variantGroup = new int[n];
+        Map<String, Integer> groups = new HashMap<>();
+        String[] labels = new String[n];
+
+        for (int i = 0; i < n; i++) {
+            Product p = listings.get(i);
+            price[i] = p.getPrice();
+            mrp[i] = p.getMrp();
+            stockCount[i] = p.isInStock() ? p.getStockCount() : 0;
+            rating[i] = (float) p.getRating();
+            String label = variantLabel(p);
+            int group = groups.computeIfAbsent(label, k -> groups.size());
+            labels[group] = label;
+            variantGroup[i] = group;
+        }
+
+        int[] sizes = new int[groups.size()];
+        for (int group : variantGroup)
+            sizes[group]++;
+        int[][] byPrice = new int[groups.size()][];
+        for (int g = 0; g < byPrice.length; g++)
+            byPrice[g] = new int[sizes[g]];
+        int[] fill = new int[groups.size()];
+        for (int i = 0; i < n; i++)
+            byPrice[variantGroup[i]][fill[variantGroup[i]]++] = i;
+        for (int[] variant : byPrice)
+            sortByPrice(variant, price);
+
+        return new PriceColumns(price, mrp, stockCount, rating, variantGroup,
+                Arrays.copyOf(labels, groups.size()), byPrice);
+    }
+
+    /**
+     * Copy of these columns with the given listings replaced. Only price, mrp, stock
+     * and rating can change between versions, so the variant groups are shared and
+     * only the touched variants' price order is rebuilt.
+     */
+    public PriceColumns patch(int[] ordinals, Product[] updated) {
+        double[] newPrice = price.clone();
+        double[] newMrp = mrp.clone();
+        int[] newStock = stockCount.clone();
+        float[] newRating = rating.clone();
+        for (int i = 0; i < ordinals.length; i++) {
+            Product p = updated[i];
+            int ord = ordinals[i];
+            newPrice[ord] = p.getPrice();
+            newMrp[ord] = p.getMrp();
+            newStock[ord] = p.isInStock() ? p.getStockCount() : 0;
+            newRating[ord] = (float) p.getRating();
+        }
+
+        int[][] newByPrice = byPrice.clone();
+        for (int ord : ordinals) {
+            int group = variantGroup[ord];
+            if (newByPrice[group] == byPrice[group]) {
+                newByPrice[group] = byPrice[group].clone();
+                sortByPrice(newByPrice[group], newPrice);
+            }
+        }
+        return new PriceColumns(newPrice, newMrp, newStock, newRating, variantGroup, variantLabels, newByPrice);
+    }
+
+    public static String variantLabel(Product p) {
+        return p.getName() + " " + p.getStorage();
+    }
+
+    public int size() {
+        return price.length;
+    }
+
+    public double price(int ordinal) {
+        return price[ordinal];
+    }
+
+    public double mrp(int ordinal) {
+        return mrp[ordinal];
+    }
+
+    public int stockCount(int ordinal) {
+        return stockCount[ordinal];
+    }
+
+    public float rating(int ordinal) {
+        return rating[ordinal];
+    }
+
+    public int variantGroup(int ordinal) {
+        return variantGroup[ordinal];
+    }
+
+    public String variantLabel(int group) {
+        return variantLabels[group];
+    }
+
+    public int variantCount() {
+        return variantLabels.length;
+    }
+
+    /**
+     * Number of listings (one per platform carrying it) of a variant.
+     */
+    public int variantSize(int group) {
+        return byPrice[group].length;
+    }
+
+    /**
+     * Ordinal of the variant's listing at {@code rank} in price order; rank 0 is
+     * the cheapest. Equal prices keep catalog (platform) order.
+     */
+    public int variantListing(int group, int rank) {
+        return byPrice[group][rank];
+    }
+
+    public int cheapest(int group) {
+        return byPrice[group][0];
+    }
+
+    public double bestPrice(int group) {
+        return price[byPrice[group][0]];
+    }
+
+    /**
+     * Dearest minus cheapest price of the variant — what buying at the cheapest
+     * platform saves over the dearest one.
+     */
+    public double spread(int group) {
+        int[] listings = byPrice[group];
+        return price[listings[listings.length - 1]] - price[listings[0]];
+    }
+
+    private static void sortByPrice(int[] ordinals, double[] price) {
+        // One listing per platform, so insertion sort is cheapest
+        for (int i = 1; i < ordinals.length; i++) {
+            int ord = ordinals[i];
+            int j = i - 1;
+            while (j >= 0 && (price[ordinals[j]] > price[ord]
+                    || (price[ordinals[j]] == price[ord] && ordinals[j] > ord))) {
+                ordinals[j + 1] = ordinals[j];
+                j--;
+            }
+            ordinals[j + 1] = ord;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.mcpserver.catalog;
+
+import com.example.mcpserver.model.Product;
+import com.example.mcpserver.search.ProductIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of platform search results, keyed by platform and normalized query.
+ *
+ * Backed by a {@link TinyLfuCache}, so a burst of one-off queries can't flush the
+ * popular ones ("S24 Ultra", "S23 FE"), and entries carry the catalog version they
+ * were computed from: published deltas invalidate results without a TTL.
+ */
+@Component
+public class SearchResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchResultCache.class);
+
+    private final TinyLfuCache<List<Product>> results;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SearchResultCache(@Value("${shopping.search.cache.max-entries:10000}") int maxEntries) {
+        this.results = new TinyLfuCache<>(maxEntries);
+        log.info("🧠 [CACHE] Search result cache ready — {} entries max", results.capacity());
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size) {
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    /**
+     * Returns the cached result for this platform, query and catalog version,
+     * computing and caching it on a miss. Cached lists are unmodifiable.
+     */
+    public List<Product> get(String platform, String query, long version, Supplier<List<Product>> search) {
+        String key = platform + '\u0000' + ProductIndex.normalize(query);
+        List<Product> cached = results.get(key, version);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        List<Product> result = List.copyOf(search.get());
+        results.put(key, version, result);
+        return result;
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), results.evictions(), results.size());
+    }
+}
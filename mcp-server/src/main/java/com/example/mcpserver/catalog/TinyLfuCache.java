@@ -0,0 +1,240 @@
+package com.example.mcpserver.catalog;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded map of values computed from a given catalog version, shared by the
+ * search result and rendered output caches.
+ *
+ * Admission follows W-TinyLFU: new entries land in a small LRU window, and when
+ * the window overflows its oldest entry only displaces the main region's victim
+ * if a count-min sketch has seen it more often. A burst of one-off keys can't
+ * flush the popular ones.
+ *
+ * A lookup for any version other than the entry's is a miss, and an entry from
+ * an older version is dropped on sight, so published deltas invalidate values
+ * without a TTL.
+ */
+public final class TinyLfuCache<V> {
+
+    private static final int MAX_STRIPES = 16;
+    // One window slot and one main slot; a smaller segment would have nothing to evict into
+    private static final int MIN_SEGMENT = 2;
+
+    private final List<Segment> segments;
+    private final int stripeMask;
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * A cache of up to {@code maxEntries} values; 0 disables it. Small caches use
+     * fewer lock stripes so every stripe keeps room for {@value #MIN_SEGMENT}.
+     */
+    public TinyLfuCache(int maxEntries) {
+        if (maxEntries < 0 || maxEntries == 1)
+            throw new IllegalArgumentException("Cache size must be 0 (off) or at least 2, was " + maxEntries);
+        int stripes = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, maxEntries / MIN_SEGMENT)));
+        this.segments = new ArrayList<>(stripes);
+        this.stripeMask = stripes - 1;
+        for (int i = 0; i < stripes; i++)
+            segments.add(new Segment(maxEntries / stripes));
+    }
+
+    /**
+     * Returns the value cached for this key and version, or null.
+     */
+    public V get(String key, long version) {
+        return segment(key).get(key, version);
+    }
+
+    /**
+     * Caches a value computed from {@code version}. A value from an older
+     * version than the one cached is ignored.
+     */
+    public void put(String key, long version, V value) {
+        segment(key).put(key, version, value);
+    }
+
+    public int capacity() {
+        int capacity = 0;
+        for (Segment segment : segments)
+            capacity += segment.capacity;
+        return capacity;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments)
+            size += segment.size();
+        return size;
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private Segment segment(String key) {
+        return segments.get(spread(key.hashCode()) & stripeMask);
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private record Entry<V>(long version, V value) {
+    }
+
+    /**
+     * One lock stripe: a 1% LRU admission window in front of a segmented LRU
+     * (20% probation, 80% protected), sharing one frequency sketch.
+     */
+    private final class Segment {
+
+        private final int capacity;
+        private final int windowCapacity;
+        private final int protectedCapacity;
+        private final int mainCapacity;
+        private final LinkedHashMap<String, Entry<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<String, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<String, Entry<V>> protectedRegion = new LinkedHashMap<>(16, 0.75f, true);
+        private final FrequencySketch sketch;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.windowCapacity = capacity == 0 ? 0 : Math.max(1, capacity / 100);
+            this.mainCapacity = capacity - windowCapacity;
+            this.protectedCapacity = mainCapacity * 4 / 5;
+            this.sketch = new FrequencySketch(Math.max(1, capacity));
+        }
+
+        synchronized V get(String key, long version) {
+            sketch.increment(key.hashCode());
+            LinkedHashMap<String, Entry<V>> region = window;
+            Entry<V> entry = window.get(key);
+            if (entry == null)
+                entry = (region = protectedRegion).get(key);
+            if (entry == null)
+                entry = (region = probation).get(key);
+            if (entry == null)
+                return null;
+            if (entry.version() != version) {
+                // Computed from an older snapshot: it can never hit again, so free the slot
+                if (entry.version() < version)
+                    region.remove(key);
+                return null;
+            }
+            // Only a hit on the current version earns a probation entry a protected slot
+            if (region == probation) {
+                probation.remove(key);
+                protectedRegion.put(key, entry);
+                if (protectedRegion.size() > protectedCapacity) {
+                    var demoted = eldest(protectedRegion);
+                    probation.put(demoted.getKey(), demoted.getValue());
+                }
+            }
+            return entry.value();
+        }
+
+        synchronized void put(String key, long version, V value) {
+            if (windowCapacity == 0)
+                return;
+            Entry<V> entry = new Entry<>(version, value);
+            for (Map<String, Entry<V>> region : List.of(window, probation, protectedRegion)) {
+                Entry<V> existing = region.get(key);
+                if (existing != null) {
+                    // A value from an older snapshot must not replace a newer one
+                    if (existing.version() <= version)
+                        region.put(key, entry);
+                    return;
+                }
+            }
+            window.put(key, entry);
+            if (window.size() > windowCapacity)
+                admit(eldest(window));
+        }
+
+        private void admit(Map.Entry<String, Entry<V>> candidate) {
+            if (probation.size() + protectedRegion.size() < mainCapacity) {
+                probation.put(candidate.getKey(), candidate.getValue());
+                return;
+            }
+            LinkedHashMap<String, Entry<V>> victims = probation.isEmpty() ? protectedRegion : probation;
+            String victim = victims.keySet().iterator().next();
+            if (sketch.frequency(candidate.getKey().hashCode()) > sketch.frequency(victim.hashCode())) {
+                victims.remove(victim);
+                probation.put(candidate.getKey(), candidate.getValue());
+            }
+            evictions.increment();
+        }
+
+        synchronized int size() {
+            return window.size() + probation.size() + protectedRegion.size();
+        }
+
+        private Map.Entry<String, Entry<V>> eldest(LinkedHashMap<String, Entry<V>> region) {
+            Iterator<Map.Entry<String, Entry<V>>> it = region.entrySet().iterator();
+            Map.Entry<String, Entry<V>> eldest = it.next();
+            Map.Entry<String, Entry<V>> detached = Map.entry(eldest.getKey(), eldest.getValue());
+            it.remove();
+            return detached;
+        }
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters, four per key. Counters are halved once
+     * the sample reaches 10x the capacity so stale popularity fades out.
+     */
+    private static final class FrequencySketch {
+
+        private static final long[] SEEDS = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            this.table = new long[Integer.highestOneBit(Math.max(2, capacity) - 1) << 1];
+            this.sampleSize = 10 * capacity;
+        }
+
+        int frequency(int hash) {
+            int start = (spread(hash) & 3) << 2;
+            int frequency = 15;
+            for (int i = 0; i < 4; i++) {
+                int offset = (start + i) << 2;
+                frequency = Math.min(frequency, (int) ((table[indexOf(hash, i)] >>> offset) & 0xF));
+            }
+            return frequency;
+        }
+
+        void increment(int hash) {
+            int start = (spread(hash) & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int offset = (start + i) << 2;
+                if (((table[index] >>> offset) & 0xF) != 0xF) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < table.length; i++)
+                    table[i] = (table[i] >>> 1) & RESET_MASK;
+                additions /= 2;
+            }
+        }
+
+        private int indexOf(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & (table.length - 1);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.mcpserver.controller;
+
+import com.example.mcpserver.catalog.CatalogSnapshot;
+import com.example.mcpserver.catalog.CatalogStore;
+import com.example.mcpserver.catalog.ListingDelta;
+import com.example.mcpserver.catalog.SearchResultCache;
+import com.example.mcpserver.history.PriceHistoryStore;
+import com.example.mcpserver.inventory.InventoryLedger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live catalog feed. Each POST publishes one new catalog version containing all
+ * of its deltas, or nothing if any delta names an unknown listing.
+ */
+@RestController
+@RequestMapping("/api/catalog")
+public class CatalogController {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogController.class);
+    private final CatalogStore catalogStore;
+    private final SearchResultCache searchCache;
+    private final PriceHistoryStore priceHistory;
+    private final InventoryLedger inventory;
+
+    public CatalogController(CatalogStore catalogStore, SearchResultCache searchCache,
+            PriceHistoryStore priceHistory, InventoryLedger inventory) {
+        this.catalogStore = catalogStore;
+        this.searchCache = searchCache;
+        this.priceHistory = priceHistory;
+        this.inventory = inventory;
+    }
+
+    @PostMapping("/deltas")
+    public ResponseEntity<Map<String, Object>> applyDeltas(@RequestBody List<ListingDelta> deltas) {
+        log.info("📥 [CATALOG] {} listing deltas received", deltas.size());
+        try {
+            CatalogSnapshot published = catalogStore.applyDeltas(deltas);
+            priceHistory.recordDeltas(deltas, Instant.now().getEpochSecond());
+            inventory.restock(deltas);
+            return ResponseEntity.ok(Map.of(
+                    "status", "OK",
+                    "version", published.version(),
+                    "applied", deltas.size()));
+        } catch (IllegalArgumentException e) {
+            log.warn("   ⚠️ Deltas rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of(
+                    "status", "REJECTED",
+                    "message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/version")
+    public ResponseEntity<Map<String, Object>> version() {
+        CatalogSnapshot snapshot = catalogStore.snapshot();
+        return ResponseEntity.ok(Map.of(
+                "version", snapshot.version(),
+                "listings", snapshot.size()));
+    }
+
+    @GetMapping("/inventory/{productId}")
+    public ResponseEntity<InventoryLedger.Levels> inventory(@PathVariable String productId) {
+        InventoryLedger.Levels levels = inventory.levels(productId);
+        return levels == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(levels);
+    }
+
+    @GetMapping("/cache")
+    public ResponseEntity<SearchResultCache.Stats> cacheStats() {
+        SearchResultCache.Stats stats = searchCache.stats();
+        log.debug("🧠 [CACHE] hits={} misses={} evictions={} size={}",
+                stats.hits(), stats.misses(), stats.evictions(), stats.size());
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.mcpserver.controller;
+
+import com.example.mcpserver.ap2.PaymentGateway;
+import com.example.mcpserver.ap2.PaymentService;
+import com.example.mcpserver.events.EventBus;
+import com.example.mcpserver.events.EventMetrics;
+import com.example.mcpserver.order.OrderStore;
+import com.example.mcpserver.store.WriteAheadLog;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Operator view of the AP2 mandate chain: re-verifies every transaction's
+ * Intent → Cart → Payment signatures, and reports the mandate stores' sizes,
+ * expiries and memory, the write-ahead log's commit batching, the payment
+ * gateway's settlement throughput, the order indexes and the event bus with the
+ * counters its metrics consumer keeps.
+ */
+@RestController
+@RequestMapping("/api/ap2")
+public class PaymentAuditController {
+
+    private final PaymentService paymentService;
+    private final WriteAheadLog wal;
+    private final PaymentGateway gateway;
+    private final OrderStore orderStore;
+    private final EventBus events;
+    private final EventMetrics metrics;
+
+    public PaymentAuditController(PaymentService paymentService, WriteAheadLog wal, PaymentGateway gateway,
+            OrderStore orderStore, EventBus events, EventMetrics metrics) {
+        this.paymentService = paymentService;
+        this.wal = wal;
+        this.gateway = gateway;
+        this.orderStore = orderStore;
+        this.events = events;
+        this.metrics = metrics;
+    }
+
+    @GetMapping("/audit")
+    public ResponseEntity<PaymentService.AuditReport> audit() {
+        return ResponseEntity.ok(paymentService.auditTransactions());
+    }
+
+    @GetMapping("/stores")
+    public ResponseEntity<PaymentService.StoreStats> stores() {
+        return ResponseEntity.ok(paymentService.storeStats());
+    }
+
+    @GetMapping("/wal")
+    public ResponseEntity<WriteAheadLog.Stats> wal() {
+        return ResponseEntity.ok(wal.stats());
+    }
+
+    @GetMapping("/gateway")
+    public ResponseEntity<PaymentGateway.Stats> gateway() {
+        return ResponseEntity.ok(gateway.stats());
+    }
+
+    @GetMapping("/orders")
+    public ResponseEntity<OrderStore.Stats> orders() {
+        return ResponseEntity.ok(orderStore.stats());
+    }
+
+    @GetMapping("/events")
+    public ResponseEntity<EventBus.Stats> events() {
+        return ResponseEntity.ok(events.stats());
+    }
+
+    @GetMapping("/events/metrics")
+    public ResponseEntity<EventMetrics.Snapshot> eventMetrics() {
+        return ResponseEntity.ok(metrics.snapshot());
+    }
+}
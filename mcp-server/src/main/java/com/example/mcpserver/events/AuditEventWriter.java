@@ -0,0 +1,95 @@
+package com.example.mcpserver.events;
+
+import com.example.mcpserver.ap2.CartMandate;
+import com.example.mcpserver.ap2.IntentMandate;
+import com.example.mcpserver.ap2.PaymentResult;
+import com.example.mcpserver.order.Order;
+import com.example.mcpserver.tools.JsonOutput;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends every event to an audit trail, one JSON object per line. Writes are
+ * buffered and flushed at the end of each batch the bus hands over, so a burst of
+ * payments costs one write call, not one per event.
+ */
+@Component
+@ConditionalOnProperty(name = "shopping.events.audit.enabled", havingValue = "true", matchIfMissing = true)
+public class AuditEventWriter implements EventConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditEventWriter.class);
+
+    private final Path file;
+    private final Writer out;
+
+    public AuditEventWriter(@Value("${shopping.events.audit.file:data/events/audit.log}") String file) {
+        this.file = Path.of(file).toAbsolutePath();
+        try {
+            Files.createDirectories(this.file.getParent());
+            this.out = Files.newBufferedWriter(this.file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open audit trail " + this.file, e);
+        }
+        log.info("📜 [AUDIT] Writing events to {}", this.file);
+    }
+
+    @Override
+    public String name() {
+        return "audit";
+    }
+
+    @Override
+    public void onEvent(ShopEvent event, boolean endOfBatch) throws IOException {
+        out.write(line(event));
+        out.write('\n');
+        if (endOfBatch)
+            out.flush();
+    }
+
+    static String line(ShopEvent event) {
+        return JsonOutput.write(256, json -> {
+            json.writeStartObject();
+            json.writeNumberField("seq", event.sequence());
+            json.writeStringField("at", event.publishedAt().toString());
+            json.writeStringField("type", event.type().name());
+            json.writeStringField("id", event.key());
+            if (event.payload() instanceof IntentMandate intent) {
+                JsonOutput.writeAmount(json, "maxBudget", intent.maxBudget());
+                json.writeStringField("signature", intent.signature());
+            } else if (event.payload() instanceof CartMandate cart) {
+                json.writeStringField("intentMandateId", cart.intentMandateId());
+                JsonOutput.writeAmount(json, "amount", cart.totalAmount());
+                json.writeStringField("signature", cart.signature());
+            } else if (event.payload() instanceof PaymentResult result) {
+                json.writeStringField("cartMandateId", result.cartMandateId());
+                json.writeStringField("status", result.status());
+                JsonOutput.writeAmount(json, "amount", result.amount());
+                json.writeStringField("signature", result.signature());
+            } else if (event.payload() instanceof Order order) {
+                json.writeStringField("productId", order.productId());
+                json.writeNumberField("quantity", order.quantity());
+                JsonOutput.writeAmount(json, "amount", order.totalAmount());
+                json.writeStringField("customerName", order.customerName());
+            }
+            json.writeEndObject();
+        });
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        out.close();
+    }
+}
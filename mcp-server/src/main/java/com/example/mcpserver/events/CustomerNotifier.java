@@ -0,0 +1,51 @@
+package com.example.mcpserver.events;
+
+import com.example.mcpserver.ap2.PaymentResult;
+import com.example.mcpserver.model.InrFormat;
+import com.example.mcpserver.order.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stand-in for customer notifications (SMS, e-mail, push): logs the message each
+ * settled payment and placed order would send. A real sender plugs in here, off
+ * the payment path.
+ */
+@Component
+public class CustomerNotifier implements EventConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerNotifier.class);
+
+    @Override
+    public String name() {
+        return "notifications";
+    }
+
+    @Override
+    public void onEvent(ShopEvent event, boolean endOfBatch) {
+        switch (event.type()) {
+            case PAYMENT_SETTLED -> {
+                PaymentResult result = event.payment();
+                if (PaymentResult.COMPLETED.equals(result.status()))
+                    send(result.customerName(), "Payment of " + InrFormat.format(result.amount()) + " received ("
+                            + result.transactionId() + ")");
+                else if (result.transactionId() != null)
+                    send(result.customerName(), "Payment " + result.transactionId() + " did not go through: "
+                            + result.status());
+            }
+            case ORDER_PLACED -> {
+                Order order = event.order();
+                send(order.customerName(), "Order " + order.orderId() + " confirmed: " + order.productName()
+                        + " × " + order.quantity() + ", arriving " + order.expectedDelivery() + " via "
+                        + order.deliveryPartner());
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void send(String customer, String message) {
+        log.info("📣 [NOTIFY] To {}: {}", customer, message);
+    }
+}
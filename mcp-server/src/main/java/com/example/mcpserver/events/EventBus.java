@@ -0,0 +1,167 @@
+package com.example.mcpserver.events;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process bus for mandate, payment and order events, Disruptor style: one
+ * preallocated {@link EventRing} read by every {@link EventConsumer} bean, each on
+ * its own thread at its own pace.
+ *
+ * Publishing is a CAS and a few field writes; publishers never wake a consumer.
+ * Idle consumers spin briefly, then park with a growing pause (at most
+ * {@code MAX_PARK_MICROS}), so a burst is picked up within microseconds and an
+ * idle bus costs next to nothing.
+ *
+ * When the slowest consumer is a whole ring behind, {@code backpressure} decides:
+ * {@code drop} (default) discards the new event so the payment path never waits;
+ * {@code block} waits up to {@code block-timeout-ms} for room, then drops.
+ */
+@Component
+public class EventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(EventBus.class);
+    private static final int SPINS = 100;
+    private static final long MAX_PARK_MICROS = 1000;
+
+    public enum Backpressure {
+        DROP, BLOCK
+    }
+
+    private final EventRing ring;
+    private final List<EventConsumer> consumers;
+    private final Backpressure backpressure;
+    private final long blockTimeoutNanos;
+    private final List<Thread> threads = new ArrayList<>();
+    private final LongAdder[] errors;
+    private volatile boolean running = true;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder waited = new LongAdder();
+
+    public record ConsumerStats(String name, long processed, long lag, long errors) {
+    }
+
+    public record Stats(int ringSize, Backpressure backpressure, long published, long dropped, long waited,
+            List<ConsumerStats> consumers) {
+    }
+
+    public EventBus(List<EventConsumer> consumers,
+            @Value("${shopping.events.ring-size:4096}") int ringSize,
+            @Value("${shopping.events.backpressure:drop}") String backpressure,
+            @Value("${shopping.events.block-timeout-ms:50}") long blockTimeoutMillis) {
+        this.consumers = List.copyOf(consumers);
+        this.ring = new EventRing(Integer.highestOneBit(Math.max(2, ringSize - 1)) << 1, this.consumers.size());
+        this.backpressure = Backpressure.valueOf(backpressure.trim().toUpperCase(Locale.ROOT));
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        this.errors = new LongAdder[this.consumers.size()];
+        for (int c = 0; c < this.consumers.size(); c++) {
+            errors[c] = new LongAdder();
+            int index = c;
+            Thread t = new Thread(() -> consume(index), "events-" + this.consumers.get(c).name());
+            t.setDaemon(true);
+            threads.add(t);
+            t.start();
+        }
+        log.info("📡 [EVENTS] Bus ready — ring {}, backpressure {}, consumers {}", ring.size(), this.backpressure,
+                this.consumers.stream().map(EventConsumer::name).toList());
+    }
+
+    /**
+     * Puts an event on the ring for every consumer. False if it was dropped because
+     * the ring stayed full.
+     */
+    public boolean publish(ShopEvent.Type type, Object payload) {
+        if (consumers.isEmpty() || !running)
+            return false;
+        long sequence = ring.tryClaim();
+        if (sequence < 0 && backpressure == Backpressure.BLOCK)
+            sequence = awaitRoom();
+        if (sequence < 0) {
+            dropped.increment();
+            log.warn("📡 [EVENTS] Ring full — dropped {} event", type);
+            return false;
+        }
+        ring.slot(sequence).set(type, sequence, payload);
+        ring.publish(sequence);
+        published.increment();
+        return true;
+    }
+
+    public Stats stats() {
+        long claimed = ring.claimed();
+        List<ConsumerStats> perConsumer = new ArrayList<>(consumers.size());
+        for (int c = 0; c < consumers.size(); c++) {
+            long consumed = ring.consumed(c);
+            perConsumer.add(new ConsumerStats(consumers.get(c).name(), consumed + 1, Math.max(0, claimed - consumed),
+                    errors[c].sum()));
+        }
+        return new Stats(ring.size(), backpressure, published.sum(), dropped.sum(), waited.sum(), perConsumer);
+    }
+
+    private long awaitRoom() {
+        waited.increment();
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        long park = 1_000;
+        for (;;) {
+            LockSupport.parkNanos(park);
+            long sequence = ring.tryClaim();
+            if (sequence >= 0 || System.nanoTime() - deadline >= 0)
+                return sequence;
+            park = Math.min(park * 2, TimeUnit.MICROSECONDS.toNanos(MAX_PARK_MICROS));
+        }
+    }
+
+    private void consume(int index) {
+        EventConsumer consumer = consumers.get(index);
+        long next = ring.consumed(index) + 1;
+        int idle = 0;
+        for (;;) {
+            long available = ring.highestPublished(next);
+            if (available < next) {
+                // Checked after the last read, so everything published before close is drained
+                if (!running)
+                    return;
+                idle(idle++);
+                continue;
+            }
+            idle = 0;
+            for (long s = next; s <= available; s++) {
+                try {
+                    consumer.onEvent(ring.slot(s), s == available);
+                } catch (Exception e) {
+                    errors[index].increment();
+                    log.warn("📡 [EVENTS] Consumer '{}' failed on event {}: {}", consumer.name(), s, e.toString());
+                }
+            }
+            ring.consumed(index, available);
+            next = available + 1;
+        }
+    }
+
+    private static void idle(int rounds) {
+        if (rounds < SPINS)
+            Thread.onSpinWait();
+        else
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(
+                    Math.min(MAX_PARK_MICROS, 10L << Math.min(10, (rounds - SPINS) / 16))));
+    }
+
+    @PreDestroy
+    void close() throws InterruptedException {
+        running = false;
+        for (Thread t : threads)
+            t.join(TimeUnit.SECONDS.toMillis(2));
+    }
+}
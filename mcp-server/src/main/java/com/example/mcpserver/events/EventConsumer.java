@@ -0,0 +1,21 @@
+package com.example.mcpserver.events;
+
+/**
+ * A reader of the event bus. Every consumer bean sees every event, in publish
+ * order, on its own thread; a slow consumer only holds up the publishers once it
+ * is a whole ring behind.
+ */
+public interface EventConsumer {
+
+    /**
+     * Short name for thread names and stats, e.g. "audit".
+     */
+    String name();
+
+    /**
+     * Handles one event. {@code endOfBatch} is true on the last event currently
+     * published, a good point to flush buffered work. Exceptions are logged and
+     * the event skipped.
+     */
+    void onEvent(ShopEvent event, boolean endOfBatch) throws Exception;
+}
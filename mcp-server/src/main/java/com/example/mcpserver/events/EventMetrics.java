@@ -0,0 +1,70 @@
+package com.example.mcpserver.events;
+
+import com.example.mcpserver.ap2.PaymentResult;
+import com.example.mcpserver.order.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running business counters fed from the event bus: mandates, settled payments
+ * by outcome, revenue, orders and units per platform, and how long events wait
+ * on the ring before this consumer sees them.
+ */
+@Component
+public class EventMetrics implements EventConsumer {
+
+    private final LongAdder intents = new LongAdder();
+    private final LongAdder carts = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final DoubleAdder revenue = new DoubleAdder();
+    private final LongAdder orders = new LongAdder();
+    private final Map<String, LongAdder> unitsByPlatform = new ConcurrentHashMap<>();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder delayMillis = new LongAdder();
+
+    public record Snapshot(long intentsCreated, long cartsCreated, long paymentsCompleted, long paymentsFailed,
+            double revenue, long ordersPlaced, Map<String, Long> unitsByPlatform, double avgDeliveryMillis) {
+    }
+
+    @Override
+    public String name() {
+        return "metrics";
+    }
+
+    @Override
+    public void onEvent(ShopEvent event, boolean endOfBatch) {
+        events.increment();
+        delayMillis.add(Math.max(0, System.currentTimeMillis() - event.publishedAt().toEpochMilli()));
+        switch (event.type()) {
+            case MANDATE_CREATED -> (event.intent() != null ? intents : carts).increment();
+            case PAYMENT_SETTLED -> {
+                PaymentResult result = event.payment();
+                if (PaymentResult.COMPLETED.equals(result.status())) {
+                    completed.increment();
+                    revenue.add(result.amount());
+                } else {
+                    failed.increment();
+                }
+            }
+            case ORDER_PLACED -> {
+                Order order = event.order();
+                orders.increment();
+                unitsByPlatform.computeIfAbsent(order.platform(), p -> new LongAdder()).add(order.quantity());
+            }
+        }
+    }
+
+    public Snapshot snapshot() {
+        Map<String, Long> units = new TreeMap<>();
+        unitsByPlatform.forEach((platform, count) -> units.put(platform, count.sum()));
+        long seen = events.sum();
+        return new Snapshot(intents.sum(), carts.sum(), completed.sum(), failed.sum(), revenue.sum(), orders.sum(),
+                units, seen == 0 ? 0 : (double) delayMillis.sum() / seen);
+    }
+}
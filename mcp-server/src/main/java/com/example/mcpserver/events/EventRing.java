@@ -0,0 +1,116 @@
+package com.example.mcpserver.events;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The sequencing behind {@link EventBus}: a power-of-two array of preallocated
+ * slots, a claim cursor shared by the publishers and one progress sequence per
+ * consumer.
+ *
+ * A publisher claims the next sequence with one CAS, as long as the slowest
+ * consumer is less than a ring behind, fills the slot and marks it published by
+ * storing the lap number for that slot. Consumers read every slot up to the
+ * first one not yet marked, so publishers that claimed out of order never expose
+ * a half-written slot. Nothing blocks and nothing allocates on either side.
+ */
+final class EventRing {
+
+    // 8 longs = 64 bytes between sequences, one cache line each
+    private static final int PAD = 8;
+    private static final int CLAIMED = 0;
+
+    private final ShopEvent[] slots;
+    private final int mask;
+    private final int shift;
+    private final int consumers;
+    private final int gatingCache;
+    // Lap number last published into each slot; -1 before the first lap
+    private final AtomicIntegerArray published;
+    // [CLAIMED] highest claimed sequence, then each consumer's last processed sequence,
+    // then the cached minimum of those
+    private final AtomicLongArray sequences;
+
+    EventRing(int size, int consumers) {
+        if (Integer.bitCount(size) != 1)
+            throw new IllegalArgumentException("Ring size must be a power of two, was " + size);
+        this.slots = new ShopEvent[size];
+        for (int i = 0; i < size; i++)
+            slots[i] = new ShopEvent();
+        this.mask = size - 1;
+        this.shift = Integer.numberOfTrailingZeros(size);
+        this.consumers = consumers;
+        this.gatingCache = (consumers + 1) * PAD;
+        this.published = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++)
+            published.set(i, -1);
+        this.sequences = new AtomicLongArray((consumers + 2) * PAD);
+        for (int i = 0; i <= consumers + 1; i++)
+            sequences.set(i * PAD, -1);
+    }
+
+    int size() {
+        return slots.length;
+    }
+
+    /**
+     * The next sequence to fill, or -1 when that would overwrite a slot some
+     * consumer has not read yet.
+     */
+    long tryClaim() {
+        for (;;) {
+            long current = sequences.get(CLAIMED);
+            long next = current + 1;
+            long wrapPoint = next - slots.length;
+            if (wrapPoint > sequences.get(gatingCache)) {
+                long slowest = slowestConsumer(current);
+                sequences.set(gatingCache, slowest);
+                if (wrapPoint > slowest)
+                    return -1;
+            }
+            if (sequences.compareAndSet(CLAIMED, current, next))
+                return next;
+        }
+    }
+
+    ShopEvent slot(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    void publish(long sequence) {
+        // Release store: the slot's fields are visible to whoever sees the lap number
+        published.lazySet((int) sequence & mask, (int) (sequence >>> shift));
+    }
+
+    /**
+     * Highest sequence from {@code from} on such that it and everything before it
+     * is published; {@code from - 1} if {@code from} itself is not.
+     */
+    long highestPublished(long from) {
+        long claimed = sequences.get(CLAIMED);
+        for (long s = from; s <= claimed; s++) {
+            if (published.get((int) s & mask) != (int) (s >>> shift))
+                return s - 1;
+        }
+        return claimed;
+    }
+
+    long claimed() {
+        return sequences.get(CLAIMED);
+    }
+
+    long consumed(int consumer) {
+        return sequences.get((consumer + 1) * PAD);
+    }
+
+    void consumed(int consumer, long sequence) {
+        sequences.lazySet((consumer + 1) * PAD, sequence);
+    }
+
+    private long slowestConsumer(long fallback) {
+        long min = fallback;
+        for (int c = 0; c < consumers; c++)
+            min = Math.min(min, consumed(c));
+        return min;
+    }
+}
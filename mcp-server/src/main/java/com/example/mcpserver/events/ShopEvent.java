@@ -0,0 +1,84 @@
+package com.example.mcpserver.events;
+
+import com.example.mcpserver.ap2.CartMandate;
+import com.example.mcpserver.ap2.IntentMandate;
+import com.example.mcpserver.ap2.PaymentResult;
+import com.example.mcpserver.order.Order;
+
+import java.time.Instant;
+
+/**
+ * One slot of the event ring. Slots are allocated once and refilled on every lap,
+ * so a consumer must copy anything it keeps past {@link EventConsumer#onEvent}.
+ * The payload itself is an immutable record and safe to keep.
+ */
+public final class ShopEvent {
+
+    public enum Type {
+        /** An Intent or Cart Mandate was signed: payload is an {@link IntentMandate} or {@link CartMandate} */
+        MANDATE_CREATED,
+        /** A payment reached COMPLETED or FAILED: payload is a {@link PaymentResult} */
+        PAYMENT_SETTLED,
+        /** A settled payment placed an order: payload is an {@link Order} */
+        ORDER_PLACED
+    }
+
+    private Type type;
+    private long sequence;
+    private long publishedAtMillis;
+    private Object payload;
+
+    void set(Type type, long sequence, Object payload) {
+        this.type = type;
+        this.sequence = sequence;
+        this.payload = payload;
+        this.publishedAtMillis = System.currentTimeMillis();
+    }
+
+    public Type type() {
+        return type;
+    }
+
+    public long sequence() {
+        return sequence;
+    }
+
+    public Instant publishedAt() {
+        return Instant.ofEpochMilli(publishedAtMillis);
+    }
+
+    public Object payload() {
+        return payload;
+    }
+
+    public IntentMandate intent() {
+        return payload instanceof IntentMandate intent ? intent : null;
+    }
+
+    public CartMandate cart() {
+        return payload instanceof CartMandate cart ? cart : null;
+    }
+
+    public PaymentResult payment() {
+        return payload instanceof PaymentResult result ? result : null;
+    }
+
+    public Order order() {
+        return payload instanceof Order order ? order : null;
+    }
+
+    /**
+     * ID of the mandate, transaction or order the event is about.
+     */
+    public String key() {
+        if (payload instanceof IntentMandate intent)
+            return intent.mandateId();
+        if (payload instanceof CartMandate cart)
+            return cart.mandateId();
+        if (payload instanceof PaymentResult result)
+            return result.transactionId();
+        if (payload instanceof Order order)
+            return order.orderId();
+        return null;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.mcpserver.history;
+
+import com.example.mcpserver.catalog.CatalogSnapshot;
+import com.example.mcpserver.catalog.CatalogStore;
+import com.example.mcpserver.catalog.ListingDelta;
+import com.example.mcpserver.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Price history per listing ID, one compressed {@link PriceSeries} each.
+ *
+ * Mock listings get a seeded daily history ending at today's catalog price; price
+ * deltas applied through the catalog feed append real points from then on.
+ */
+@Component
+public class PriceHistoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceHistoryStore.class);
+    private static final long DAY_SECONDS = 86_400;
+    private final ConcurrentHashMap<String, PriceSeries> series = new ConcurrentHashMap<>();
+
+    public PriceHistoryStore(CatalogStore catalogStore,
+            @Value("${shopping.history.seed-days:180}") int seedDays) {
+        seed(catalogStore.snapshot(), seedDays);
+    }
+
+    public void record(String listingId, long epochSecond, double price) {
+        // A clock step back or a racing feed must not reorder the series
+        series.computeIfAbsent(listingId, id -> new PriceSeries()).appendLatest(epochSecond, price);
+    }
+
+    /**
+     * Appends the new price of every delta that carries one.
+     */
+    public void recordDeltas(List<ListingDelta> deltas, long epochSecond) {
+        for (ListingDelta delta : deltas) {
+            if (delta.price() != null)
+                record(delta.productId(), epochSecond, delta.price());
+        }
+    }
+
+    /**
+     * Statistics over {@code [from, to]}, with {@code currentPrice} ranked against the
+     * window. Null if the listing has no points in it.
+     */
+    public PriceTrend trend(String listingId, long from, long to, double currentPrice) {
+        PriceSeries s = series.get(listingId);
+        if (s == null)
+            return null;
+        Window w = new Window(currentPrice);
+        s.scan(from, to, w);
+        if (w.points == 0)
+            return null;
+        double percentile = (w.below + w.equal / 2.0) * 100.0 / w.points;
+        return new PriceTrend(listingId, from, to, w.points, currentPrice,
+                w.min, w.minAt, w.max, w.maxAt, w.sum / w.points, percentile);
+    }
+
+    /**
+     * One pass over the window; nothing is buffered.
+     */
+    private static final class Window implements PriceSeries.PointConsumer {
+        private final double current;
+        private int points;
+        private int below;
+        private int equal;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private long minAt;
+        private long maxAt;
+
+        Window(double current) {
+            this.current = current;
+        }
+
+        @Override
+        public void accept(long epochSecond, double price) {
+            points++;
+            sum += price;
+            if (price < current)
+                below++;
+            else if (price == current)
+                equal++;
+            // Latest time wins ties, so "lowest on" names the most recent low
+            if (price <= min) {
+                min = price;
+                minAt = epochSecond;
+            }
+            if (price >= max) {
+                max = price;
+                maxAt = epochSecond;
+            }
+        }
+    }
+
+    private void seed(CatalogSnapshot snapshot, int days) {
+        if (days <= 0)
+            return;
+        long today = Instant.now().truncatedTo(ChronoUnit.DAYS).getEpochSecond();
+        double[] prices = new double[days + 1];
+        for (int ordinal = 0; ordinal < snapshot.size(); ordinal++) {
+            Product p = snapshot.get(ordinal);
+            // Walk back from today's price: mostly flat, with the odd price change or sale
+            Random random = new Random(p.getId().hashCode());
+            prices[days] = p.getPrice();
+            for (int d = days - 1; d >= 0; d--) {
+                double price = prices[d + 1];
+                double roll = random.nextDouble();
+                if (roll < 0.03)
+                    price = Math.round(price * (1.04 + random.nextDouble() * 0.04) / 500) * 500.0;
+                else if (roll < 0.08)
+                    price += (random.nextInt(9) - 4) * 500;
+                prices[d] = Math.max(Math.min(price, p.getMrp()), p.getPrice() * 0.85);
+            }
+            PriceSeries s = new PriceSeries();
+            for (int d = 0; d <= days; d++)
+                s.append(today - (days - d) * DAY_SECONDS, prices[d]);
+            series.put(p.getId(), s);
+        }
+        long bytes = series.values().stream().mapToLong(PriceSeries::compressedBytes).sum();
+        long points = series.values().stream().mapToLong(PriceSeries::size).sum();
+        log.info("📈 [HISTORY] Seeded {} days for {} listings — {} points in {} bytes ({} bits/point)",
+                days, series.size(), points, bytes, String.format("%.1f", bytes * 8.0 / Math.max(points, 1)));
+    }
+}
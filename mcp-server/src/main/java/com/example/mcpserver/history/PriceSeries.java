@@ -0,0 +1,268 @@
+package com.example.mcpserver.history;
+
+import java.util.Arrays;
+
+/**
+ * Append-only price history of one listing, compressed the way Gorilla compresses
+ * time series: timestamps as delta-of-deltas, prices as the XOR with the previous
+ * price. A daily series whose price changes now and then costs about 2 bits a point.
+ *
+ * Points are grouped into blocks of {@value #BLOCK_POINTS}, each starting with a raw
+ * timestamp and price, so a range scan decodes only the blocks that overlap it.
+ * Appends are synchronized; scans never lock and see a consistent prefix.
+ */
+public final class PriceSeries {
+
+    static final int BLOCK_POINTS = 512;
+    private static final int INITIAL_WORDS = 8;
+
+    @FunctionalInterface
+    public interface PointConsumer {
+        void accept(long epochSecond, double price);
+    }
+
+    /**
+     * Published view of a block: the first {@code bits} bits of {@code words}. The
+     * writer only sets bits past {@code bits}, so the view stays valid while it appends.
+     */
+    private record Block(long firstTime, long lastTime, int count, long[] words, long bits) {
+    }
+
+    private volatile Block[] blocks = new Block[0];
+
+    // Writer state of the open block, guarded by this
+    private long[] words;
+    private long bits;
+    private int count;
+    private long firstTime;
+    private long lastTime = Long.MIN_VALUE;
+    private long lastDelta;
+    private long lastValueBits;
+    private int lastLeading;
+    private int lastTrailing;
+
+    /**
+     * Appends a point at {@code epochSecond}, or at the last point's time if that is
+     * later, and returns the time used. The check and the append share one lock, so
+     * concurrent writers with racing clocks can't push the series out of order.
+     */
+    public synchronized long appendLatest(long epochSecond, double price) {
+        long at = Math.max(epochSecond, lastTime);
+        append(at, price);
+        return at;
+    }
+
+    /**
+     * Appends a point. Timestamps must not go backwards; equal timestamps are kept.
+     */
+    public synchronized void append(long epochSecond, double price) {
+        if (epochSecond < lastTime)
+            throw new IllegalArgumentException("Out-of-order point: " + epochSecond + " < " + lastTime);
+        if (count == BLOCK_POINTS)
+            seal();
+
+        long valueBits = Double.doubleToLongBits(price);
+        boolean newBlock = count == 0;
+        if (newBlock) {
+            words = new long[INITIAL_WORDS];
+            bits = 0;
+            writeBits(epochSecond, 64);
+            writeBits(valueBits, 64);
+            firstTime = epochSecond;
+            lastDelta = 0;
+            lastLeading = -1;
+        } else {
+            long delta = epochSecond - lastTime;
+            writeTimestamp(delta - lastDelta);
+            writeValue(valueBits ^ lastValueBits);
+            lastDelta = delta;
+        }
+        lastTime = epochSecond;
+        lastValueBits = valueBits;
+        count++;
+        publish(newBlock);
+    }
+
+    /**
+     * Feeds the points with {@code from <= time <= to} to {@code consumer}, oldest
+     * first, and returns how many there were.
+     */
+    public int scan(long from, long to, PointConsumer consumer) {
+        int visited = 0;
+        for (Block block : blocks) {
+            if (block.lastTime() < from)
+                continue;
+            if (block.firstTime() > to)
+                break;
+            visited += decode(block, from, to, consumer);
+        }
+        return visited;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Block block : blocks)
+            size += block.count();
+        return size;
+    }
+
+    /**
+     * Time of the newest point, or {@link Long#MIN_VALUE} when empty.
+     */
+    public synchronized long lastTime() {
+        return lastTime;
+    }
+
+    /**
+     * Encoded size in bytes, not counting spare capacity of the open block.
+     */
+    public long compressedBytes() {
+        long total = 0;
+        for (Block block : blocks)
+            total += (block.bits() + 7) >>> 3;
+        return total;
+    }
+
+    private void seal() {
+        // Trim the finished block to its encoded length
+        words = Arrays.copyOf(words, (int) ((bits + 63) >>> 6));
+        publish(false);
+        count = 0;
+    }
+
+    private void publish(boolean newBlock) {
+        Block[] current = blocks;
+        Block[] next = Arrays.copyOf(current, newBlock ? current.length + 1 : current.length);
+        next[next.length - 1] = new Block(firstTime, lastTime, count, words, bits);
+        blocks = next;
+    }
+
+    // ── Encoding ──
+
+    private void writeTimestamp(long dod) {
+        if (dod == 0) {
+            writeBits(0b0, 1);
+        } else if (dod >= -64 && dod <= 63) {
+            writeBits(0b10, 2);
+            writeBits(dod, 7);
+        } else if (dod >= -256 && dod <= 255) {
+            writeBits(0b110, 3);
+            writeBits(dod, 9);
+        } else if (dod >= -2048 && dod <= 2047) {
+            writeBits(0b1110, 4);
+            writeBits(dod, 12);
+        } else {
+            writeBits(0b1111, 4);
+            writeBits(dod, 64);
+        }
+    }
+
+    private void writeValue(long xor) {
+        if (xor == 0) {
+            writeBits(0b0, 1);
+            return;
+        }
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (lastLeading >= 0 && leading >= lastLeading && trailing >= lastTrailing) {
+            // Meaningful bits fit the previous window
+            writeBits(0b10, 2);
+            writeBits(xor >>> lastTrailing, 64 - lastLeading - lastTrailing);
+        } else {
+            int length = 64 - leading - trailing;
+            writeBits(0b11, 2);
+            writeBits(leading, 5);
+            writeBits(length - 1, 6);
+            writeBits(xor >>> trailing, length);
+            lastLeading = leading;
+            lastTrailing = trailing;
+        }
+    }
+
+    /**
+     * Writes the low {@code n} bits of {@code value}, most significant first.
+     */
+    private void writeBits(long value, int n) {
+        if (bits + n > (long) words.length << 6)
+            words = Arrays.copyOf(words, words.length * 2);
+        if (n < 64)
+            value &= (1L << n) - 1;
+        int index = (int) (bits >>> 6);
+        int free = 64 - (int) (bits & 63);
+        if (n <= free) {
+            words[index] |= value << (free - n);
+        } else {
+            words[index] |= value >>> (n - free);
+            words[index + 1] |= value << (64 - (n - free));
+        }
+        bits += n;
+    }
+
+    // ── Decoding ──
+
+    private static int decode(Block block, long from, long to, PointConsumer consumer) {
+        BitReader in = new BitReader(block.words());
+        long time = in.read(64);
+        long valueBits = in.read(64);
+        long delta = 0;
+        int leading = 0;
+        int trailing = 0;
+        int visited = 0;
+        for (int i = 0; i < block.count(); i++) {
+            if (i > 0) {
+                delta += readDeltaOfDelta(in);
+                time += delta;
+                if (in.read(1) == 1) {
+                    if (in.read(1) == 1) {
+                        leading = (int) in.read(5);
+                        trailing = 64 - leading - ((int) in.read(6) + 1);
+                    }
+                    valueBits ^= in.read(64 - leading - trailing) << trailing;
+                }
+            }
+            if (time > to)
+                break;
+            if (time >= from) {
+                consumer.accept(time, Double.longBitsToDouble(valueBits));
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    private static long readDeltaOfDelta(BitReader in) {
+        if (in.read(1) == 0)
+            return 0;
+        if (in.read(1) == 0)
+            return in.readSigned(7);
+        if (in.read(1) == 0)
+            return in.readSigned(9);
+        if (in.read(1) == 0)
+            return in.readSigned(12);
+        return in.read(64);
+    }
+
+    private static final class BitReader {
+        private final long[] words;
+        private long position;
+
+        BitReader(long[] words) {
+            this.words = words;
+        }
+
+        long read(int n) {
+            int index = (int) (position >>> 6);
+            int offset = (int) (position & 63);
+            int free = 64 - offset;
+            long value = (words[index] << offset) >>> (64 - n);
+            if (n > free)
+                value |= words[index + 1] >>> (64 - (n - free));
+            position += n;
+            return value;
+        }
+
+        long readSigned(int n) {
+            return (read(n) << (64 - n)) >> (64 - n);
+        }
+    }
+}
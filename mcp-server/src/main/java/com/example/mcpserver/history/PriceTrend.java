@@ -0,0 +1,27 @@
+package com.example.mcpserver.history;
+
+/**
+ * Price statistics of one listing over a time window. {@code percentile} places the
+ * current price within the window: 0 = cheapest it has been, 100 = dearest.
+ */
+public record PriceTrend(
+        String listingId,
+        long from,
+        long to,
+        int points,
+        double current,
+        double min,
+        long minAt,
+        double max,
+        long maxAt,
+        double average,
+        double percentile) {
+
+    public String verdict() {
+        if (percentile <= 25)
+            return "Good time to buy — near the low of this window";
+        if (percentile >= 75)
+            return "Pricier than usual — consider waiting for a sale";
+        return "Typical price for this window";
+    }
+}
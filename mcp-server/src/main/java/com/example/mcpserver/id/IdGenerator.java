@@ -0,0 +1,103 @@
+package com.example.mcpserver.id;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style IDs for orders, mandates and transactions: 41 bits of
+ * milliseconds since 2024-01-01, a 10-bit node id and a 12-bit per-millisecond
+ * sequence, written as 13 Crockford base-32 characters after the prefix
+ * ("ORD-0A8F25WWR0W00"). Fixed width and an alphabet in ASCII order make IDs
+ * sort by creation time as plain strings.
+ *
+ * The last timestamp and sequence share one {@link AtomicLong}, so issuing an ID
+ * is a single CAS. A node that runs out of sequence within a millisecond, or whose
+ * clock steps back, keeps counting from the last ID instead of repeating one.
+ */
+@Component
+public class IdGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(IdGenerator.class);
+    private static final long EPOCH_MS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int MAX_NODE = (1 << NODE_BITS) - 1;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int CHARS = 13;
+
+    private final long node;
+    // (milliseconds since EPOCH_MS << SEQUENCE_BITS) | sequence of the last ID
+    private final AtomicLong last = new AtomicLong();
+
+    public IdGenerator(@Value("${shopping.ids.node-id:0}") int node) {
+        if (node < 0 || node > MAX_NODE)
+            throw new IllegalArgumentException("Node id must be 0.." + MAX_NODE + ", was " + node);
+        this.node = node;
+        log.info("🆔 [IDS] Generator ready — node {}", node);
+    }
+
+    /**
+     * Next ID with the given prefix, e.g. {@code next("ORD-")}.
+     */
+    public String next(String prefix) {
+        return encode(prefix, nextLong());
+    }
+
+    /**
+     * Smallest ID any node could issue at {@code at}: every ID made at or after that
+     * instant sorts at or above it, every earlier one below — so a time range over
+     * IDs is a plain string range.
+     */
+    public static String lowerBound(String prefix, Instant at) {
+        long millis = Math.max(0, at.toEpochMilli() - EPOCH_MS);
+        return encode(prefix, millis << (NODE_BITS + SEQUENCE_BITS));
+    }
+
+    private static String encode(String prefix, long id) {
+        char[] out = new char[prefix.length() + CHARS];
+        prefix.getChars(0, prefix.length(), out, 0);
+        for (int i = out.length - 1; i >= prefix.length(); i--) {
+            out[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(out);
+    }
+
+    public long nextLong() {
+        long now = System.currentTimeMillis() - EPOCH_MS;
+        for (;;) {
+            long prev = last.get();
+            // A new millisecond restarts the sequence; otherwise count on, carrying
+            // into the timestamp when the sequence is exhausted
+            long next = now > prev >>> SEQUENCE_BITS ? now << SEQUENCE_BITS : prev + 1;
+            if (last.compareAndSet(prev, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return millis << (NODE_BITS + SEQUENCE_BITS) | node << SEQUENCE_BITS | sequence;
+            }
+        }
+    }
+
+    /**
+     * Creation time encoded in an ID made by {@link #next}.
+     */
+    public static Instant timestampOf(String id) {
+        long value = 0;
+        for (int i = id.length() - CHARS; i < id.length(); i++)
+            value = value << 5 | decode(id.charAt(i));
+        return Instant.ofEpochMilli((value >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MS);
+    }
+
+    private static int decode(char c) {
+        for (int i = 0; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == Character.toUpperCase(c))
+                return i;
+        }
+        throw new IllegalArgumentException("Not an ID character: " + c);
+    }
+}
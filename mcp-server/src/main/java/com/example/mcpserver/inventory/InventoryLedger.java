@@ -0,0 +1,249 @@
+package com.example.mcpserver.inventory;
+
+import com.example.mcpserver.catalog.CatalogSnapshot;
+import com.example.mcpserver.catalog.CatalogStore;
+import com.example.mcpserver.catalog.ListingDelta;
+import com.example.mcpserver.model.Product;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sellable units per listing, with time-limited holds for cart mandates.
+ *
+ * {@link #reserve} takes units off a listing's {@link StripedStock} for one hold;
+ * {@link #commit} turns the hold into a sale and {@link #release} returns its units.
+ * Each hold settles exactly once, so a payment racing the expiry sweep either sells
+ * the units or gets them back, never both. A hold may span several listings; it is
+ * taken all-or-nothing and settles as a whole.
+ *
+ * The catalog follows the ledger's availability: when a listing's available units
+ * run out, or come back, it gets a delta with the current count, so search,
+ * details and the in-stock facet stop offering what can't be bought. Changed
+ * listings are collected and flushed every {@code availability-flush-ms} as one
+ * batch, so a burst of sell-outs and releases publishes at most one catalog
+ * version per flush, and a hold taken and released in between publishes none.
+ */
+@Component
+public class InventoryLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryLedger.class);
+    private static final int HELD = 0;
+    private static final int COMMITTED = 1;
+    private static final int RELEASED = 2;
+
+    private final Map<String, StripedStock> stock = new ConcurrentHashMap<>();
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+    // Listings whose availability changed since the last flush
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+    private final CatalogStore catalogStore;
+    private final int stripes;
+    private final Duration holdFor;
+    private final ScheduledExecutorService sweeper;
+
+    public record Levels(String listingId, long available, long held, long sold) {
+    }
+
+    /**
+     * Units of one listing within a hold.
+     */
+    public record Units(String listingId, int quantity) {
+    }
+
+    private record Hold(List<Units> lines, Instant expiresAt, AtomicInteger state) {
+    }
+
+    public InventoryLedger(CatalogStore catalogStore,
+            @Value("${shopping.inventory.stripes:0}") int stripes,
+            @Value("${shopping.inventory.hold-minutes:10}") long holdMinutes,
+            @Value("${shopping.inventory.sweep-seconds:5}") long sweepSeconds,
+            @Value("${shopping.inventory.availability-flush-ms:1000}") long flushMillis) {
+        this.catalogStore = catalogStore;
+        int wanted = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+        this.stripes = Integer.highestOneBit(Math.max(1, Math.min(wanted, 64) * 2 - 1));
+        this.holdFor = Duration.ofMinutes(holdMinutes);
+
+        CatalogSnapshot snapshot = catalogStore.snapshot();
+        for (int ordinal = 0; ordinal < snapshot.size(); ordinal++) {
+            Product p = snapshot.get(ordinal);
+            stock.put(p.getId(), new StripedStock(this.stripes, p.isInStock() ? p.getStockCount() : 0));
+        }
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "inventory-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(this::releaseExpired, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+        sweeper.scheduleWithFixedDelay(this::flushAvailability, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        log.info("📦 [INVENTORY] Ledger ready — {} listings, {} stripes each, holds last {}m, availability every {}ms",
+                stock.size(), this.stripes, holdMinutes, flushMillis);
+    }
+
+    /**
+     * Holds every line under {@code holdId} until the hold expires, or none of them:
+     * if any listing is short, the lines already taken go back. Returns the expiry,
+     * or null if the units aren't available.
+     */
+    public Instant reserve(String holdId, List<Units> lines) {
+        if (lines.isEmpty())
+            return null;
+        for (int i = 0; i < lines.size(); i++) {
+            Units line = lines.get(i);
+            StripedStock units = stock.get(line.listingId());
+            if (units == null || line.quantity() <= 0 || !units.reserve(line.quantity())) {
+                for (int j = 0; j < i; j++)
+                    stock.get(lines.get(j).listingId()).release(lines.get(j).quantity());
+                return null;
+            }
+        }
+        Instant expiresAt = Instant.now().plus(holdFor);
+        holds.put(holdId, new Hold(List.copyOf(lines), expiresAt, new AtomicInteger(HELD)));
+        log.debug("📦 [INVENTORY] Held {} for {} until {}", lines, holdId, expiresAt);
+        for (Units line : lines)
+            changed.add(line.listingId());
+        return expiresAt;
+    }
+
+    /**
+     * Sells the units of a live hold. False if the hold is unknown, expired or
+     * already settled.
+     */
+    public boolean commit(String holdId) {
+        Hold hold = holds.get(holdId);
+        if (hold == null)
+            return false;
+        if (Instant.now().isAfter(hold.expiresAt())) {
+            release(holdId);
+            return false;
+        }
+        if (!hold.state().compareAndSet(HELD, COMMITTED))
+            return false;
+        holds.remove(holdId);
+        for (Units line : hold.lines())
+            stock.get(line.listingId()).commit(line.quantity());
+        log.debug("📦 [INVENTORY] Committed {} for {}", hold.lines(), holdId);
+        return true;
+    }
+
+    /**
+     * True while a hold is live: unsettled and not yet expired.
+     */
+    public boolean isHeld(String holdId) {
+        Hold hold = holds.get(holdId);
+        return hold != null && hold.state().get() == HELD && !Instant.now().isAfter(hold.expiresAt());
+    }
+
+    /**
+     * Returns a hold's units to stock. False if it was already settled.
+     */
+    public boolean release(String holdId) {
+        Hold hold = holds.get(holdId);
+        if (hold == null || !hold.state().compareAndSet(HELD, RELEASED))
+            return false;
+        holds.remove(holdId);
+        for (Units line : hold.lines())
+            stock.get(line.listingId()).release(line.quantity());
+        log.debug("📦 [INVENTORY] Released {} for {}", hold.lines(), holdId);
+        for (Units line : hold.lines())
+            changed.add(line.listingId());
+        return true;
+    }
+
+    /**
+     * Takes units sold before a restart off their listings. The ledger seeds from
+     * the catalog's stock counts, which don't know about those sales.
+     */
+    public void recordSold(List<Units> lines) {
+        for (Units line : lines) {
+            StripedStock units = stock.get(line.listingId());
+            if (units != null && line.quantity() > 0) {
+                units.sell(line.quantity());
+                changed.add(line.listingId());
+            }
+        }
+    }
+
+    /**
+     * Applies the stock counts carried by catalog deltas.
+     */
+    public void restock(List<ListingDelta> deltas) {
+        for (ListingDelta delta : deltas) {
+            if (delta.stockCount() != null) {
+                stock.computeIfAbsent(delta.productId(), id -> new StripedStock(stripes, 0))
+                        .restock(delta.stockCount());
+                // The feed's count ignores held units; the catalog shows what is left after them
+                changed.add(delta.productId());
+            }
+        }
+    }
+
+    public Levels levels(String listingId) {
+        StripedStock units = stock.get(listingId);
+        if (units == null)
+            return null;
+        return new Levels(listingId, units.available(), units.held(), units.sold());
+    }
+
+    /**
+     * Brings the catalog's in-stock flag in line with the available units of every
+     * listing changed since the last flush, in one batch of deltas. A listing is
+     * taken off the changed set before it is read, so a change racing the flush
+     * marks it again and the next flush publishes the state it left behind.
+     */
+    int flushAvailability() {
+        if (changed.isEmpty())
+            return 0;
+        List<ListingDelta> deltas = new ArrayList<>();
+        for (String listingId : changed) {
+            changed.remove(listingId);
+            StripedStock units = stock.get(listingId);
+            Product listing = catalogStore.getProductById(listingId).orElse(null);
+            if (units == null || listing == null)
+                continue;
+            long available = units.available();
+            if (listing.isInStock() == available > 0)
+                continue;
+            deltas.add(new ListingDelta(listingId, null, null, (int) Math.min(available, Integer.MAX_VALUE), null,
+                    null, null));
+            if (available > 0)
+                log.info("📦 [INVENTORY] {} back in stock — {} units", listingId, available);
+            else
+                log.info("📦 [INVENTORY] {} sold out — catalog updated", listingId);
+        }
+        if (!deltas.isEmpty())
+            catalogStore.applyDeltas(deltas);
+        return deltas.size();
+    }
+
+    int releaseExpired() {
+        Instant now = Instant.now();
+        int released = 0;
+        for (Map.Entry<String, Hold> e : holds.entrySet()) {
+            if (now.isAfter(e.getValue().expiresAt()) && release(e.getKey()))
+                released++;
+        }
+        if (released > 0)
+            log.info("📦 [INVENTORY] Released {} expired cart holds", released);
+        return released;
+    }
+
+    @PreDestroy
+    void close() {
+        sweeper.shutdownNow();
+    }
+}
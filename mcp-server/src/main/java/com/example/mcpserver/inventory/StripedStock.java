@@ -0,0 +1,174 @@
+package com.example.mcpserver.inventory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Available units of one listing, spread over padded stripes so concurrent buyers
+ * CAS different cache lines instead of contending on one counter.
+ *
+ * A reservation drains its home stripe first and then borrows from the others; if
+ * the stripes together can't cover it, the units it took go back. Every decrement
+ * is a CAS that never takes a stripe below zero, so units are never oversold.
+ * A restock that lowers the count, or a sale recorded without a hold, drains the
+ * stripes the same way; whatever they can't cover (units already held) becomes a
+ * debt that released units pay off before any stripe gets them back. A reservation
+ * pays off any debt from the stripes before it takes its own units, and backs out
+ * if debt is still owed once it has them, so owed units are never held.
+ */
+final class StripedStock {
+
+    // 8 longs = 64 bytes between stripes, one cache line each
+    private static final int PAD = 8;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+    private final AtomicLong onHand = new AtomicLong();
+    private final AtomicLong held = new AtomicLong();
+    private final AtomicLong sold = new AtomicLong();
+    private final AtomicLong debt = new AtomicLong();
+
+    StripedStock(int stripes, long units) {
+        this.cells = new AtomicLongArray(stripes * PAD);
+        this.mask = stripes - 1;
+        onHand.set(units);
+        for (int s = 0; s < stripes; s++)
+            cells.set(s * PAD, units / stripes + (s < units % stripes ? 1 : 0));
+    }
+
+    /**
+     * Takes {@code quantity} units, or none of them.
+     */
+    boolean reserve(int quantity) {
+        repay();
+        long taken = drain(quantity);
+        // A sale or lower restock that raced the drain may have left debt the stripes still cover
+        if (taken < quantity || !repay()) {
+            give(taken);
+            return false;
+        }
+        held.addAndGet(quantity);
+        return true;
+    }
+
+    void release(int quantity) {
+        held.addAndGet(-quantity);
+        give(quantity);
+    }
+
+    void commit(int quantity) {
+        held.addAndGet(-quantity);
+        sold.addAndGet(quantity);
+        onHand.addAndGet(-quantity);
+    }
+
+    /**
+     * Sells units that were never held here, e.g. orders placed before a restart.
+     */
+    void sell(int quantity) {
+        sold.addAndGet(quantity);
+        onHand.addAndGet(-quantity);
+        take(quantity);
+    }
+
+    /**
+     * Sets the feed's on-hand count; the difference to the last one is added to or
+     * taken from the available units. Held units stay held.
+     */
+    void restock(long units) {
+        long delta = units - onHand.getAndSet(units);
+        if (delta > 0)
+            give(delta);
+        else if (delta < 0)
+            take(-delta);
+    }
+
+    long available() {
+        long sum = 0;
+        for (int s = 0; s <= mask; s++)
+            sum += cells.get(s * PAD);
+        return Math.max(sum - debt.get(), 0);
+    }
+
+    long held() {
+        return held.get();
+    }
+
+    long sold() {
+        return sold.get();
+    }
+
+    /**
+     * Returns units to the available pool, paying off any debt first.
+     */
+    private void give(long units) {
+        while (units > 0) {
+            long owed = debt.get();
+            if (owed == 0)
+                break;
+            long pay = Math.min(owed, units);
+            if (debt.compareAndSet(owed, owed - pay))
+                units -= pay;
+        }
+        if (units > 0)
+            cells.getAndAdd(home() * PAD, units);
+    }
+
+    /**
+     * Removes units from the available pool, however many there are; the rest is owed.
+     */
+    private void take(long units) {
+        long owed = units - drain(units);
+        if (owed > 0)
+            debt.addAndGet(owed);
+    }
+
+    /**
+     * Pays off debt with units still in the stripes. True once nothing is owed.
+     */
+    private boolean repay() {
+        long owed = debt.get();
+        if (owed == 0)
+            return true;
+        long drained = drain(owed);
+        while (drained > 0) {
+            owed = debt.get();
+            long pay = Math.min(owed, drained);
+            if (debt.compareAndSet(owed, owed - pay)) {
+                // Debt a concurrent release paid off meanwhile: the surplus goes back
+                if (drained > pay)
+                    cells.getAndAdd(home() * PAD, drained - pay);
+                break;
+            }
+        }
+        return debt.get() == 0;
+    }
+
+    /**
+     * Takes up to {@code units} from the stripes, home stripe first, never taking a
+     * stripe below zero. Returns how many it got.
+     */
+    private long drain(long units) {
+        int home = home();
+        long taken = 0;
+        for (int i = 0; i <= mask && taken < units; i++) {
+            int cell = ((home + i) & mask) * PAD;
+            for (;;) {
+                long have = cells.get(cell);
+                if (have <= 0)
+                    break;
+                long take = Math.min(have, units - taken);
+                if (cells.compareAndSet(cell, have, have - take)) {
+                    taken += take;
+                    break;
+                }
+            }
+        }
+        return taken;
+    }
+
+    private int home() {
+        // Fibonacci hash of the thread id spreads neighbouring ids across stripes
+        return (int) ((Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+}
@@ -18,13 +18,6 @@ public class MockDataProvider {
 
         private static final Logger log = LoggerFactory.getLogger(MockDataProvider.class);
 
-        private final Map<String, List<Product>> amazonProducts = new HashMap<>();
-        private final Map<String, List<Product>> flipkartProducts = new HashMap<>();
-        private final Map<String, List<Product>> samsungStoreProducts = new HashMap<>();
-        private final Map<String, List<Product>> cromaProducts = new HashMap<>();
-        private final Map<String, Product> allProductsById = new HashMap<>();
-        private final Map<String, Order> orders = new HashMap<>();
-
         // ── Shared specs (same phone, same hardware) ──
         private static final String S24U_PROC = "Snapdragon 8 Gen 3 for Galaxy";
         private static final String S24U_DISP = "6.8\" QHD+ Dynamic AMOLED 2X, 120Hz, 2600 nits peak";
@@ -50,26 +43,10 @@ public class MockDataProvider {
         private static final String S23FE_BAT = "4500mAh, 25W Wired + 15W Wireless";
         private static final String S23FE_OS = "Android 14, One UI 6.1 (4 years of updates)";
 
-        public MockDataProvider() {
-                log.info("📦 [DATA] Initializing MockDataProvider...");
-                initializeAmazonData();
-                log.info("   ✅ Amazon India — {} products loaded",
-                                amazonProducts.getOrDefault("samsung", List.of()).size());
-                initializeFlipkartData();
-                log.info("   ✅ Flipkart — {} products loaded",
-                                flipkartProducts.getOrDefault("samsung", List.of()).size());
-                initializeSamsungStoreData();
-                log.info("   ✅ Samsung.com India — {} products loaded",
-                                samsungStoreProducts.getOrDefault("samsung", List.of()).size());
-                initializeCromaData();
-                log.info("   ✅ Croma — {} products loaded", cromaProducts.getOrDefault("samsung", List.of()).size());
-                log.info("📦 [DATA] Total: {} unique products indexed across 4 platforms", allProductsById.size());
-        }
-
         // ═══════════════════════════════════════════════════════
         // AMAZON INDIA — Prime delivery, HDFC/SBI/ICICI offers
         // ═══════════════════════════════════════════════════════
-        private void initializeAmazonData() {
+        private void initializeAmazonData(Map<String, List<Product>> listingsByPlatform) {
                 List<Product> phones = List.of(
                                 Product.builder().id("AMZ-S24U-256").name("Samsung Galaxy S24 Ultra")
                                                 .platform("Amazon India").category("smartphones")
@@ -189,13 +166,13 @@ public class MockDataProvider {
                                                 .deliverySpeed("2-3 days").deliveryDate(dd(2) + " by 9 PM")
                                                 .deliveryCharge(0)
                                                 .codAvailable(true).deliveryPartner("Amazon Logistics").build());
-                indexProducts(amazonProducts, phones);
+                register(listingsByPlatform, phones);
         }
 
         // ═══════════════════════════════════════════════════════
         // FLIPKART — SuperCoins, Axis Bank, Ekart logistics
         // ═══════════════════════════════════════════════════════
-        private void initializeFlipkartData() {
+        private void initializeFlipkartData(Map<String, List<Product>> listingsByPlatform) {
                 List<Product> phones = List.of(
                                 Product.builder().id("FK-S24U-256").name("Samsung Galaxy S24 Ultra")
                                                 .platform("Flipkart").category("smartphones")
@@ -319,13 +296,13 @@ public class MockDataProvider {
                                                 .deliverySpeed("1-2 days").deliveryDate(dd(2) + " by 9 PM")
                                                 .deliveryCharge(0)
                                                 .codAvailable(true).deliveryPartner("Ekart Logistics").build());
-                indexProducts(flipkartProducts, phones);
+                register(listingsByPlatform, phones);
         }
 
         // ═══════════════════════════════════════════════════════
         // SAMSUNG.COM INDIA — Exclusive colors, freebies, Samsung Care+
         // ═══════════════════════════════════════════════════════
-        private void initializeSamsungStoreData() {
+        private void initializeSamsungStoreData(Map<String, List<Product>> listingsByPlatform) {
                 List<Product> phones = List.of(
                                 Product.builder().id("SS-S24U-256").name("Samsung Galaxy S24 Ultra")
                                                 .platform("Samsung.com India").category("smartphones")
@@ -452,13 +429,13 @@ public class MockDataProvider {
                                                 .deliverySpeed("3-4 days").deliveryDate(dd(4) + " by 9 PM")
                                                 .deliveryCharge(0)
                                                 .codAvailable(false).deliveryPartner("BlueDart").build());
-                indexProducts(samsungStoreProducts, phones);
+                register(listingsByPlatform, phones);
         }
 
         // ═══════════════════════════════════════════════════════
         // CROMA — HDFC + Croma Rewards, Bajaj Finserv, in-store
         // ═══════════════════════════════════════════════════════
-        private void initializeCromaData() {
+        private void initializeCromaData(Map<String, List<Product>> listingsByPlatform) {
                 List<Product> phones = List.of(
                                 Product.builder().id("CR-S24U-256").name("Samsung Galaxy S24 Ultra").platform("Croma")
                                                 .category("smartphones")
@@ -592,129 +569,41 @@ public class MockDataProvider {
                                                 .deliveryCharge(0)
                                                 .codAvailable(false).deliveryPartner("Croma Delivery / BlueDart")
                                                 .build());
-                indexProducts(cromaProducts, phones);
+                register(listingsByPlatform, phones);
         }
 
         // ═══════════════════════════════════════════════════════
-        // Index & Search Helpers
+        // Seed Helpers
         // ═══════════════════════════════════════════════════════
-        private void indexProducts(Map<String, List<Product>> platform, List<Product> phones) {
-                platform.put("samsung", phones);
-                platform.put("galaxy", phones);
-                platform.put("phone", phones);
-                platform.put("s24", phones.subList(0, 5));
-                platform.put("s24 ultra", phones.subList(0, 2));
-                platform.put("s24+", List.of(phones.get(2)));
-                platform.put("s24 plus", List.of(phones.get(2)));
-                platform.put("s23", phones.subList(5, 7));
-                platform.put("s23 fe", phones.subList(5, 7));
-                phones.forEach(p -> allProductsById.put(p.getId(), p));
-        }
-
-        public List<Product> searchAmazon(String q) {
-                return searchProducts(amazonProducts, q);
-        }
-
-        public List<Product> searchFlipkart(String q) {
-                return searchProducts(flipkartProducts, q);
-        }
-
-        public List<Product> searchSamsungStore(String q) {
-                return searchProducts(samsungStoreProducts, q);
-        }
-
-        public List<Product> searchCroma(String q) {
-                return searchProducts(cromaProducts, q);
+        private void register(Map<String, List<Product>> listingsByPlatform, List<Product> phones) {
+                listingsByPlatform.put(phones.get(0).getPlatform(), phones);
         }
 
-        public Map<String, List<Product>> searchAllPlatforms(String query) {
-                Map<String, List<Product>> r = new LinkedHashMap<>();
-                var a = searchAmazon(query);
-                var f = searchFlipkart(query);
-                var s = searchSamsungStore(query);
-                var c = searchCroma(query);
-                if (!a.isEmpty())
-                        r.put("Amazon India", a);
-                if (!f.isEmpty())
-                        r.put("Flipkart", f);
-                if (!s.isEmpty())
-                        r.put("Samsung.com India", s);
-                if (!c.isEmpty())
-                        r.put("Croma", c);
-                return r;
-        }
-
-        private List<Product> searchProducts(Map<String, List<Product>> map, String query) {
-                String q = query.toLowerCase().trim();
-                if (map.containsKey(q))
-                        return map.get(q);
-                Set<Product> matched = new LinkedHashSet<>();
-                for (var e : map.entrySet()) {
-                        if (e.getKey().contains(q) || q.contains(e.getKey()))
-                                matched.addAll(e.getValue());
-                }
-                if (matched.isEmpty()) {
-                        for (var products : map.values()) {
-                                for (var p : products) {
-                                        if (p.getName().toLowerCase().contains(q)
-                                                        || p.getProcessor().toLowerCase().contains(q))
-                                                matched.add(p);
-                                }
-                        }
-                }
-                return new ArrayList<>(matched);
-        }
-
-        // ── Product & Order ──
-        public Optional<Product> getProductById(String id) {
-                return Optional.ofNullable(allProductsById.get(id));
-        }
-
-        public Order placeOrder(String productId, int quantity, String customerName, String address) {
-                Product p = allProductsById.get(productId);
-                if (p == null || !p.isInStock())
-                        return null;
-                String orderId = "ORD-" + System.currentTimeMillis();
-                Order order = new Order(orderId, productId,
-                                p.getName() + " (" + p.getColor() + ", " + p.getStorage() + ", " + p.getRam() + " RAM)",
-                                p.getPlatform(), quantity, p.getPrice(), p.getPrice() * quantity,
-                                customerName, address, p.getDeliveryDate(), p.getDeliveryPartner(), "CONFIRMED",
-                                LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd MMM yyyy, hh:mm a")));
-                orders.put(orderId, order);
-                return order;
-        }
-
-        public Optional<Order> getOrderById(String orderId) {
-                return Optional.ofNullable(orders.get(orderId));
+        /**
+         * Seed listings per platform, in catalog order — loaded into the active CatalogStore.
+         * Built afresh on every call and not kept here, so a store that encodes them
+         * off-heap leaves no copy of the seed on the heap.
+         */
+        public Map<String, List<Product>> getListingsByPlatform() {
+                log.info("📦 [DATA] Building seed listings...");
+                Map<String, List<Product>> listingsByPlatform = new LinkedHashMap<>();
+                initializeAmazonData(listingsByPlatform);
+                log.info("   ✅ Amazon India — {} products loaded",
+                                listingsByPlatform.get("Amazon India").size());
+                initializeFlipkartData(listingsByPlatform);
+                log.info("   ✅ Flipkart — {} products loaded",
+                                listingsByPlatform.get("Flipkart").size());
+                initializeSamsungStoreData(listingsByPlatform);
+                log.info("   ✅ Samsung.com India — {} products loaded",
+                                listingsByPlatform.get("Samsung.com India").size());
+                initializeCromaData(listingsByPlatform);
+                log.info("   ✅ Croma — {} products loaded", listingsByPlatform.get("Croma").size());
+                log.info("📦 [DATA] Total: {} products seeded across 4 platforms",
+                                listingsByPlatform.values().stream().mapToInt(List::size).sum());
+                return Collections.unmodifiableMap(listingsByPlatform);
         }
 
         private String dd(int d) {
                 return LocalDateTime.now().plusDays(d).format(DateTimeFormatter.ofPattern("dd MMM"));
         }
-
-        public record Order(String orderId, String productId, String productName, String platform,
-                        int quantity, double unitPrice, double totalAmount,
-                        String customerName, String deliveryAddress,
-                        String expectedDelivery, String deliveryPartner, String status, String orderTime) {
-                public String toSummary() {
-                        return String.format("""
-                                        ✅ ORDER CONFIRMED
-                                        ┌──────────────────────────────────────
-                                        │ 🆔 Order ID: %s
-                                        │ 📱 %s
-                                        │ 🏪 Platform: %s
-                                        │ 📦 Qty: %d × ₹%,.0f = ₹%,.0f
-                                        │ 👤 Customer: %s
-                                        │ 📍 Address: %s
-                                        │ 📅 Expected: %s
-                                        │ 🚚 Via: %s
-                                        │ ⏰ Ordered: %s
-                                        │ 📋 Status: %s
-                                        └──────────────────────────────────────
-                                        """, orderId, productName, platform,
-                                        quantity, unitPrice, totalAmount,
-                                        customerName, deliveryAddress,
-                                        expectedDelivery, deliveryPartner, orderTime, status);
-                }
-        }
 }
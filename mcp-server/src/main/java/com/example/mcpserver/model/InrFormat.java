@@ -0,0 +1,55 @@
+package com.example.mcpserver.model;
+
+/**
+ * Rupee amounts rounded to whole rupees, grouped the Indian way:
+ * 1,29,999 and 1,00,00,000 rather than 129,999 and 10,000,000.
+ *
+ * Digits are written straight into a small char buffer, so formatting costs one
+ * append instead of a {@link java.util.Formatter} parse per call.
+ */
+public final class InrFormat {
+
+    private static final char RUPEE = '₹';
+    // Whole rupees up to this fit a long with room to round
+    private static final double MAX_EXACT = 1e18;
+    // 19 digits, 9 separators
+    private static final int MAX_DIGITS_AND_SEPARATORS = 28;
+
+    private InrFormat() {
+    }
+
+    public static String format(double amount) {
+        return append(new StringBuilder(16), amount).toString();
+    }
+
+    /**
+     * Appends "₹" and the grouped amount, e.g. "₹1,29,999"; negative amounts as "₹-1,000".
+     */
+    public static StringBuilder append(StringBuilder sb, double amount) {
+        sb.append(RUPEE);
+        if (!(Math.abs(amount) < MAX_EXACT))
+            return sb.append(String.format("%.0f", amount)); // NaN, infinities, absurd totals
+        long rupees = Math.round(Math.abs(amount));
+        if (amount < 0 && rupees != 0)
+            sb.append('-');
+        return appendGrouped(sb, rupees);
+    }
+
+    /**
+     * Appends a non-negative whole number with lakh/crore grouping and no currency sign.
+     */
+    public static StringBuilder appendGrouped(StringBuilder sb, long value) {
+        char[] buf = new char[MAX_DIGITS_AND_SEPARATORS];
+        int pos = buf.length;
+        int digits = 0;
+        do {
+            // Last three digits form the first group, then pairs: 12,34,56,789
+            if (digits == 3 || (digits > 3 && (digits & 1) == 1))
+                buf[--pos] = ',';
+            buf[--pos] = (char) ('0' + value % 10);
+            value /= 10;
+            digits++;
+        } while (value != 0);
+        return sb.append(buf, pos, buf.length - pos);
+    }
+}
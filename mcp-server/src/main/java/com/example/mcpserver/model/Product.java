@@ -1,16 +1,22 @@
 package com.example.mcpserver.model;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Samsung Galaxy phone listing from an e-commerce platform.
  * Contains specs, pricing, offers, and delivery details for purchase decisions.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Product {
@@ -63,28 +69,56 @@ public class Product {
     private boolean codAvailable; // Cash on delivery
     private String deliveryPartner; // "Amazon Logistics", "Ekart", "BlueDart"
 
+    // Derived once per listing version; every catalog delta builds a new Product
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final transient AtomicReference<PriceLabels> priceLabels = new AtomicReference<>();
+
+    private record PriceLabels(double price, double mrp, String formattedPrice, String formattedMrp,
+            int discountPercent) {
+
+        static PriceLabels of(double price, double mrp) {
+            int discount = mrp <= 0 ? 0 : (int) Math.round(((mrp - price) / mrp) * 100);
+            return new PriceLabels(price, mrp, InrFormat.format(price), InrFormat.format(mrp), discount);
+        }
+    }
+
+    private PriceLabels priceLabels() {
+        PriceLabels labels = priceLabels.get();
+        // Setters can still change the price in place
+        if (labels == null || labels.price() != price || labels.mrp() != mrp) {
+            labels = PriceLabels.of(price, mrp);
+            priceLabels.set(labels);
+        }
+        return labels;
+    }
+
     public String getFormattedPrice() {
-        return String.format("₹%,.0f", price);
+        return priceLabels().formattedPrice();
     }
 
     public String getFormattedMrp() {
-        return String.format("₹%,.0f", mrp);
+        return priceLabels().formattedMrp();
     }
 
     public int getDiscountPercent() {
-        if (mrp <= 0)
-            return 0;
-        return (int) Math.round(((mrp - price) / mrp) * 100);
+        return priceLabels().discountPercent();
     }
 
     public String toSummary() {
-        return String.format("%s (%s, %s, %s) — %s (%d%% off) on %s | ⭐%.1f | 🚚%s | %s",
-                name, color, storage, ram, getFormattedPrice(), getDiscountPercent(),
-                platform, rating, deliverySpeed, inStock ? "In Stock" : "Out of Stock");
+        return new StringBuilder(160)
+                .append(name).append(" (").append(color).append(", ").append(storage).append(", ").append(ram)
+                .append(") — ").append(getFormattedPrice()).append(" (").append(getDiscountPercent())
+                .append("% off) on ").append(platform)
+                .append(" | ⭐").append(Math.round(rating * 10) / 10.0)
+                .append(" | 🚚").append(deliverySpeed)
+                .append(" | ").append(inStock ? "In Stock" : "Out of Stock")
+                .toString();
     }
 
     public String toDetailedCard() {
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(1536);
         sb.append("┌───────────────────────────────────────────────────────────\n");
         sb.append("│ 🏷️ ID: ").append(id).append("\n");
         sb.append("│ 📱 ").append(name).append(" (").append(color).append(", ").append(storage).append(")\n");
@@ -118,7 +152,7 @@ public class Product {
         sb.append("│ 🚚 DELIVERY:\n");
         sb.append("│    Speed: ").append(deliverySpeed).append("\n");
         sb.append("│    Expected: ").append(deliveryDate).append("\n");
-        sb.append("│    Charge: ").append(deliveryCharge == 0 ? "FREE" : String.format("₹%.0f", deliveryCharge))
+        sb.append("│    Charge: ").append(deliveryCharge == 0 ? "FREE" : InrFormat.format(deliveryCharge))
                 .append("\n");
         sb.append("│    COD: ").append(codAvailable ? "Available" : "Not Available").append("\n");
         sb.append("│    Partner: ").append(deliveryPartner).append("\n");
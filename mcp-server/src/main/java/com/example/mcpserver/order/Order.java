@@ -0,0 +1,43 @@
+package com.example.mcpserver.order;
+
+import com.example.mcpserver.model.InrFormat;
+
+/**
+ * One product line of a completed purchase, as shown by checkOrderStatus and listOrders.
+ */
+public record Order(String orderId, String productId, String productName, String platform,
+        int quantity, double unitPrice, double totalAmount,
+        String customerName, String deliveryAddress,
+        String expectedDelivery, String deliveryPartner, String status, String orderTime) {
+
+    public String toSummary() {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("✅ ORDER CONFIRMED\n");
+        sb.append("┌──────────────────────────────────────\n");
+        sb.append("│ 🆔 Order ID: ").append(orderId).append('\n');
+        sb.append("│ 📱 ").append(productName).append('\n');
+        sb.append("│ 🏪 Platform: ").append(platform).append('\n');
+        sb.append("│ 📦 Qty: ").append(quantity).append(" × ");
+        InrFormat.append(sb, unitPrice).append(" = ");
+        InrFormat.append(sb, totalAmount).append('\n');
+        sb.append("│ 👤 Customer: ").append(customerName).append('\n');
+        sb.append("│ 📍 Address: ").append(deliveryAddress).append('\n');
+        sb.append("│ 📅 Expected: ").append(expectedDelivery).append('\n');
+        sb.append("│ 🚚 Via: ").append(deliveryPartner).append('\n');
+        sb.append("│ ⏰ Ordered: ").append(orderTime).append('\n');
+        sb.append("│ 📋 Status: ").append(status).append('\n');
+        sb.append("└──────────────────────────────────────\n");
+        return sb.toString();
+    }
+
+    /**
+     * One line for order listings: ID, date, product, quantity, total, platform and status.
+     */
+    public String toRow() {
+        StringBuilder sb = new StringBuilder(160);
+        sb.append("• ").append(orderId).append(" | ").append(orderTime).append(" | ").append(productName)
+                .append(" × ").append(quantity).append(" | ");
+        InrFormat.append(sb, totalAmount).append(" | ").append(platform).append(" | ").append(status);
+        return sb.toString();
+    }
+}
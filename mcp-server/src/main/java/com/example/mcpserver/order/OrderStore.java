@@ -0,0 +1,243 @@
+package com.example.mcpserver.order;
+
+import com.example.mcpserver.ap2.CartMandate;
+import com.example.mcpserver.id.IdGenerator;
+import com.example.mcpserver.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Orders placed by settled AP2 payments, with secondary indexes for listing them.
+ *
+ * Orders are keyed by ID in a skip list; IDs are time-ordered, so the key order
+ * is placement order and a time range is an ID range
+ * ({@link IdGenerator#lowerBound}). Customer name, platform and product each map
+ * to a sorted set of order IDs. A query walks the smallest set its filters select,
+ * newest first, inside the time range, and checks the remaining filters on each
+ * order — "show my orders" touches that customer's orders, never the whole store.
+ *
+ * The cursor is the ID of the last order on the previous page. New orders sort
+ * above every existing one, so they never shift later pages.
+ */
+@Component
+public class OrderStore {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStore.class);
+    private static final String PREFIX = "ORD-";
+    private static final DateTimeFormatter ORDER_TIME = DateTimeFormatter.ofPattern("dd MMM yyyy, hh:mm a");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Posting NO_ORDERS = new Posting();
+    private static final String UNSCHEDULED = "To be confirmed";
+
+    private final ConcurrentSkipListMap<String, Order> byId = new ConcurrentSkipListMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Map<String, Posting> byCustomer = new ConcurrentHashMap<>();
+    private final Map<String, Posting> byPlatform = new ConcurrentHashMap<>();
+    private final Map<String, Posting> byProduct = new ConcurrentHashMap<>();
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder scanned = new LongAdder();
+    private final IdGenerator idGenerator;
+
+    public OrderStore(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+
+    /**
+     * Filters for {@link #page}; null fields match everything. Names and platforms
+     * match ignoring case and extra spaces, and a platform may be given by its first
+     * word ("Amazon"); {@code from} is inclusive, {@code to} exclusive.
+     */
+    public record Query(String customerName, String platform, String productId, Instant from, Instant to) {
+
+        public Query {
+            customerName = textKey(customerName);
+            platform = textKey(platform);
+            productId = productKey(productId);
+        }
+
+        boolean matches(Order order) {
+            return (customerName == null || customerName.equals(textKey(order.customerName())))
+                    && (platform == null || platform.equals(textKey(order.platform())))
+                    && (productId == null || productId.equals(productKey(order.productId())));
+        }
+    }
+
+    /**
+     * One page of orders, newest first; {@code nextCursor} is null on the last page.
+     */
+    public record Page(List<Order> orders, String nextCursor, int scanned) {
+    }
+
+    public record Stats(int orders, int customers, int platforms, int products, long queries,
+            double avgScannedPerQuery) {
+    }
+
+    // Order IDs under one index key, with a size counter: ConcurrentSkipListSet.size() walks the set
+    private static final class Posting {
+        final ConcurrentSkipListSet<String> ids = new ConcurrentSkipListSet<>();
+        final AtomicInteger size = new AtomicInteger();
+
+        void add(String orderId) {
+            if (ids.add(orderId))
+                size.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records the order for one paid cart line. Name, platform, price and quantity
+     * come from the line, as charged; the live listing only adds its delivery
+     * estimate, and may be null if it has been delisted since.
+     */
+    public Order place(CartMandate.LineItem item, Product listing, String customerName, String address) {
+        Order order = new Order(idGenerator.next(PREFIX), item.productId(), item.productName(),
+                item.platform(), item.quantity(), item.unitPrice(), item.lineTotal(), customerName, address,
+                listing != null ? listing.getDeliveryDate() : UNSCHEDULED,
+                listing != null ? listing.getDeliveryPartner() : UNSCHEDULED, "CONFIRMED",
+                LocalDateTime.now().format(ORDER_TIME));
+        add(order);
+        return order;
+    }
+
+    /**
+     * Puts back an order recovered from the write-ahead log. False if it was
+     * already there, e.g. in both a checkpoint and the segment after it.
+     */
+    public boolean restore(Order order) {
+        return add(order);
+    }
+
+    public Optional<Order> get(String orderId) {
+        return orderId == null ? Optional.empty() : Optional.ofNullable(byId.get(orderId));
+    }
+
+    /**
+     * Every order, oldest first.
+     */
+    public void forEach(Consumer<Order> action) {
+        byId.values().forEach(action);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Up to {@code limit} orders matching {@code query}, newest first, strictly older
+     * than {@code cursor} (null for the first page).
+     */
+    public Page page(Query query, String cursor, int limit) {
+        query = new Query(query.customerName(), platformKey(query.platform()), query.productId(), query.from(),
+                query.to());
+        NavigableSet<String> ids = candidates(query);
+        String upper = query.to() == null ? null : IdGenerator.lowerBound(PREFIX, query.to());
+        if (cursor != null && (upper == null || cursor.compareTo(upper) < 0))
+            upper = cursor;
+        if (query.from() != null)
+            ids = ids.tailSet(IdGenerator.lowerBound(PREFIX, query.from()), true);
+        if (upper != null)
+            ids = ids.headSet(upper, false);
+
+        List<Order> page = new ArrayList<>(Math.min(limit, 64));
+        String next = null;
+        int seen = 0;
+        for (Iterator<String> it = ids.descendingIterator(); it.hasNext();) {
+            Order order = byId.get(it.next());
+            seen++;
+            if (order == null || !query.matches(order))
+                continue;
+            if (page.size() == limit) {
+                next = page.get(page.size() - 1).orderId();
+                break;
+            }
+            page.add(order);
+        }
+        queries.increment();
+        scanned.add(seen);
+        return new Page(page, next, seen);
+    }
+
+    public Stats stats() {
+        long q = queries.sum();
+        return new Stats(size.get(), byCustomer.size(), byPlatform.size(), byProduct.size(), q,
+                q == 0 ? 0 : (double) scanned.sum() / q);
+    }
+
+    private boolean add(Order order) {
+        // Primary first: an index hit always finds its order
+        if (byId.put(order.orderId(), order) != null)
+            return false;
+        size.incrementAndGet();
+        index(byCustomer, textKey(order.customerName()), order.orderId());
+        index(byPlatform, textKey(order.platform()), order.orderId());
+        index(byProduct, productKey(order.productId()), order.orderId());
+        log.debug("🧾 [ORDERS] {} indexed for '{}' ({} orders)", order.orderId(), order.customerName(), size.get());
+        return true;
+    }
+
+    private static void index(Map<String, Posting> index, String key, String orderId) {
+        if (key != null)
+            index.computeIfAbsent(key, k -> new Posting()).add(orderId);
+    }
+
+    /**
+     * The smallest ID set the query's indexed filters select; every ID when it has none.
+     */
+    private NavigableSet<String> candidates(Query query) {
+        Posting best = null;
+        for (Posting posting : new Posting[] {
+                posting(byCustomer, query.customerName()),
+                posting(byPlatform, query.platform()),
+                posting(byProduct, query.productId()) }) {
+            if (posting != null && (best == null || posting.size.get() < best.size.get()))
+                best = posting;
+        }
+        return best == null ? byId.navigableKeySet() : best.ids;
+    }
+
+    // "amazon" for "amazon india": there are a handful of platforms, so a prefix scan of the keys is cheap
+    private String platformKey(String platform) {
+        if (platform == null || byPlatform.containsKey(platform))
+            return platform;
+        for (String key : byPlatform.keySet()) {
+            if (key.startsWith(platform))
+                return key;
+        }
+        return platform;
+    }
+
+    // Null when the filter is unset; an empty posting when nothing matches it
+    private static Posting posting(Map<String, Posting> index, String key) {
+        return key == null ? null : index.getOrDefault(key, NO_ORDERS);
+    }
+
+    // Case- and spacing-insensitive key for names and platforms
+    private static String textKey(String value) {
+        if (value == null || value.isBlank())
+            return null;
+        return SPACES.matcher(value.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String productKey(String value) {
+        return value == null || value.isBlank() ? null : value.trim().toUpperCase(Locale.ROOT);
+    }
+}
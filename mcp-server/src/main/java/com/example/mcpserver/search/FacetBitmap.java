@@ -0,0 +1,123 @@
+package com.example.mcpserver.search;
+
+import java.util.Arrays;
+
+/**
+ * Immutable bitmap of listing ordinals for facet filtering.
+ * Only the span between the first and last non-zero 64-bit word is stored, so a
+ * facet value confined to a few platforms or models costs a handful of words,
+ * and AND only visits the words both operands share.
+ */
+public final class FacetBitmap {
+
+    public static final FacetBitmap EMPTY = new FacetBitmap(0, new long[0]);
+
+    private final int firstWord;
+    private final long[] words;
+
+    private FacetBitmap(int firstWord, long[] words) {
+        this.firstWord = firstWord;
+        this.words = words;
+    }
+
+    /**
+     * Ordinals {@code 0..size-1}.
+     */
+    public static FacetBitmap all(int size) {
+        long[] words = new long[(size + 63) >>> 6];
+        Arrays.fill(words, -1L);
+        if ((size & 63) != 0)
+            words[words.length - 1] = (1L << size) - 1;
+        return trim(0, words);
+    }
+
+    public static FacetBitmap of(int[] ordinals) {
+        if (ordinals.length == 0)
+            return EMPTY;
+        int max = 0;
+        for (int ordinal : ordinals)
+            max = Math.max(max, ordinal);
+        long[] words = new long[(max >>> 6) + 1];
+        for (int ordinal : ordinals)
+            words[ordinal >>> 6] |= 1L << ordinal;
+        return trim(0, words);
+    }
+
+    public FacetBitmap and(FacetBitmap other) {
+        int from = Math.max(firstWord, other.firstWord);
+        int to = Math.min(endWord(), other.endWord());
+        if (from >= to)
+            return EMPTY;
+        long[] out = new long[to - from];
+        for (int w = from; w < to; w++)
+            out[w - from] = word(w) & other.word(w);
+        return trim(from, out);
+    }
+
+    public FacetBitmap or(FacetBitmap other) {
+        if (words.length == 0)
+            return other;
+        if (other.words.length == 0)
+            return this;
+        int from = Math.min(firstWord, other.firstWord);
+        int to = Math.max(endWord(), other.endWord());
+        long[] out = new long[to - from];
+        for (int w = from; w < to; w++)
+            out[w - from] = word(w) | other.word(w);
+        return new FacetBitmap(from, out);
+    }
+
+    public boolean contains(int ordinal) {
+        return (word(ordinal >>> 6) & (1L << ordinal)) != 0;
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long word : words)
+            count += Long.bitCount(word);
+        return count;
+    }
+
+    /**
+     * Set ordinals in ascending order.
+     */
+    public int[] ordinals() {
+        int[] out = new int[cardinality()];
+        int n = 0;
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                out[n++] = ((firstWord + i) << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return out;
+    }
+
+    private int endWord() {
+        return firstWord + words.length;
+    }
+
+    private long word(int w) {
+        int i = w - firstWord;
+        return i >= 0 && i < words.length ? words[i] : 0;
+    }
+
+    private static FacetBitmap trim(int firstWord, long[] words) {
+        int from = 0;
+        int to = words.length;
+        while (from < to && words[from] == 0)
+            from++;
+        while (to > from && words[to - 1] == 0)
+            to--;
+        if (from == to)
+            return EMPTY;
+        if (from == 0 && to == words.length)
+            return new FacetBitmap(firstWord, words);
+        return new FacetBitmap(firstWord + from, Arrays.copyOfRange(words, from, to));
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.mcpserver.search;
+
+import com.example.mcpserver.model.Product;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bitmap indexes over listing attributes for faceted filtering.
+ * Every facet value (storage, RAM, platform, COD, in stock, delivery days, price
+ * and rating bucket) maps to a {@link FacetBitmap} of ordinals; a filter ORs the
+ * values it accepts within a facet and ANDs the facets together.
+ */
+public final class FacetIndex {
+
+    private static final double PRICE_BUCKET = 10_000;
+    private static final double RATING_BUCKET = 0.5;
+
+    private final int size;
+    private final Map<String, FacetBitmap> storage;
+    private final Map<String, FacetBitmap> ram;
+    private final Map<String, FacetBitmap> platform;
+    private final FacetBitmap cod;
+    private final FacetBitmap inStock;
+    private final TreeMap<Integer, FacetBitmap> deliveryDays;
+    private final FacetBitmap[] priceBuckets;
+    private final FacetBitmap[] ratingBuckets;
+    // Exact values for the partly covered buckets at a range's ends
+    private final double[] price;
+    private final double[] rating;
+
+    private FacetIndex(int size, Map<String, FacetBitmap> storage, Map<String, FacetBitmap> ram,
+            Map<String, FacetBitmap> platform, FacetBitmap cod, FacetBitmap inStock,
+            TreeMap<Integer, FacetBitmap> deliveryDays, FacetBitmap[] priceBuckets, FacetBitmap[] ratingBuckets,
+            double[] price, double[] rating) {
+        this.size = size;
+        this.storage = storage;
+        this.ram = ram;
+        this.platform = platform;
+        this.cod = cod;
+        this.inStock = inStock;
+        this.deliveryDays = deliveryDays;
+        this.priceBuckets = priceBuckets;
+        this.ratingBuckets = ratingBuckets;
+        this.price = price;
+        this.rating = rating;
+    }
+
+    /**
+     * Accepted values per facet; null or empty means the facet is not filtered.
+     * Values within a list are alternatives (OR).
+     */
+    public record Filter(
+            List<String> storage,
+            List<String> ram,
+            List<String> platforms,
+            Double minPrice,
+            Double maxPrice,
+            Double minRating,
+            Boolean codAvailable,
+            Boolean inStock,
+            Integer maxDeliveryDays) {
+    }
+
+    /**
+     * Builds the index for listings in catalog order; list position is the ordinal.
+     */
+    public static FacetIndex of(List<Product> listings) {
+        int n = listings.size();
+        Map<String, List<Integer>> storage = new TreeMap<>();
+        Map<String, List<Integer>> ram = new TreeMap<>();
+        Map<String, List<Integer>> platform = new LinkedHashMap<>();
+        Map<Integer, List<Integer>> days = new TreeMap<>();
+        List<Integer> cod = new ArrayList<>();
+        List<Integer> inStock = new ArrayList<>();
+        double[] price = new double[n];
+        double[] rating = new double[n];
+        double maxPrice = 0;
+
+        for (int i = 0; i < n; i++) {
+            Product p = listings.get(i);
+            if (p.getStorage() != null)
+                storage.computeIfAbsent(p.getStorage(), k -> new ArrayList<>()).add(i);
+            if (p.getRam() != null)
+                ram.computeIfAbsent(p.getRam(), k -> new ArrayList<>()).add(i);
+            if (p.getPlatform() != null)
+                platform.computeIfAbsent(p.getPlatform(), k -> new ArrayList<>()).add(i);
+            int d = deliveryDays(p.getDeliverySpeed());
+            if (d >= 0)
+                days.computeIfAbsent(d, k -> new ArrayList<>()).add(i);
+            if (p.isCodAvailable())
+                cod.add(i);
+            if (p.isInStock() && p.getStockCount() > 0)
+                inStock.add(i);
+            price[i] = p.getPrice();
+            rating[i] = p.getRating();
+            maxPrice = Math.max(maxPrice, p.getPrice());
+        }
+
+        TreeMap<Integer, FacetBitmap> deliveryDays = new TreeMap<>();
+        days.forEach((d, ordinals) -> deliveryDays.put(d, bitmap(ordinals)));
+        return new FacetIndex(n, bitmaps(storage), bitmaps(ram), bitmaps(platform), bitmap(cod), bitmap(inStock),
+                deliveryDays, buckets(price, PRICE_BUCKET, (int) (maxPrice / PRICE_BUCKET) + 1),
+                buckets(rating, RATING_BUCKET, (int) (5 / RATING_BUCKET) + 1), price, rating);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Ordinals matching every facet of the filter.
+     */
+    public FacetBitmap filter(Filter f) {
+        FacetBitmap result = FacetBitmap.all(size);
+        result = result.and(anyOf(storage, f.storage(), false));
+        result = result.and(anyOf(ram, f.ram(), false));
+        result = result.and(anyOf(platform, f.platforms(), true));
+        if (Boolean.TRUE.equals(f.codAvailable()))
+            result = result.and(cod);
+        if (Boolean.TRUE.equals(f.inStock()))
+            result = result.and(inStock);
+        if (f.maxDeliveryDays() != null) {
+            FacetBitmap fast = FacetBitmap.EMPTY;
+            for (FacetBitmap b : deliveryDays.headMap(f.maxDeliveryDays(), true).values())
+                fast = fast.or(b);
+            result = result.and(fast);
+        }
+        if (f.minPrice() != null || f.maxPrice() != null) {
+            result = result.and(range(priceBuckets, PRICE_BUCKET, price,
+                    f.minPrice() == null ? 0 : f.minPrice(),
+                    f.maxPrice() == null ? Double.MAX_VALUE : f.maxPrice()));
+        }
+        if (f.minRating() != null)
+            result = result.and(range(ratingBuckets, RATING_BUCKET, rating, f.minRating(), Double.MAX_VALUE));
+        return result;
+    }
+
+    /**
+     * Count of {@code matches} per storage value, for refining a filter.
+     */
+    public Map<String, Integer> storageCounts(FacetBitmap matches) {
+        return counts(storage, matches);
+    }
+
+    public Map<String, Integer> ramCounts(FacetBitmap matches) {
+        return counts(ram, matches);
+    }
+
+    public Map<String, Integer> platformCounts(FacetBitmap matches) {
+        return counts(platform, matches);
+    }
+
+    /**
+     * Upper bound of a delivery speed in days: "Tomorrow" → 1, "2-3 days" → 3;
+     * -1 if it can't be read.
+     */
+    static int deliveryDays(String speed) {
+        if (speed == null)
+            return -1;
+        String s = speed.toLowerCase(Locale.ROOT);
+        if (s.contains("same day") || s.contains("today"))
+            return 0;
+        if (s.contains("tomorrow") || s.contains("next day"))
+            return 1;
+        int max = -1;
+        int value = -1;
+        for (int i = 0; i <= s.length(); i++) {
+            char c = i < s.length() ? s.charAt(i) : ' ';
+            if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+            } else if (value >= 0) {
+                max = Math.max(max, value);
+                value = -1;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * OR of the accepted values, ignoring case and spaces. "256" finds "256GB"; with
+     * {@code prefix}, "amazon" finds "Amazon India". No accepted values means no constraint.
+     */
+    private FacetBitmap anyOf(Map<String, FacetBitmap> facet, List<String> accepted, boolean prefix) {
+        if (accepted == null || accepted.isEmpty())
+            return FacetBitmap.all(size);
+        FacetBitmap result = FacetBitmap.EMPTY;
+        for (String wanted : accepted) {
+            String w = key(wanted);
+            if (w.isEmpty())
+                continue;
+            for (Map.Entry<String, FacetBitmap> e : facet.entrySet()) {
+                String k = key(e.getKey());
+                if (k.equals(w) || k.equals(w + "gb") || (prefix && k.startsWith(w)))
+                    result = result.or(e.getValue());
+            }
+        }
+        return result;
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT).replace(" ", "");
+    }
+
+    /**
+     * Listings with {@code min <= value <= max}: whole buckets inside the range are
+     * ORed in as they are, the buckets it only partly covers are checked value by value.
+     */
+    private static FacetBitmap range(FacetBitmap[] buckets, double width, double[] values, double min, double max) {
+        int lo = (int) Math.max(0, Math.floor(min / width));
+        int hi = (int) Math.min(buckets.length - 1, Math.floor(Math.min(max, 1e15) / width));
+        FacetBitmap result = FacetBitmap.EMPTY;
+        for (int b = lo; b <= hi; b++) {
+            if (b * width >= min && (b + 1) * width <= max) {
+                result = result.or(buckets[b]);
+                continue;
+            }
+            List<Integer> partial = new ArrayList<>();
+            for (int ordinal : buckets[b].ordinals()) {
+                if (values[ordinal] >= min && values[ordinal] <= max)
+                    partial.add(ordinal);
+            }
+            result = result.or(bitmap(partial));
+        }
+        return result;
+    }
+
+    private static FacetBitmap[] buckets(double[] values, double width, int count) {
+        List<List<Integer>> members = new ArrayList<>(count);
+        for (int b = 0; b < count; b++)
+            members.add(new ArrayList<>());
+        for (int i = 0; i < values.length; i++) {
+            int b = (int) Math.min(count - 1, Math.max(0, Math.floor(values[i] / width)));
+            members.get(b).add(i);
+        }
+        FacetBitmap[] buckets = new FacetBitmap[count];
+        for (int b = 0; b < count; b++)
+            buckets[b] = bitmap(members.get(b));
+        return buckets;
+    }
+
+    private static Map<String, FacetBitmap> bitmaps(Map<String, List<Integer>> values) {
+        Map<String, FacetBitmap> out = new LinkedHashMap<>();
+        values.forEach((value, ordinals) -> out.put(value, bitmap(ordinals)));
+        return out;
+    }
+
+    private static FacetBitmap bitmap(List<Integer> ordinals) {
+        return FacetBitmap.of(ordinals.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static Map<String, Integer> counts(Map<String, FacetBitmap> facet, FacetBitmap matches) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        facet.forEach((value, bitmap) -> {
+            int count = bitmap.and(matches).cardinality();
+            if (count > 0)
+                counts.put(value, count);
+        });
+        return counts;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.mcpserver.search;
+
+import com.example.mcpserver.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Inverted index over product listings.
+ * Every normalized token (and each of its prefixes) maps to a sorted posting
+ * list of product ordinals, so a query only touches the postings it matches.
+ */
+public final class ProductIndex {
+
+    private static final int MIN_PREFIX = 2;
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<String, int[]> postings;
+    private final int size;
+
+    private ProductIndex(Map<String, int[]> postings, int size) {
+        this.postings = postings;
+        this.size = size;
+    }
+
+    public static ProductIndex of(List<Product> products) {
+        Builder builder = new Builder();
+        for (int i = 0; i < products.size(); i++) {
+            builder.add(i, products.get(i));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the ordinals matching every known query token, in ascending order.
+     * Unknown plain words (e.g. "price", "buy") are treated as noise, but an
+     * unknown model number or size such as "s25" or "1tb" matches nothing.
+     */
+    public int[] lookup(String query) {
+        List<int[]> lists = new ArrayList<>();
+        for (String token : tokenize(query)) {
+            int[] list = postings.get(token);
+            if (list != null)
+                lists.add(list);
+            else if (hasDigit(token))
+                return EMPTY;
+        }
+        if (lists.isEmpty())
+            return EMPTY;
+
+        // Intersect smallest-first so the work is bounded by the rarest token
+        lists.sort((a, b) -> Integer.compare(a.length, b.length));
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    /**
+     * Normalized form of a query — lower-case tokens joined by single spaces.
+     * "Galaxy  S24+" and "galaxy s24 plus" normalize to the same string.
+     */
+    public static String normalize(String query) {
+        return String.join(" ", tokenize(query));
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null)
+            return tokens;
+        String s = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= s.length(); i++) {
+            char c = i < s.length() ? s.charAt(i) : ' ';
+            boolean word = (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+            if (word) {
+                if (start < 0)
+                    start = i;
+                continue;
+            }
+            if (start >= 0) {
+                tokens.add(s.substring(start, i));
+                start = -1;
+            }
+            if (c == '+')
+                tokens.add("plus");
+        }
+        return tokens;
+    }
+
+    private static boolean hasDigit(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (Character.isDigit(token.charAt(i)))
+                return true;
+        }
+        return false;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Accumulates postings; ordinals must be added in ascending order.
+     */
+    public static final class Builder {
+
+        private final Map<String, IntList> terms = new HashMap<>();
+        private int size;
+
+        public Builder add(int ordinal, Product p) {
+            addText(ordinal, p.getName());
+            addText(ordinal, p.getColor());
+            addText(ordinal, p.getStorage());
+            addText(ordinal, p.getRam());
+            addText(ordinal, p.getProcessor());
+            // Category aliases the old keyword map answered to
+            addText(ordinal, "phone smartphone");
+            size = Math.max(size, ordinal + 1);
+            return this;
+        }
+
+        private void addText(int ordinal, String text) {
+            for (String token : tokenize(text)) {
+                addTerm(token, ordinal);
+                for (int len = MIN_PREFIX; len < token.length(); len++) {
+                    addTerm(token.substring(0, len), ordinal);
+                }
+            }
+        }
+
+        private void addTerm(String term, int ordinal) {
+            terms.computeIfAbsent(term, t -> new IntList()).addIfAbsent(ordinal);
+        }
+
+        public ProductIndex build() {
+            Map<String, int[]> postings = new HashMap<>(terms.size() * 2);
+            terms.forEach((term, list) -> postings.put(term, list.toArray()));
+            return new ProductIndex(postings, size);
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void addIfAbsent(int v) {
+            if (size > 0 && values[size - 1] == v)
+                return;
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
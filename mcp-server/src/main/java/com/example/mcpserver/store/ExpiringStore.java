@@ -0,0 +1,198 @@
+package com.example.mcpserver.store;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded key-value store whose entries expire a fixed TTL after they are put.
+ *
+ * Expiry is driven by a shared {@link TimingWheel}, so there is no scan over the
+ * entries; reads also treat an entry past its deadline as gone, so nothing is
+ * served late if the wheel runs a tick behind.
+ *
+ * A put that replaces an existing key always succeeds. A new key on a full store
+ * either evicts the oldest entry, which goes through {@code onExpire} like any
+ * expired one, or — for a store whose entries must not vanish early — is refused.
+ */
+public final class ExpiringStore<V> {
+
+    private final String name;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final TimingWheel wheel;
+    private final BiConsumer<String, V> onExpire;
+    private final ToLongFunction<V> sizeEstimate;
+    private final ConcurrentHashMap<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    // Insertion order of the live entries, oldest first; null when the store refuses instead
+    private final ConcurrentSkipListMap<Long, String> byAge;
+    private final AtomicLong puts = new AtomicLong();
+
+    private static final class Entry<V> {
+        final V value;
+        final long seq;
+        volatile long expiresAt;
+        volatile TimingWheel.Timeout timeout;
+
+        Entry(V value, long seq, long expiresAt) {
+            this.value = value;
+            this.seq = seq;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public record Stats(String name, int size, int maxEntries, long ttlSeconds, long expired, long evicted,
+            long rejected, long approxBytes) {
+    }
+
+    /**
+     * @param evictWhenFull whether a new key on a full store evicts the oldest entry
+     *                      (true) or is refused (false)
+     * @param onExpire      called with each entry that expires or is evicted; on the
+     *                      wheel thread for expiry, on the putting thread for eviction
+     * @param sizeEstimate  approximate heap bytes of a value, for {@link #stats()}
+     */
+    public ExpiringStore(String name, Duration ttl, int maxEntries, boolean evictWhenFull, TimingWheel wheel,
+            BiConsumer<String, V> onExpire, ToLongFunction<V> sizeEstimate) {
+        this.name = name;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.byAge = evictWhenFull ? new ConcurrentSkipListMap<>() : null;
+        this.wheel = wheel;
+        this.onExpire = onExpire;
+        this.sizeEstimate = sizeEstimate;
+    }
+
+    /**
+     * Stores the value until the TTL passes. False, and nothing stored, only when a
+     * refusing store is full and {@code key} is new.
+     */
+    public boolean put(String key, V value) {
+        return put(key, value, ttl);
+    }
+
+    /**
+     * Puts a recovered entry back with the life it had left; false if that has
+     * already run out or the store refused it.
+     */
+    public boolean restore(String key, V value, Instant expiresAt) {
+        long left = expiresAt.toEpochMilli() - System.currentTimeMillis();
+        return left > 0 && put(key, value, Duration.ofMillis(left));
+    }
+
+    private boolean put(String key, V value, Duration life) {
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            if (byAge == null) {
+                rejected.increment();
+                return false;
+            }
+            evictOldest();
+        }
+        Entry<V> entry = new Entry<>(value, puts.incrementAndGet(), System.currentTimeMillis() + life.toMillis());
+        entry.timeout = wheel.schedule(() -> expire(key, entry), life);
+        Entry<V> previous = entries.put(key, entry);
+        if (previous != null)
+            forget(previous);
+        // After the entry is visible: a position left behind by a racing remove is skipped on eviction
+        if (byAge != null)
+            byAge.put(entry.seq, key);
+        return true;
+    }
+
+    public V get(String key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || System.currentTimeMillis() >= entry.expiresAt)
+            return null;
+        return entry.value;
+    }
+
+    /**
+     * Keeps an entry until at least {@code until}; never shortens its life.
+     */
+    public void extend(String key, Instant until) {
+        Entry<V> entry = entries.get(key);
+        long deadline = until.toEpochMilli();
+        if (entry == null || deadline <= entry.expiresAt)
+            return;
+        entry.expiresAt = deadline;
+        TimingWheel.Timeout old = entry.timeout;
+        entry.timeout = wheel.schedule(() -> expire(key, entry),
+                Duration.ofMillis(deadline - System.currentTimeMillis()));
+        old.cancel();
+    }
+
+    public V remove(String key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry == null)
+            return null;
+        forget(entry);
+        return entry.value;
+    }
+
+    /**
+     * Visits the live entries; weakly consistent with concurrent puts and removes.
+     */
+    public void forEach(BiConsumer<String, V> action) {
+        long now = System.currentTimeMillis();
+        entries.forEach((key, entry) -> {
+            if (now < entry.expiresAt)
+                action.accept(key, entry.value);
+        });
+    }
+
+    public Duration ttl() {
+        return ttl;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Stats stats() {
+        long bytes = 0;
+        for (Map.Entry<String, Entry<V>> e : entries.entrySet())
+            bytes += 2L * e.getKey().length() + sizeEstimate.applyAsLong(e.getValue().value);
+        return new Stats(name, entries.size(), maxEntries, ttl.toSeconds(), expired.sum(), evicted.sum(),
+                rejected.sum(), bytes);
+    }
+
+    private void expire(String key, Entry<V> entry) {
+        // An extension moves the deadline; its own timeout will come back for it
+        if (System.currentTimeMillis() < entry.expiresAt || !entries.remove(key, entry))
+            return;
+        if (byAge != null)
+            byAge.remove(entry.seq);
+        expired.increment();
+        onExpire.accept(key, entry.value);
+    }
+
+    private void evictOldest() {
+        Map.Entry<Long, String> oldest;
+        while ((oldest = byAge.pollFirstEntry()) != null) {
+            String key = oldest.getValue();
+            Entry<V> entry = entries.get(key);
+            // A stale position: the key was replaced or removed since
+            if (entry == null || entry.seq != oldest.getKey() || !entries.remove(key, entry))
+                continue;
+            entry.timeout.cancel();
+            evicted.increment();
+            onExpire.accept(key, entry.value);
+            return;
+        }
+    }
+
+    private void forget(Entry<V> entry) {
+        entry.timeout.cancel();
+        if (byAge != null)
+            byAge.remove(entry.seq);
+    }
+}
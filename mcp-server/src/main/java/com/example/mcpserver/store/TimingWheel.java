@@ -0,0 +1,150 @@
+package com.example.mcpserver.store;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hierarchical timing wheel for expiring store entries.
+ *
+ * Four levels of 64 slots; a level-{@code n} slot spans 64<sup>n</sup> ticks, so
+ * with one-second ticks the wheel reaches ~194 days while scheduling and
+ * cancelling stay O(1). When a level wraps, the next higher level's current slot
+ * cascades down into finer slots. One daemon thread owns the wheel; other threads
+ * hand it timeouts through a lock-free queue and cancel by flag, so the hot path
+ * of a put or remove never takes a lock.
+ *
+ * Expiry tasks run on the wheel thread and must be short.
+ */
+@Component
+public class TimingWheel {
+
+    private static final Logger log = LoggerFactory.getLogger(TimingWheel.class);
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final Timeout[][] slots = new Timeout[LEVELS][SLOTS];
+    private final ConcurrentLinkedQueue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private volatile boolean running = true;
+    // Wheel thread only
+    private long tick;
+
+    /**
+     * A scheduled task; slots chain their timeouts through {@code next}.
+     */
+    public static final class Timeout {
+        private final long deadline;
+        private final Runnable task;
+        private volatile boolean cancelled;
+        private Timeout next;
+
+        private Timeout(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    public TimingWheel(@Value("${shopping.store.tick-millis:1000}") long tickMillis) {
+        this.tickMillis = tickMillis;
+        this.startMillis = System.currentTimeMillis();
+        this.worker = new Thread(this::run, "timing-wheel");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("⏱️ [STORE] Timing wheel started — {}ms ticks, {} levels × {} slots", tickMillis, LEVELS, SLOTS);
+    }
+
+    /**
+     * Runs {@code task} on the wheel thread once {@code delay} has passed, rounded up
+     * to the next tick.
+     */
+    public Timeout schedule(Runnable task, Duration delay) {
+        long due = System.currentTimeMillis() + delay.toMillis() - startMillis;
+        Timeout timeout = new Timeout(Math.floorDiv(due + tickMillis - 1, tickMillis), task);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(tickMillis);
+                advance((System.currentTimeMillis() - startMillis) / tickMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void advance(long now) {
+        while (tick < now) {
+            tick++;
+            for (Timeout t; (t = pending.poll()) != null;)
+                place(t);
+            // Cascade coarse slots first so their timeouts can land in the finer ones below
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((tick & ((1L << (SLOT_BITS * level)) - 1)) == 0)
+                    cascade(level, (int) (tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+            }
+            int index = (int) tick & (SLOTS - 1);
+            Timeout due = slots[0][index];
+            slots[0][index] = null;
+            for (; due != null; due = due.next)
+                fire(due);
+        }
+    }
+
+    private void cascade(int level, int index) {
+        Timeout t = slots[level][index];
+        slots[level][index] = null;
+        while (t != null) {
+            Timeout next = t.next;
+            place(t);
+            t = next;
+        }
+    }
+
+    private void place(Timeout t) {
+        if (t.cancelled)
+            return;
+        long delta = t.deadline - tick;
+        if (delta <= 0) {
+            fire(t);
+            return;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1)))
+            level++;
+        int index = (int) (t.deadline >>> (SLOT_BITS * level)) & (SLOTS - 1);
+        t.next = slots[level][index];
+        slots[level][index] = t;
+    }
+
+    private static void fire(Timeout t) {
+        if (t.cancelled)
+            return;
+        try {
+            t.task.run();
+        } catch (RuntimeException e) {
+            log.error("⏱️ [STORE] Expiry task failed", e);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        running = false;
+        worker.interrupt();
+    }
+}
@@ -0,0 +1,478 @@
+package com.example.mcpserver.store;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead log with group commit.
+ *
+ * Records are framed as {@code [int length][int crc32c][byte type][payload]}.
+ * Appenders copy their record into a shared buffer and wait; one flusher thread
+ * swaps the buffer out, writes it and issues a single fsync for everything that
+ * piled up while the previous fsync ran, so concurrent payments share the disk
+ * flush instead of queueing behind one each.
+ *
+ * The log rolls over to a new segment every {@code shopping.wal.segment-mb}; each
+ * roll-over writes a checkpoint — the owner's full live state, in the same record
+ * format — and deletes the segments it covers. Recovery reads the newest
+ * checkpoint and only the segments after it, so it stays bounded by the state
+ * size plus about one segment. A torn record at the tail of a segment (a crash
+ * mid-write) ends that segment's replay.
+ */
+@Component
+public class WriteAheadLog {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+    private static final int HEADER_BYTES = 9;
+    private static final int MAX_RECORD_BYTES = 16 << 20;
+    private static final Pattern FILE_NAME = Pattern.compile("(wal|checkpoint)-(\\d{16})\\.(log|ckpt)");
+
+    private final boolean enabled;
+    private final Path dir;
+    private final long segmentBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    // Guarded by lock
+    private ByteBuffer batch = ByteBuffer.allocate(64 << 10);
+    private ByteBuffer spare = ByteBuffer.allocate(64 << 10);
+    private long appendedLsn;
+    private long durableLsn;
+    private IOException failure;
+    private boolean running;
+
+    // Flusher thread only
+    private FileChannel channel;
+    private volatile long segmentSeq;
+    private long segmentSize;
+
+    private Participant participant;
+    private Thread flusher;
+    private final ExecutorService checkpointer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "wal-checkpoint");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean checkpointing = new AtomicBoolean();
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder checkpoints = new LongAdder();
+    private volatile long recovered;
+    private int catchUpSegments;
+    private boolean recovering;
+    private volatile long recoveryMillis;
+
+    /**
+     * Where appended records go on a checkpoint.
+     */
+    @FunctionalInterface
+    public interface RecordSink {
+        void write(byte type, byte[] payload) throws IOException;
+    }
+
+    /**
+     * The state the log protects: replays records into it and snapshots it.
+     */
+    public interface Participant {
+        void replay(byte type, byte[] payload);
+
+        /**
+         * Writes records that rebuild the current live state. Runs while appends
+         * continue; replaying a record that the snapshot already reflects must be
+         * harmless.
+         */
+        void checkpoint(RecordSink sink) throws IOException;
+    }
+
+    public record Stats(boolean enabled, String dir, long segment, long records, long syncs,
+            double recordsPerSync, long bytes, long checkpoints, long recoveredRecords, long recoveryMillis) {
+    }
+
+    public WriteAheadLog(@Value("${shopping.wal.enabled:true}") boolean enabled,
+            @Value("${shopping.wal.dir:data/wal}") String dir,
+            @Value("${shopping.wal.segment-mb:64}") long segmentMb) {
+        this.enabled = enabled;
+        this.dir = Path.of(dir).toAbsolutePath();
+        this.segmentBytes = segmentMb << 20;
+    }
+
+    /**
+     * Replays the newest checkpoint and the segments after it into
+     * {@code participant}, then starts a fresh segment and accepts appends.
+     * The owner must apply each change in memory before appending it, so a
+     * checkpoint taken after a roll-over sees every record left in the old segment.
+     *
+     * No checkpoint runs until the owner calls {@link #recovered}: state it builds
+     * from the replay after this returns would otherwise be missing from a
+     * checkpoint that deletes the segments it came from.
+     */
+    public synchronized void open(Participant participant) {
+        if (!enabled) {
+            log.info("📝 [WAL] Disabled — AP2 mandates, payments and orders are kept in memory only");
+            return;
+        }
+        if (this.participant != null)
+            throw new IllegalStateException("Write-ahead log is already open");
+        this.participant = participant;
+        long start = System.currentTimeMillis();
+        try {
+            Files.createDirectories(dir);
+            long checkpointSeq = latest("checkpoint");
+            long replayed = 0;
+            if (checkpointSeq > 0)
+                replayed += replay(file("checkpoint", checkpointSeq), false);
+            long lastSeq = checkpointSeq;
+            int segments = 0;
+            for (long seq : sequences("wal")) {
+                if (seq < checkpointSeq)
+                    continue;
+                replayed += replay(file("wal", seq), true);
+                lastSeq = Math.max(lastSeq, seq);
+                segments++;
+            }
+            recovered = replayed;
+            recoveryMillis = System.currentTimeMillis() - start;
+            catchUpSegments = segments;
+
+            // Never append after a possibly torn tail; start clean
+            segmentSeq = lastSeq + 1;
+            channel = openSegment(segmentSeq);
+            // Held until recovered(); the flusher doesn't roll over while a checkpoint is due
+            checkpointing.set(true);
+            recovering = true;
+            running = true;
+            flusher = new Thread(this::flushLoop, "wal-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+            log.info("📝 [WAL] Recovered {} records from {} (checkpoint {} + {} segments) in {}ms",
+                    replayed, dir, checkpointSeq, segments, recoveryMillis);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open write-ahead log in " + dir, e);
+        }
+    }
+
+    /**
+     * Called by the owner once it has rebuilt everything it derives from the
+     * replay; from here on checkpoints may snapshot it. If recovery read any
+     * segments, the first checkpoint folds them in right away.
+     */
+    public synchronized void recovered() {
+        if (!recovering)
+            return;
+        recovering = false;
+        long seq = segmentSeq;
+        if (catchUpSegments > 0)
+            checkpointer.execute(() -> checkpoint(seq));
+        else
+            checkpointing.set(false);
+    }
+
+    /**
+     * Queues a record for the next group commit and returns its log sequence
+     * number; {@link #sync} waits for it to be on disk. 0 when the log is disabled.
+     */
+    public long append(byte type, byte[] payload) {
+        if (!enabled)
+            return 0;
+        CRC32C crc = new CRC32C();
+        crc.update(type);
+        crc.update(payload);
+        int checksum = (int) crc.getValue();
+        lock.lock();
+        try {
+            if (failure != null)
+                throw new UncheckedIOException("Write-ahead log failed", failure);
+            if (!running)
+                throw new IllegalStateException("Write-ahead log is not open");
+            if (batch.remaining() < HEADER_BYTES + payload.length) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(batch.capacity() * 2,
+                        batch.position() + HEADER_BYTES + payload.length));
+                batch.flip();
+                batch = grown.put(batch);
+            }
+            batch.putInt(payload.length).putInt(checksum).put(type).put(payload);
+            notEmpty.signal();
+            return ++appendedLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until every record up to {@code lsn} has been fsynced.
+     */
+    public void sync(long lsn) {
+        if (!enabled)
+            return;
+        lock.lock();
+        try {
+            while (durableLsn < lsn) {
+                if (failure != null)
+                    throw new UncheckedIOException("Write-ahead log failed", failure);
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        long r = records.sum();
+        long s = syncs.sum();
+        return new Stats(enabled, dir.toString(), segmentSeq, r, s, s == 0 ? 0 : (double) r / s, bytes.sum(),
+                checkpoints.sum(), recovered, recoveryMillis);
+    }
+
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer out;
+            long upto;
+            long count;
+            lock.lock();
+            try {
+                while (batch.position() == 0 && running)
+                    notEmpty.awaitUninterruptibly();
+                if (batch.position() == 0)
+                    return;
+                out = batch;
+                batch = spare;
+                spare = out;
+                upto = appendedLsn;
+                count = appendedLsn - durableLsn;
+            } finally {
+                lock.unlock();
+            }
+
+            out.flip();
+            int size = out.remaining();
+            try {
+                while (out.hasRemaining())
+                    channel.write(out);
+                channel.force(false);
+            } catch (IOException e) {
+                log.error("❌ [WAL] Write to segment {} failed — refusing further appends", segmentSeq, e);
+                lock.lock();
+                try {
+                    failure = e;
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+            out.clear();
+            segmentSize += size;
+            records.add(count);
+            bytes.add(size);
+            syncs.increment();
+
+            lock.lock();
+            try {
+                durableLsn = upto;
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            if (segmentSize >= segmentBytes && !checkpointing.get())
+                rollOver();
+        }
+    }
+
+    private void rollOver() {
+        try {
+            channel.close();
+            channel = openSegment(++segmentSeq);
+            segmentSize = 0;
+            scheduleCheckpoint(segmentSeq);
+        } catch (IOException e) {
+            log.error("❌ [WAL] Roll-over to segment {} failed", segmentSeq, e);
+            lock.lock();
+            try {
+                failure = e;
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void scheduleCheckpoint(long seq) {
+        if (checkpointing.compareAndSet(false, true))
+            checkpointer.execute(() -> checkpoint(seq));
+    }
+
+    /**
+     * Snapshots the participant as of segment {@code seq}; everything before it is
+     * then redundant and deleted.
+     */
+    private void checkpoint(long seq) {
+        long start = System.currentTimeMillis();
+        Path target = file("checkpoint", seq);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        long[] written = {0};
+        try {
+            try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                participant.checkpoint((type, payload) -> {
+                    CRC32C crc = new CRC32C();
+                    crc.update(type);
+                    crc.update(payload);
+                    out.writeInt(payload.length);
+                    out.writeInt((int) crc.getValue());
+                    out.writeByte(type);
+                    out.write(payload);
+                    written[0]++;
+                });
+                out.flush();
+                file.getFD().sync();
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            for (long old : sequences("wal"))
+                if (old < seq)
+                    Files.deleteIfExists(file("wal", old));
+            for (long old : sequences("checkpoint"))
+                if (old < seq)
+                    Files.deleteIfExists(file("checkpoint", old));
+            checkpoints.increment();
+            log.info("📝 [WAL] Checkpoint {} — {} records in {}ms", seq, written[0],
+                    System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            // The segments stay, so recovery is slower but still complete
+            log.error("❌ [WAL] Checkpoint {} failed", seq, e);
+        } finally {
+            checkpointing.set(false);
+        }
+    }
+
+    private long replay(Path path, boolean truncateTornTail) throws IOException {
+        long count = 0;
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return count;
+                }
+                try {
+                    if (length < 0 || length > MAX_RECORD_BYTES)
+                        throw new IOException("bad record length " + length);
+                    int checksum = in.readInt();
+                    byte type = in.readByte();
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    CRC32C crc = new CRC32C();
+                    crc.update(type);
+                    crc.update(payload);
+                    if ((int) crc.getValue() != checksum)
+                        throw new IOException("checksum mismatch");
+                    apply(type, payload);
+                    count++;
+                    valid += HEADER_BYTES + length;
+                } catch (IOException e) {
+                    log.warn("⚠️ [WAL] {} ends in a torn record at byte {} ({}) — {} records kept",
+                            path.getFileName(), valid, e.getMessage(), count);
+                    break;
+                }
+            }
+        }
+        if (truncateTornTail) {
+            try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                file.truncate(valid);
+            }
+        }
+        return count;
+    }
+
+    private void apply(byte type, byte[] payload) {
+        try {
+            participant.replay(type, payload);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ [WAL] Skipped unreadable record of type {}: {}", type, e.getMessage());
+        }
+    }
+
+    private FileChannel openSegment(long seq) throws IOException {
+        return FileChannel.open(file("wal", seq), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private Path file(String kind, long seq) {
+        return dir.resolve(String.format("%s-%016d.%s", kind, seq, kind.equals("wal") ? "log" : "ckpt"));
+    }
+
+    private long latest(String kind) throws IOException {
+        List<Long> all = sequences(kind);
+        return all.isEmpty() ? 0 : all.get(all.size() - 1);
+    }
+
+    private List<Long> sequences(String kind) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> FILE_NAME.matcher(p.getFileName().toString()))
+                    .filter(m -> m.matches() && m.group(1).equals(kind))
+                    .map(m -> Long.parseLong(m.group(2)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (flusher == null) {
+            checkpointer.shutdown();
+            return;
+        }
+        lock.lock();
+        try {
+            running = false;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            // The flusher's last roll-over may still schedule a checkpoint, so stop it first
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+            checkpointer.shutdown();
+            checkpointer.awaitTermination(30, TimeUnit.SECONDS);
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("⚠️ [WAL] Closing segment {} failed", segmentSeq, e);
+        }
+    }
+}
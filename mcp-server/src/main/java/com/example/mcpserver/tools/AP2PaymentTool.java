@@ -10,6 +10,9 @@ import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * MCP Tools implementing the AP2 (Agent Payments Protocol).
  * 3-step mandate chain: Intent → Cart → Payment.
@@ -28,41 +31,83 @@ public class AP2PaymentTool {
     public String createIntentMandate(
             @ToolParam(description = "What the user wants to buy, e.g. 'Buy Samsung Galaxy S24 Ultra 256GB from Flipkart'") String userIntent,
             @ToolParam(description = "Maximum budget in INR the user is willing to pay, e.g. 150000") double maxBudget,
-            @ToolParam(description = "Preferred platform: 'Amazon India', 'Flipkart', 'Samsung.com India', or 'Croma'. Use 'Any' if no preference.") String preferredPlatform) {
+            @ToolParam(description = "Preferred platform: 'Amazon India', 'Flipkart', 'Samsung.com India', or 'Croma'. Use 'Any' if no preference.") String preferredPlatform,
+            @ToolParam(description = "Optional output format: 'text' (default) or 'json' for compact machine-readable JSON.", required = false) String format) {
 
         log.info("🔒 [AP2 TOOL] createIntentMandate called");
         IntentMandate mandate = paymentService.createIntentMandate(userIntent, maxBudget, preferredPlatform);
+        if (ToolOutputHelper.isJson(format))
+            return JsonOutput.intent(mandate, "createCartMandate");
         return mandate.toSummary() + "\n\n💡 Next: Use this Intent Mandate ID (" + mandate.mandateId()
                 + ") to create a Cart Mandate with createCartMandate.";
     }
 
-    @Tool(description = "AP2 Step 2: Create a Cart Mandate. Call this after createIntentMandate. Locks the exact product, price, and quantity. The cart is cryptographically signed and linked to the Intent Mandate. Show the cart details to the user and ask them to confirm before proceeding to payment.")
+    @Tool(description = "AP2 Step 2: Create a Cart Mandate. Call this after createIntentMandate. Locks the exact products, prices, and quantities. Several products go into ONE cart (one signature, one payment) — list them all in productId instead of creating a cart per product. The cart is cryptographically signed and linked to the Intent Mandate. Show the cart details to the user and ask them to confirm before proceeding to payment.")
     public String createCartMandate(
-            @ToolParam(description = "The Intent Mandate ID from step 1, e.g. 'IM-A1B2C3D4'") String intentMandateId,
-            @ToolParam(description = "The product ID to add to cart, e.g. 'FK-S24U-256'") String productId,
-            @ToolParam(description = "Quantity to purchase, e.g. 1") int quantity) {
+            @ToolParam(description = "The Intent Mandate ID from step 1, e.g. 'IM-0A8F25WWR0W01'") String intentMandateId,
+            @ToolParam(description = "The product ID to add to cart, e.g. 'FK-S24U-256'. For several products, comma-separated 'productId:quantity' pairs, e.g. 'FK-S24U-256:2,AMZ-S24-128:1'") String productId,
+            @ToolParam(description = "Quantity to purchase, e.g. 1 (for product IDs given without ':quantity')") int quantity,
+            @ToolParam(description = "Optional output format: 'text' (default) or 'json' for compact machine-readable JSON.", required = false) String format) {
 
         log.info("🛒 [AP2 TOOL] createCartMandate called — intent: {}, product: {}", intentMandateId, productId);
-        CartMandate cart = paymentService.createCartMandate(intentMandateId, productId, quantity);
+        List<PaymentService.CartLine> lines = parseLines(productId, quantity);
+        if (lines == null) {
+            if (ToolOutputHelper.isJson(format))
+                return JsonOutput.error("Invalid productId: use 'ID' or comma-separated 'ID:quantity' pairs with quantities of at least 1");
+            return "❌ Invalid productId. Use a product ID, or comma-separated 'ID:quantity' pairs, e.g. 'FK-S24U-256:2,AMZ-S24-128:1'.";
+        }
+        CartMandate cart = paymentService.createCartMandate(intentMandateId, lines);
 
         if (cart == null) {
-            return "❌ Cart Mandate creation failed. Check that the Intent Mandate ID and Product ID are valid.";
+            if (ToolOutputHelper.isJson(format))
+                return JsonOutput.error(
+                        "Cart Mandate creation failed: check the Intent Mandate ID (intents expire after 30 minutes) and Product ID, and that enough units are in stock");
+            return "❌ Cart Mandate creation failed. Check that the Intent Mandate ID (intents expire after 30 minutes) and Product ID are valid and that enough units are in stock.";
         }
 
+        if (ToolOutputHelper.isJson(format))
+            return JsonOutput.cart(cart, "confirm with the user, then processPayment");
         return cart.toSummary() + "\n\n💡 Ask the user to confirm this cart. Then use Cart Mandate ID ("
                 + cart.mandateId() + ") with processPayment to complete the purchase.";
     }
 
-    @Tool(description = "AP2 Step 3: Process payment. Call this after the user confirms the Cart Mandate. Validates the full mandate chain (Intent → Cart → Payment), processes payment, and returns a transaction receipt with audit trail. Supported payment methods: UPI, CREDIT_CARD, DEBIT_CARD, NET_BANKING, WALLET.")
+    /**
+     * "ID" or "ID:qty,ID:qty,..."; null if any part is malformed.
+     */
+    private static List<PaymentService.CartLine> parseLines(String productIds, int quantity) {
+        if (productIds == null || productIds.isBlank())
+            return null;
+        List<PaymentService.CartLine> lines = new ArrayList<>();
+        for (String part : productIds.split(",")) {
+            String entry = part.trim();
+            int colon = entry.indexOf(':');
+            String id = colon < 0 ? entry : entry.substring(0, colon).trim();
+            int units = quantity;
+            if (colon >= 0) {
+                try {
+                    units = Integer.parseInt(entry.substring(colon + 1).trim());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            if (id.isEmpty() || units < 1)
+                return null;
+            lines.add(new PaymentService.CartLine(id, units));
+        }
+        return lines;
+    }
+
+    @Tool(description = "AP2 Step 3: Process payment. Call this after the user confirms the Cart Mandate. Validates the full mandate chain (Intent → Cart → Payment), submits payment for every item in the cart to the payment gateway and returns at once with a PENDING transaction receipt. Poll checkOrderStatus with the transaction ID until it is COMPLETED or FAILED; a FAILED (declined) cart can be paid again. Safe to retry: a cart is charged at most once, and repeat calls return the same transaction. Supported payment methods: UPI, CREDIT_CARD, DEBIT_CARD, NET_BANKING, WALLET.")
     public String processPayment(
-            @ToolParam(description = "The Cart Mandate ID from step 2, e.g. 'CM-A1B2C3D4'") String cartMandateId,
+            @ToolParam(description = "The Cart Mandate ID from step 2, e.g. 'CM-0A8F25WWR0W02'") String cartMandateId,
             @ToolParam(description = "Payment method: UPI, CREDIT_CARD, DEBIT_CARD, NET_BANKING, or WALLET") String paymentMethod,
             @ToolParam(description = "Customer's full name") String customerName,
-            @ToolParam(description = "Full delivery address including city and pincode") String deliveryAddress) {
+            @ToolParam(description = "Full delivery address including city and pincode") String deliveryAddress,
+            @ToolParam(description = "Optional output format: 'text' (default) or 'json' for compact machine-readable JSON.", required = false) String format) {
 
         log.info("💳 [AP2 TOOL] processPayment called — cart: {}, method: {}", cartMandateId, paymentMethod);
         PaymentResult result = paymentService.processPayment(cartMandateId, paymentMethod, customerName,
                 deliveryAddress);
-        return result.toSummary();
+        return ToolOutputHelper.isJson(format) ? JsonOutput.payment(result) : result.toSummary();
     }
 }
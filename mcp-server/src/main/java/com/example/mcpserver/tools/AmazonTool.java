@@ -1,7 +1,9 @@
 package com.example.mcpserver.tools;
 
-import com.example.mcpserver.mock.MockDataProvider;
+import com.example.mcpserver.catalog.CatalogSnapshot;
+import com.example.mcpserver.catalog.CatalogStore;
 import com.example.mcpserver.model.Product;
+import com.example.mcpserver.search.ProductIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.tool.annotation.Tool;
@@ -14,20 +16,33 @@ import java.util.List;
 public class AmazonTool {
 
     private static final Logger log = LoggerFactory.getLogger(AmazonTool.class);
-    private final MockDataProvider mockDataProvider;
+    private final CatalogStore catalogStore;
+    private final RenderedOutputCache renderedOutputCache;
 
-    public AmazonTool(MockDataProvider mockDataProvider) {
-        this.mockDataProvider = mockDataProvider;
+    public AmazonTool(CatalogStore catalogStore, RenderedOutputCache renderedOutputCache) {
+        this.catalogStore = catalogStore;
+        this.renderedOutputCache = renderedOutputCache;
     }
 
     @Tool(description = "Search for Samsung Galaxy S series phones on Amazon India. Returns full specs, price with MRP/discount, bank offers, EMI, delivery speed/date/partner/COD, warranty, exchange value, and seller trust info.")
     public String searchAmazon(
-            @ToolParam(description = "The Samsung phone to search for, e.g., 'S24 Ultra', 'Galaxy S24', 'S23 FE', 'samsung'") String productName) {
+            @ToolParam(description = "The Samsung phone to search for, e.g., 'S24 Ultra', 'Galaxy S24', 'S23 FE', 'samsung'") String productName,
+            @ToolParam(description = "Optional token budget for the reply, e.g. 300. Omit for the full listing; when set, returns a compact table trimmed to fit, most important columns first.", required = false) Integer maxTokens,
+            @ToolParam(description = "Optional output format: 'text' (default) or 'json' for compact machine-readable JSON. maxTokens applies to text only.", required = false) String format) {
 
-        log.info("🛒 [MCP TOOL] searchAmazon called with: '{}'", productName);
+        log.info("🛒 [MCP TOOL] searchAmazon called with: '{}' (maxTokens: {}, format: {})", productName, maxTokens,
+                format);
         long start = System.currentTimeMillis();
 
-        List<Product> products = mockDataProvider.searchAmazon(productName);
+        CatalogSnapshot snapshot = catalogStore.snapshot();
+        String key = ToolOutputHelper.outputKey(ProductIndex.normalize(productName), maxTokens, format);
+        String cached = renderedOutputCache.get("searchAmazon", key, snapshot.version());
+        if (cached != null) {
+            log.info("   → Served rendered output for catalog v{}", snapshot.version());
+            return cached;
+        }
+
+        List<Product> products = snapshot.search(CatalogStore.AMAZON, productName);
 
         log.info("   → Found {} products on Amazon India in {}ms",
                 products.size(), System.currentTimeMillis() - start);
@@ -35,7 +50,18 @@ public class AmazonTool {
                 p.getFormattedPrice()));
 
         if (products.isEmpty())
-            return "No Samsung Galaxy phones found on Amazon India for: " + productName;
-        return ToolOutputHelper.formatResults("🛒 AMAZON INDIA — Samsung Galaxy S Series", products);
+            return ToolOutputHelper.isJson(format)
+                    ? JsonOutput.products(CatalogStore.AMAZON, products)
+                    : "No Samsung Galaxy phones found on Amazon India for: " + productName;
+        String header = "🛒 AMAZON INDIA — Samsung Galaxy S Series";
+        String output;
+        if (ToolOutputHelper.isJson(format))
+            output = JsonOutput.products(CatalogStore.AMAZON, products);
+        else if (ToolOutputHelper.isBudgeted(maxTokens))
+            output = ToolOutputHelper.formatCompact(header, products, null, maxTokens);
+        else
+            output = ToolOutputHelper.formatResults(header, products);
+        renderedOutputCache.put("searchAmazon", key, snapshot.version(), output);
+        return output;
     }
 }
@@ -1,7 +1,9 @@
 package com.example.mcpserver.tools;
 
-import com.example.mcpserver.mock.MockDataProvider;
+import com.example.mcpserver.catalog.CatalogSnapshot;
+import com.example.mcpserver.catalog.CatalogStore;
 import com.example.mcpserver.model.Product;
+import com.example.mcpserver.search.ProductIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.tool.annotation.Tool;
@@ -14,20 +16,33 @@ import java.util.List;
 public class CromaTool {
 
     private static final Logger log = LoggerFactory.getLogger(CromaTool.class);
-    private final MockDataProvider mockDataProvider;
+    private final CatalogStore catalogStore;
+    private final RenderedOutputCache renderedOutputCache;
 
-    public CromaTool(MockDataProvider mockDataProvider) {
-        this.mockDataProvider = mockDataProvider;
+    public CromaTool(CatalogStore catalogStore, RenderedOutputCache renderedOutputCache) {
+        this.catalogStore = catalogStore;
+        this.renderedOutputCache = renderedOutputCache;
     }
 
     @Tool(description = "Search for Samsung Galaxy S series phones on Croma (Tata). Returns full specs, price with MRP/discount, HDFC Bank + Croma Rewards offers, Bajaj Finserv EMI, delivery via Croma/BlueDart, 7-day DOA replacement, and in-store exchange value.")
     public String searchCroma(
-            @ToolParam(description = "The Samsung phone to search for, e.g., 'S24 Ultra', 'Galaxy S24', 'S23 FE', 'samsung'") String productName) {
+            @ToolParam(description = "The Samsung phone to search for, e.g., 'S24 Ultra', 'Galaxy S24', 'S23 FE', 'samsung'") String productName,
+            @ToolParam(description = "Optional token budget for the reply, e.g. 300. Omit for the full listing; when set, returns a compact table trimmed to fit, most important columns first.", required = false) Integer maxTokens,
+            @ToolParam(description = "Optional output format: 'text' (default) or 'json' for compact machine-readable JSON. maxTokens applies to text only.", required = false) String format) {
 
-        log.info("🏬 [MCP TOOL] searchCroma called with: '{}'", productName);
+        log.info("🏬 [MCP TOOL] searchCroma called with: '{}' (maxTokens: {}, format: {})", productName, maxTokens,
+                format);
         long start = System.currentTimeMillis();
 
-        List<Product> products = mockDataProvider.searchCroma(productName);
+        CatalogSnapshot snapshot = catalogStore.snapshot();
+        String key = ToolOutputHelper.outputKey(ProductIndex.normalize(productName), maxTokens, format);
+        String cached = renderedOutputCache.get("searchCroma", key, snapshot.version());
+        if (cached != null) {
+            log.info("   → Served rendered output for catalog v{}", snapshot.version());
+            return cached;
+        }
+
+        List<Product> products = snapshot.search(CatalogStore.CROMA, productName);
 
         log.info("   → Found {} products on Croma in {}ms",
                 products.size(), System.currentTimeMillis() - start);
@@ -35,7 +50,18 @@ public class CromaTool {
                 p.getFormattedPrice()));
 
         if (products.isEmpty())
-            return "No Samsung Galaxy phones found on Croma for: " + productName;
-        return ToolOutputHelper.formatResults("🏬 CROMA (Tata Digital) — Samsung Galaxy S Series", products);
+            return ToolOutputHelper.isJson(format)
+                    ? JsonOutput.products(CatalogStore.CROMA, products)
+                    : "No Samsung Galaxy phones found on Croma for: " + productName;
+        String header = "🏬 CROMA (Tata Digital) — Samsung Galaxy S Series";
+        String output;
+        if (ToolOutputHelper.isJson(format))
+            output = JsonOutput.products(CatalogStore.CROMA, products);
+        else if (ToolOutputHelper.isBudgeted(maxTokens))
+            output = ToolOutputHelper.formatCompact(header, products, null, maxTokens);
+        else
+            output = ToolOutputHelper.formatResults(header, products);
+        renderedOutputCache.put("searchCroma", key, snapshot.version(), output);
+        return output;
     }
 }
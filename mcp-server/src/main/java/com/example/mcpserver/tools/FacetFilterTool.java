@@ -0,0 +1,198 @@
+package com.example.mcpserver.tools;
+
+import com.example.mcpserver.catalog.CatalogSnapshot;
+import com.example.mcpserver.catalog.CatalogStore;
+import com.example.mcpserver.model.InrFormat;
+import com.example.mcpserver.model.Product;
+import com.example.mcpserver.search.FacetBitmap;
+import com.example.mcpserver.search.FacetIndex;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Component
+public class FacetFilterTool {
+
+    private static final Logger log = LoggerFactory.getLogger(FacetFilterTool.class);
+    private final CatalogStore catalogStore;
+    private final RenderedOutputCache renderedOutputCache;
+    // Facet index of the newest catalog version seen; rebuilt when a delta lands
+    private final AtomicReference<Indexed> index = new AtomicReference<>();
+
+    private record Indexed(long version, FacetIndex facets) {
+    }
+
+    public FacetFilterTool(CatalogStore catalogStore, RenderedOutputCache renderedOutputCache) {
+        this.catalogStore = catalogStore;
+        this.renderedOutputCache = renderedOutputCache;
+    }
+
+    @Tool(description = "Filter Samsung Galaxy listings across Amazon India, Flipkart, Samsung.com India, and Croma by exact attributes in one call: storage, RAM, platform, price range, minimum rating, cash on delivery, in stock, and delivery speed. Use it for requests like 'under ₹80,000, 256GB, COD, delivered in 1 day' instead of searching every platform. Results are cheapest first, with counts per storage/RAM/platform to refine further.")
+    public String filterProducts(
+            @ToolParam(description = "Optional model text to narrow to, e.g., 'S24', 'S23 FE'", required = false) String productName,
+            @ToolParam(description = "Optional storage options, any of, e.g., ['256GB', '512GB']", required = false) List<String> storage,
+            @ToolParam(description = "Optional RAM options, any of, e.g., ['12GB']", required = false) List<String> ram,
+            @ToolParam(description = "Optional platforms, any of: 'Amazon', 'Flipkart', 'Samsung', 'Croma'", required = false) List<String> platforms,
+            @ToolParam(description = "Optional minimum price in INR", required = false) Double minPrice,
+            @ToolParam(description = "Optional maximum price in INR, e.g. 80000", required = false) Double maxPrice,
+            @ToolParam(description = "Optional minimum rating, e.g. 4.5", required = false) Double minRating,
+            @ToolParam(description = "Optional: true to keep only listings with cash on delivery", required = false) Boolean codAvailable,
+            @ToolParam(description = "Optional: true to keep only listings in stock", required = false) Boolean inStock,
+            @ToolParam(description = "Optional maximum delivery time in days, e.g. 1 for next-day", required = false) Integer maxDeliveryDays,
+            @ToolParam(description = "Optional token budget for the reply, e.g. 400. Omit for full listings; when set, returns a compact table trimmed to fit.", required = false) Integer maxTokens,
+            @ToolParam(description = "Optional output format: 'text' (default) or 'json'. maxTokens applies to text only.", required = false) String format) {
+
+        FacetIndex.Filter filter = new FacetIndex.Filter(storage, ram, platforms, minPrice, maxPrice, minRating,
+                codAvailable, inStock, maxDeliveryDays);
+        log.info("🔎 [MCP TOOL] filterProducts called with: '{}' {} (maxTokens: {}, format: {})", productName, filter,
+                maxTokens, format);
+        long start = System.nanoTime();
+
+        CatalogSnapshot snapshot = catalogStore.snapshot();
+        String key = ToolOutputHelper.outputKey(filter + "#" + productName, maxTokens, format);
+        String cached = renderedOutputCache.get("filterProducts", key, snapshot.version());
+        if (cached != null) {
+            log.info("   → Served rendered output for catalog v{}", snapshot.version());
+            return cached;
+        }
+
+        FacetIndex facets = facets(snapshot);
+        FacetBitmap matches = facets.filter(filter);
+        if (productName != null && !productName.isBlank())
+            matches = matches.and(modelMatches(snapshot, productName));
+
+        List<Product> products = new ArrayList<>(matches.cardinality());
+        for (int ordinal : matches.ordinals())
+            products.add(snapshot.get(ordinal));
+        products.sort(Comparator.comparingDouble(Product::getPrice));
+        log.info("   → {} of {} listings match in {}µs", products.size(), facets.size(),
+                (System.nanoTime() - start) / 1_000);
+
+        String header = "🔎 FILTERED LISTINGS — " + describe(productName, filter) + " — "
+                + products.size() + (products.size() == 1 ? " match" : " matches");
+        String output;
+        if (ToolOutputHelper.isJson(format)) {
+            output = json(productName, filter, products, facets, matches);
+        } else if (products.isEmpty()) {
+            output = "No Samsung Galaxy listings match: " + describe(productName, filter)
+                    + ". Try relaxing a filter.";
+        } else {
+            StringBuilder sb = new StringBuilder(ToolOutputHelper.isBudgeted(maxTokens)
+                    ? ToolOutputHelper.formatCompact(header, products, null, maxTokens)
+                    : ToolOutputHelper.formatResults(header, products));
+            sb.append("\n🧭 Refine: storage ");
+            appendCounts(sb, facets.storageCounts(matches));
+            sb.append(" · RAM ");
+            appendCounts(sb, facets.ramCounts(matches));
+            sb.append(" · platform ");
+            appendCounts(sb, facets.platformCounts(matches));
+            sb.append("\n");
+            output = sb.toString();
+        }
+        renderedOutputCache.put("filterProducts", key, snapshot.version(), output);
+        return output;
+    }
+
+    private FacetIndex facets(CatalogSnapshot snapshot) {
+        Indexed current = index.get();
+        if (current != null && current.version() == snapshot.version())
+            return current.facets();
+        FacetIndex facets = build(snapshot);
+        // Keep the newest; a slow build for an older snapshot must not replace it
+        index.accumulateAndGet(new Indexed(snapshot.version(), facets),
+                (a, b) -> a == null || b.version() > a.version() ? b : a);
+        return facets;
+    }
+
+    private static FacetIndex build(CatalogSnapshot snapshot) {
+        List<Product> listings = new ArrayList<>(snapshot.size());
+        for (int ordinal = 0; ordinal < snapshot.size(); ordinal++)
+            listings.add(snapshot.get(ordinal));
+        FacetIndex facets = FacetIndex.of(listings);
+        log.info("🗂️ [CATALOG] Facet index built for v{} — {} listings", snapshot.version(), listings.size());
+        return facets;
+    }
+
+    private static FacetBitmap modelMatches(CatalogSnapshot snapshot, String productName) {
+        List<Integer> ordinals = new ArrayList<>();
+        for (String platform : CatalogStore.PLATFORMS) {
+            for (Product p : snapshot.search(platform, productName))
+                ordinals.add(snapshot.ordinalOf(p.getId()));
+        }
+        return FacetBitmap.of(ordinals.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static String describe(String productName, FacetIndex.Filter f) {
+        List<String> parts = new ArrayList<>();
+        if (productName != null && !productName.isBlank())
+            parts.add("'" + productName + "'");
+        if (f.storage() != null && !f.storage().isEmpty())
+            parts.add(String.join("/", f.storage()));
+        if (f.ram() != null && !f.ram().isEmpty())
+            parts.add(String.join("/", f.ram()) + " RAM");
+        if (f.platforms() != null && !f.platforms().isEmpty())
+            parts.add(String.join("/", f.platforms()));
+        if (f.minPrice() != null)
+            parts.add("≥ " + InrFormat.format(f.minPrice()));
+        if (f.maxPrice() != null)
+            parts.add("≤ " + InrFormat.format(f.maxPrice()));
+        if (f.minRating() != null)
+            parts.add(f.minRating() + "★+");
+        if (Boolean.TRUE.equals(f.codAvailable()))
+            parts.add("COD");
+        if (Boolean.TRUE.equals(f.inStock()))
+            parts.add("in stock");
+        if (f.maxDeliveryDays() != null)
+            parts.add("delivery ≤ " + f.maxDeliveryDays() + (f.maxDeliveryDays() == 1 ? " day" : " days"));
+        return parts.isEmpty() ? "all listings" : String.join(" · ", parts);
+    }
+
+    private static void appendCounts(StringBuilder sb, Map<String, Integer> counts) {
+        if (counts.isEmpty()) {
+            sb.append("—");
+            return;
+        }
+        int i = 0;
+        for (Map.Entry<String, Integer> e : counts.entrySet()) {
+            if (i++ > 0)
+                sb.append(", ");
+            sb.append(e.getKey()).append(" (").append(e.getValue()).append(')');
+        }
+    }
+
+    private static String json(String productName, FacetIndex.Filter f, List<Product> products, FacetIndex facets,
+            FacetBitmap matches) {
+        return JsonOutput.write(256 + products.size() * 768, json -> {
+            json.writeStartObject();
+            json.writeStringField("filters", describe(productName, f));
+            json.writeNumberField("count", products.size());
+            json.writeObjectFieldStart("facets");
+            writeCounts(json, "storage", facets.storageCounts(matches));
+            writeCounts(json, "ram", facets.ramCounts(matches));
+            writeCounts(json, "platform", facets.platformCounts(matches));
+            json.writeEndObject();
+            json.writeArrayFieldStart("products");
+            for (Product p : products)
+                JsonOutput.writeProduct(json, p);
+            json.writeEndArray();
+            json.writeEndObject();
+        });
+    }
+
+    private static void writeCounts(JsonGenerator json, String facet, Map<String, Integer> counts) throws IOException {
+        json.writeObjectFieldStart(facet);
+        for (Map.Entry<String, Integer> e : counts.entrySet())
+            json.writeNumberField(e.getKey(), e.getValue());
+        json.writeEndObject();
+    }
+}
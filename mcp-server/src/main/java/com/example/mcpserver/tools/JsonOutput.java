@@ -0,0 +1,233 @@
+package com.example.mcpserver.tools;
+
+import com.example.mcpserver.ap2.CartMandate;
+import com.example.mcpserver.ap2.IntentMandate;
+import com.example.mcpserver.ap2.PaymentResult;
+import com.example.mcpserver.model.Product;
+import com.example.mcpserver.order.Order;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Compact JSON for the tools' structured output mode ({@code format: "json"}).
+ *
+ * Fields are written straight from the model objects through one streaming
+ * {@link JsonGenerator}, without an intermediate tree or per-field strings.
+ * Amounts are plain INR numbers (whole rupees without ".0"); null fields are omitted.
+ */
+public final class JsonOutput {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private JsonOutput() {
+    }
+
+    @FunctionalInterface
+    public interface Body {
+        void write(JsonGenerator json) throws IOException;
+    }
+
+    /**
+     * Runs {@code body} against a generator and returns the JSON text.
+     */
+    public static String write(int sizeHint, Body body) {
+        StringWriter out = new StringWriter(sizeHint);
+        try (JsonGenerator json = FACTORY.createGenerator(out)) {
+            body.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    public static String error(String message) {
+        return write(64, json -> {
+            json.writeStartObject();
+            json.writeStringField("error", message);
+            json.writeEndObject();
+        });
+    }
+
+    public static String products(String platform, List<Product> products) {
+        return write(128 + products.size() * 768, json -> {
+            json.writeStartObject();
+            json.writeStringField("platform", platform);
+            json.writeNumberField("count", products.size());
+            json.writeArrayFieldStart("products");
+            for (Product p : products)
+                writeProduct(json, p);
+            json.writeEndArray();
+            json.writeEndObject();
+        });
+    }
+
+    public static String product(Product p) {
+        return write(768, json -> writeProduct(json, p));
+    }
+
+    public static void writeProduct(JsonGenerator json, Product p) throws IOException {
+        json.writeStartObject();
+        writeString(json, "id", p.getId());
+        writeString(json, "name", p.getName());
+        writeString(json, "color", p.getColor());
+        writeString(json, "storage", p.getStorage());
+        writeString(json, "ram", p.getRam());
+        writeOfferFields(json, p);
+        writeString(json, "processor", p.getProcessor());
+        writeString(json, "display", p.getDisplay());
+        writeString(json, "camera", p.getCamera());
+        writeString(json, "battery", p.getBattery());
+        writeString(json, "os", p.getOs());
+        json.writeEndObject();
+    }
+
+    /**
+     * One platform's offer for a variant: the fields that differ between
+     * platforms, without the specs shared by the whole comparison group.
+     */
+    public static void writeListing(JsonGenerator json, Product p) throws IOException {
+        json.writeStartObject();
+        writeString(json, "id", p.getId());
+        writeString(json, "color", p.getColor());
+        writeOfferFields(json, p);
+        json.writeEndObject();
+    }
+
+    private static void writeOfferFields(JsonGenerator json, Product p) throws IOException {
+        writeString(json, "platform", p.getPlatform());
+        writeAmount(json, "price", p.getPrice());
+        writeAmount(json, "mrp", p.getMrp());
+        json.writeNumberField("discountPercent", p.getDiscountPercent());
+        json.writeBooleanField("inStock", p.isInStock());
+        json.writeNumberField("stockCount", p.getStockCount());
+        json.writeNumberField("rating", p.getRating());
+        json.writeNumberField("reviewCount", p.getReviewCount());
+        writeString(json, "seller", p.getSeller());
+        writeString(json, "offers", p.getOffers());
+        writeString(json, "emiOption", p.getEmiOption());
+        writeString(json, "exchangeValue", p.getExchangeValue());
+        if (p.getFreebie() != null && !p.getFreebie().equalsIgnoreCase("None"))
+            json.writeStringField("freebie", p.getFreebie());
+        writeString(json, "warranty", p.getWarranty());
+        writeString(json, "returnPolicy", p.getReturnPolicy());
+        writeString(json, "deliverySpeed", p.getDeliverySpeed());
+        writeString(json, "deliveryDate", p.getDeliveryDate());
+        writeAmount(json, "deliveryCharge", p.getDeliveryCharge());
+        json.writeBooleanField("codAvailable", p.isCodAvailable());
+        writeString(json, "deliveryPartner", p.getDeliveryPartner());
+    }
+
+    public static String intent(IntentMandate mandate, String next) {
+        return write(320, json -> {
+            json.writeStartObject();
+            json.writeStringField("mandateId", mandate.mandateId());
+            writeString(json, "userIntent", mandate.userIntent());
+            writeAmount(json, "maxBudget", mandate.maxBudget());
+            writeString(json, "preferredPlatform", mandate.preferredPlatform());
+            json.writeStringField("createdAt", mandate.createdAt().toString());
+            json.writeStringField("signature", mandate.signature());
+            writeString(json, "next", next);
+            json.writeEndObject();
+        });
+    }
+
+    public static String cart(CartMandate cart, String next) {
+        return write(256 + 160 * cart.items().size(), json -> {
+            json.writeStartObject();
+            json.writeStringField("mandateId", cart.mandateId());
+            json.writeStringField("intentMandateId", cart.intentMandateId());
+            json.writeArrayFieldStart("items");
+            for (CartMandate.LineItem item : cart.items()) {
+                json.writeStartObject();
+                json.writeStringField("productId", item.productId());
+                writeString(json, "productName", item.productName());
+                writeString(json, "platform", item.platform());
+                writeAmount(json, "unitPrice", item.unitPrice());
+                json.writeNumberField("quantity", item.quantity());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            writeAmount(json, "totalAmount", cart.totalAmount());
+            json.writeStringField("createdAt", cart.createdAt().toString());
+            json.writeStringField("holdExpiresAt", cart.holdExpiresAt().toString());
+            json.writeStringField("signature", cart.signature());
+            writeString(json, "next", next);
+            json.writeEndObject();
+        });
+    }
+
+    public static String payment(PaymentResult result) {
+        return write(512, json -> {
+            json.writeStartObject();
+            writeString(json, "transactionId", result.transactionId());
+            writeString(json, "status", result.status());
+            writeString(json, "cartMandateId", result.cartMandateId());
+            writeString(json, "intentMandateId", result.intentMandateId());
+            writeString(json, "paymentMethod", result.paymentMethod());
+            writeAmount(json, "amount", result.amount());
+            writeString(json, "productName", result.productName());
+            writeString(json, "platform", result.platform());
+            writeString(json, "customerName", result.customerName());
+            writeString(json, "deliveryAddress", result.deliveryAddress());
+            if (result.processedAt() != null)
+                json.writeStringField("processedAt", result.processedAt().toString());
+            writeString(json, "signature", result.signature());
+            json.writeEndObject();
+        });
+    }
+
+    public static String order(Order order) {
+        return write(448, json -> writeOrder(json, order));
+    }
+
+    public static String orders(List<Order> orders, String nextCursor) {
+        return write(64 + orders.size() * 448, json -> {
+            json.writeStartObject();
+            json.writeNumberField("count", orders.size());
+            json.writeArrayFieldStart("orders");
+            for (Order order : orders)
+                writeOrder(json, order);
+            json.writeEndArray();
+            writeString(json, "nextCursor", nextCursor);
+            json.writeEndObject();
+        });
+    }
+
+    private static void writeOrder(JsonGenerator json, Order order) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("orderId", order.orderId());
+        json.writeStringField("status", order.status());
+        json.writeStringField("productId", order.productId());
+        writeString(json, "productName", order.productName());
+        writeString(json, "platform", order.platform());
+        json.writeNumberField("quantity", order.quantity());
+        writeAmount(json, "unitPrice", order.unitPrice());
+        writeAmount(json, "totalAmount", order.totalAmount());
+        writeString(json, "customerName", order.customerName());
+        writeString(json, "deliveryAddress", order.deliveryAddress());
+        writeString(json, "expectedDelivery", order.expectedDelivery());
+        writeString(json, "deliveryPartner", order.deliveryPartner());
+        writeString(json, "orderTime", order.orderTime());
+        json.writeEndObject();
+    }
+
+    private static void writeString(JsonGenerator json, String field, String value) throws IOException {
+        if (value != null)
+            json.writeStringField(field, value);
+    }
+
+    /**
+     * Writes whole-rupee amounts as integers: 127999 rather than 127999.0.
+     */
+    public static void writeAmount(JsonGenerator json, String field, double amount) throws IOException {
+        if (amount == Math.rint(amount) && Math.abs(amount) < 1e15)
+            json.writeNumberField(field, (long) amount);
+        else
+            json.writeNumberField(field, amount);
+    }
+}
@@ -1,41 +1,68 @@
 package com.example.mcpserver.tools;
 
 import com.example.mcpserver.ap2.PaymentService;
-import com.example.mcpserver.mock.MockDataProvider;
+import com.example.mcpserver.catalog.CatalogSnapshot;
+import com.example.mcpserver.catalog.CatalogStore;
 import com.example.mcpserver.model.Product;
+import com.example.mcpserver.order.Order;
+import com.example.mcpserver.order.OrderStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.Optional;
 
 /**
- * MCP Tool for product details and order status.
+ * MCP Tool for product details, order status and order history.
  * Purchase flow is now handled by AP2PaymentTool.
  */
 @Component
 public class OrderTool {
 
     private static final Logger log = LoggerFactory.getLogger(OrderTool.class);
-    private final MockDataProvider mockDataProvider;
+    private static final int DEFAULT_PAGE_SIZE = 10;
+    private static final int MAX_PAGE_SIZE = 50;
+
+    private final CatalogStore catalogStore;
+    private final OrderStore orderStore;
     private final PaymentService paymentService;
+    private final RenderedOutputCache renderedOutputCache;
 
-    public OrderTool(MockDataProvider mockDataProvider, PaymentService paymentService) {
-        this.mockDataProvider = mockDataProvider;
+    public OrderTool(CatalogStore catalogStore, OrderStore orderStore, PaymentService paymentService,
+            RenderedOutputCache renderedOutputCache) {
+        this.catalogStore = catalogStore;
+        this.orderStore = orderStore;
         this.paymentService = paymentService;
+        this.renderedOutputCache = renderedOutputCache;
     }
 
     @Tool(description = "Get detailed information about a specific product by its ID. Use this when user wants to know more about a product or is considering buying it.")
     public String getProductDetails(
-            @ToolParam(description = "The product ID, e.g., 'AMZ-S24U-256', 'FK-S24U-512', 'SS-S24-128'") String productId) {
+            @ToolParam(description = "The product ID, e.g., 'AMZ-S24U-256', 'FK-S24U-512', 'SS-S24-128'") String productId,
+            @ToolParam(description = "Optional token budget for the reply, e.g. 150. Omit for the full card; when set, keeps price, stock and delivery first and drops the rest to fit.", required = false) Integer maxTokens,
+            @ToolParam(description = "Optional output format: 'text' (default) or 'json' for compact machine-readable JSON. maxTokens applies to text only.", required = false) String format) {
 
-        log.info("🔍 [MCP TOOL] getProductDetails called with ID: '{}'", productId);
-        Optional<Product> productOpt = mockDataProvider.getProductById(productId);
+        log.info("🔍 [MCP TOOL] getProductDetails called with ID: '{}' (maxTokens: {}, format: {})", productId,
+                maxTokens, format);
+        CatalogSnapshot snapshot = catalogStore.snapshot();
+        String key = ToolOutputHelper.outputKey(productId, maxTokens, format);
+        String cached = renderedOutputCache.get("getProductDetails", key, snapshot.version());
+        if (cached != null) {
+            log.info("   → Served rendered card for catalog v{}", snapshot.version());
+            return cached;
+        }
+        Optional<Product> productOpt = snapshot.getProductById(productId);
 
         if (productOpt.isEmpty()) {
             log.warn("   → ❌ Product NOT FOUND: '{}'", productId);
+            if (ToolOutputHelper.isJson(format))
+                return JsonOutput.error("Product not found with ID: " + productId);
             return "Product not found with ID: " + productId + ". Please check the product ID and try again.";
         }
 
@@ -43,37 +70,124 @@ public class OrderTool {
         log.info("   → ✅ Found: {} ({}, {}) on {} — {}",
                 product.getName(), product.getColor(), product.getStorage(),
                 product.getPlatform(), product.getFormattedPrice());
-        return product.toDetailedCard();
+        String card;
+        if (ToolOutputHelper.isJson(format))
+            card = JsonOutput.product(product);
+        else if (ToolOutputHelper.isBudgeted(maxTokens))
+            card = ToolOutputHelper.formatCompactCard(product, maxTokens);
+        else
+            card = product.toDetailedCard();
+        renderedOutputCache.put("getProductDetails", key, snapshot.version(), card);
+        return card;
     }
 
-    @Tool(description = "Check the status of an existing order by order ID, or look up an AP2 transaction by transaction ID.")
+    @Tool(description = "Check the status of an existing order by order ID, or look up an AP2 transaction by transaction ID. AP2 payments start PENDING and settle to COMPLETED or FAILED within seconds; call again to poll.")
     public String checkOrderStatus(
-            @ToolParam(description = "The order ID (e.g., 'ORD-1234567890') or AP2 transaction ID (e.g., 'TXN-A1B2C3D4E5F6')") String orderId) {
+            @ToolParam(description = "The order ID (e.g., 'ORD-0A8F25WWR0W00') or AP2 transaction ID (e.g., 'TXN-0A8F264YG0ZJ3')") String orderId,
+            @ToolParam(description = "Optional output format: 'text' (default) or 'json' for compact machine-readable JSON.", required = false) String format) {
 
         log.info("📋 [MCP TOOL] checkOrderStatus called with: '{}'", orderId);
+        boolean json = ToolOutputHelper.isJson(format);
 
         // Check AP2 transactions first
         if (orderId.startsWith("TXN-")) {
             return paymentService.getTransaction(orderId)
                     .map(txn -> {
                         log.info("   → ✅ AP2 Transaction found: {}", orderId);
-                        return txn.toSummary();
+                        return json ? JsonOutput.payment(txn) : txn.toSummary();
                     })
                     .orElseGet(() -> {
                         log.warn("   → ❌ Transaction NOT FOUND: '{}'", orderId);
-                        return "❌ Transaction not found: " + orderId;
+                        return json ? JsonOutput.error("Transaction not found: " + orderId)
+                                : "❌ Transaction not found: " + orderId;
                     });
         }
 
         // Fall back to legacy orders
-        return mockDataProvider.getOrderById(orderId)
+        return orderStore.get(orderId)
                 .map(order -> {
                     log.info("   → ✅ Order found: {}", orderId);
-                    return order.toSummary();
+                    return json ? JsonOutput.order(order) : order.toSummary();
                 })
                 .orElseGet(() -> {
                     log.warn("   → ❌ Order NOT FOUND: '{}'", orderId);
-                    return "❌ Order not found: " + orderId;
+                    return json ? JsonOutput.error("Order not found: " + orderId) : "❌ Order not found: " + orderId;
                 });
     }
+
+    @Tool(description = "List orders page by page, newest first. Use it for 'show my orders' (pass the customer's name) and for support lookups by platform, product or date range; filters combine. Returns up to pageSize orders and, when more match, a cursor: pass it back unchanged to get the next page.")
+    public String listOrders(
+            @ToolParam(description = "Optional customer's full name, as given at payment, e.g. 'Ravi Kumar'", required = false) String customerName,
+            @ToolParam(description = "Optional platform: 'Amazon India', 'Flipkart', 'Samsung.com India' or 'Croma'", required = false) String platform,
+            @ToolParam(description = "Optional product ID, e.g. 'FK-S24U-256'", required = false) String productId,
+            @ToolParam(description = "Optional first order date to include, YYYY-MM-DD", required = false) String fromDate,
+            @ToolParam(description = "Optional last order date to include, YYYY-MM-DD", required = false) String toDate,
+            @ToolParam(description = "Optional cursor from the previous page's reply; omit for the first page", required = false) String cursor,
+            @ToolParam(description = "Optional orders per page, 1 to 50 (default 10)", required = false) Integer pageSize,
+            @ToolParam(description = "Optional output format: 'text' (default) or 'json' for compact machine-readable JSON.", required = false) String format) {
+
+        log.info("🧾 [MCP TOOL] listOrders called — customer: '{}', platform: '{}', product: '{}', {}..{}, cursor: {}",
+                customerName, platform, productId, fromDate, toDate, cursor);
+        boolean json = ToolOutputHelper.isJson(format);
+        ZoneId zone = ZoneId.systemDefault();
+        Instant from;
+        Instant to;
+        try {
+            from = fromDate == null || fromDate.isBlank() ? null
+                    : LocalDate.parse(fromDate.trim()).atStartOfDay(zone).toInstant();
+            to = toDate == null || toDate.isBlank() ? null
+                    : LocalDate.parse(toDate.trim()).plusDays(1).atStartOfDay(zone).toInstant();
+        } catch (DateTimeParseException e) {
+            return json ? JsonOutput.error("Invalid date: use YYYY-MM-DD")
+                    : "❌ Invalid date. Use YYYY-MM-DD, e.g. 2025-01-31.";
+        }
+        if (cursor != null && cursor.isBlank())
+            cursor = null;
+        if (cursor != null && !cursor.startsWith("ORD-"))
+            return json ? JsonOutput.error("Invalid cursor: pass back the cursor from the previous page")
+                    : "❌ Invalid cursor. Pass back the cursor from the previous page unchanged.";
+        int limit = pageSize == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(MAX_PAGE_SIZE, pageSize));
+
+        long start = System.nanoTime();
+        OrderStore.Query query = new OrderStore.Query(customerName, platform, productId, from, to);
+        OrderStore.Page page = orderStore.page(query, cursor, limit);
+        log.info("   → {} orders ({} scanned of {}) in {}µs", page.orders().size(), page.scanned(), orderStore.size(),
+                (System.nanoTime() - start) / 1_000);
+
+        if (json)
+            return JsonOutput.orders(page.orders(), page.nextCursor());
+        String filters = describe(customerName, platform, productId, fromDate, toDate);
+        if (page.orders().isEmpty())
+            return cursor == null ? "No orders match " + filters + "."
+                    : "No more orders match " + filters + ".";
+        StringBuilder sb = new StringBuilder(128 + page.orders().size() * 160);
+        sb.append("🧾 ORDERS — ").append(filters).append(" — ")
+                .append(page.orders().size()).append(page.orders().size() == 1 ? " order" : " orders")
+                .append(", newest first\n");
+        for (Order order : page.orders())
+            sb.append(order.toRow()).append('\n');
+        if (page.nextCursor() != null)
+            sb.append("\n💡 More orders: call listOrders again with the same filters and cursor '")
+                    .append(page.nextCursor()).append("'.\n");
+        return sb.toString();
+    }
+
+    private static String describe(String customerName, String platform, String productId, String fromDate,
+            String toDate) {
+        StringBuilder sb = new StringBuilder(64);
+        appendFilter(sb, "customer ", customerName);
+        appendFilter(sb, "platform ", platform);
+        appendFilter(sb, "product ", productId);
+        appendFilter(sb, "from ", fromDate);
+        appendFilter(sb, "to ", toDate);
+        return sb.isEmpty() ? "all customers" : sb.toString();
+    }
+
+    private static void appendFilter(StringBuilder sb, String label, String value) {
+        if (value == null || value.isBlank())
+            return;
+        if (!sb.isEmpty())
+            sb.append(", ");
+        sb.append(label).append(value.trim());
+    }
 }
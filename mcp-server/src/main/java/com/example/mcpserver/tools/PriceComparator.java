@@ -1,6 +1,13 @@
 package com.example.mcpserver.tools;
 
-import com.example.mcpserver.mock.MockDataProvider;
+import com.example.mcpserver.catalog.CatalogSnapshot;
+import com.example.mcpserver.catalog.CatalogStore;
+import com.example.mcpserver.catalog.PlatformFanOut;
+import com.example.mcpserver.catalog.PlatformResults;
+import com.example.mcpserver.catalog.PriceColumns;
+import com.example.mcpserver.history.PriceHistoryStore;
+import com.example.mcpserver.history.PriceTrend;
+import com.example.mcpserver.model.InrFormat;
 import com.example.mcpserver.model.Product;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,72 +15,144 @@ import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 @Component
 public class PriceComparator {
 
     private static final Logger log = LoggerFactory.getLogger(PriceComparator.class);
-    private final MockDataProvider mockDataProvider;
+    // One platform block in the comparison is ~700 chars
+    private static final int CHARS_PER_LISTING = 768;
+    private static final DateTimeFormatter TREND_DATE = DateTimeFormatter.ofPattern("dd MMM yyyy")
+            .withZone(ZoneId.systemDefault());
+    private final CatalogStore catalogStore;
+    private final PlatformFanOut platformFanOut;
+    private final RenderedOutputCache renderedOutputCache;
+    private final PriceHistoryStore priceHistory;
 
-    public PriceComparator(MockDataProvider mockDataProvider) {
-        this.mockDataProvider = mockDataProvider;
+    public PriceComparator(CatalogStore catalogStore, PlatformFanOut platformFanOut,
+            RenderedOutputCache renderedOutputCache, PriceHistoryStore priceHistory) {
+        this.catalogStore = catalogStore;
+        this.platformFanOut = platformFanOut;
+        this.renderedOutputCache = renderedOutputCache;
+        this.priceHistory = priceHistory;
     }
 
     @Tool(description = "Compare Samsung Galaxy phone prices across Amazon India, Flipkart, Samsung.com India, and Croma. Shows side-by-side comparison of price, MRP, discount%, offers, EMI, freebies, delivery speed/date/COD/partner, warranty, exchange value, and return policy for each platform.")
     public String comparePrices(
-            @ToolParam(description = "The Samsung phone to compare, e.g., 'S24 Ultra', 'Galaxy S24', 'S23 FE'") String productName) {
+            @ToolParam(description = "The Samsung phone to compare, e.g., 'S24 Ultra', 'Galaxy S24', 'S23 FE'") String productName,
+            @ToolParam(description = "Optional token budget for the reply, e.g. 400. Omit for the full comparison; when set, returns a compact table (cheapest per variant marked 👑) trimmed to fit.", required = false) Integer maxTokens,
+            @ToolParam(description = "Optional output format: 'text' (default) or 'json' for compact machine-readable JSON grouped by variant. maxTokens applies to text only.", required = false) String format) {
 
-        log.info("📊 [MCP TOOL] comparePrices called with: '{}'", productName);
+        log.info("📊 [MCP TOOL] comparePrices called with: '{}' (maxTokens: {}, format: {})", productName, maxTokens,
+                format);
         long start = System.currentTimeMillis();
 
-        Map<String, List<Product>> allResults = mockDataProvider.searchAllPlatforms(productName);
+        // One snapshot for the search, the price columns and the ordinals
+        CatalogSnapshot snapshot = catalogStore.snapshot();
+        // Keyed by the raw name, which the header echoes back
+        String key = ToolOutputHelper.outputKey(productName, maxTokens, format);
+        String cached = renderedOutputCache.get("comparePrices", key, snapshot.version());
+        if (cached != null) {
+            log.info("   → Served rendered comparison for catalog v{}", snapshot.version());
+            return cached;
+        }
+        PlatformResults results = platformFanOut.searchAllPlatforms(snapshot, productName);
 
-        int totalProducts = allResults.values().stream().mapToInt(List::size).sum();
         log.info("   → Searching across 4 platforms...");
-        allResults.forEach((platform, products) -> log.info("     · {} → {} products", platform, products.size()));
-        log.info("   → Total: {} products found in {}ms", totalProducts, System.currentTimeMillis() - start);
+        results.byPlatform().forEach((platform, products) -> log.info("     · {} → {} products", platform,
+                products.size()));
+        log.info("   → Total: {} products found in {}ms", results.totalProducts(), System.currentTimeMillis() - start);
 
         List<Product> allProducts = new ArrayList<>();
-        allResults.values().forEach(allProducts::addAll);
+        results.byPlatform().values().forEach(allProducts::addAll);
 
+        if (allProducts.isEmpty() && ToolOutputHelper.isJson(format))
+            return comparisonJson(productName, results, snapshot, null, new int[0], new Product[0]);
         if (allProducts.isEmpty())
-            return "No Samsung Galaxy phones found for '" + productName + "'.";
+            return "No Samsung Galaxy phones found for '" + productName + "'." + partialNote(results);
 
-        // Group by model + storage
-        Map<String, List<Product>> grouped = new LinkedHashMap<>();
-        for (Product p : allProducts) {
-            String key = p.getName() + " " + p.getStorage();
-            grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(p);
+        // Group by model + storage by walking each matched variant's listings in the
+        // catalog's precomputed price order; nothing is sorted per call
+        PriceColumns columns = snapshot.priceColumns();
+        int n = allProducts.size();
+        BitSet matched = new BitSet(snapshot.size());
+        int[] variants = new int[n];
+        for (int i = 0; i < n; i++) {
+            int ordinal = snapshot.ordinalOf(allProducts.get(i).getId());
+            matched.set(ordinal);
+            variants[i] = columns.variantGroup(ordinal);
+        }
+        Arrays.sort(variants);
+        int[] sorted = new int[n];
+        Product[] rows = new Product[n];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            if (i > 0 && variants[i] == variants[i - 1])
+                continue;
+            for (int rank = 0; rank < columns.variantSize(variants[i]); rank++) {
+                int ordinal = columns.variantListing(variants[i], rank);
+                if (matched.get(ordinal)) {
+                    sorted[k] = ordinal;
+                    rows[k++] = snapshot.get(ordinal);
+                }
+            }
         }
 
-        log.info("   → Grouped into {} model+storage combinations:", grouped.size());
-        grouped.forEach((key, variants) -> {
-            variants.sort(Comparator.comparingDouble(Product::getPrice));
-            Product best = variants.get(0);
-            Product worst = variants.get(variants.size() - 1);
-            double spread = worst.getPrice() - best.getPrice();
-            log.info("     · {} — {} variants, cheapest: {} on {}, spread: ₹{}",
-                    key, variants.size(), best.getFormattedPrice(), best.getPlatform(),
-                    String.format("%,.0f", spread));
-        });
+        int groups = 0;
+        for (int from = 0, to; from < n; from = to) {
+            to = groupEnd(columns, sorted, from);
+            log.info("     · {} — {} variants, cheapest: {} on {}, spread: {}",
+                    columns.variantLabel(columns.variantGroup(sorted[from])), to - from,
+                    InrFormat.format(columns.price(sorted[from])), rows[from].getPlatform(),
+                    InrFormat.format(spread(columns, sorted, from, to)));
+            groups++;
+        }
+        log.info("   → Grouped into {} model+storage combinations", groups);
 
-        StringBuilder sb = new StringBuilder();
+        if (ToolOutputHelper.isJson(format)) {
+            String output = comparisonJson(productName, results, snapshot, columns, sorted, rows);
+            if (!results.isPartial())
+                renderedOutputCache.put("comparePrices", key, snapshot.version(), output);
+            log.info("✅ [MCP TOOL] comparePrices complete — JSON, {} chars", output.length());
+            return output;
+        }
+
+        if (ToolOutputHelper.isBudgeted(maxTokens)) {
+            boolean[] best = new boolean[n];
+            for (int from = 0, to; from < n; from = to) {
+                to = groupEnd(columns, sorted, from);
+                best[from] = true;
+            }
+            String output = ToolOutputHelper.formatCompact("📊 PRICE COMPARISON: '" + productName + "'"
+                    + partialNote(results).stripTrailing(), Arrays.asList(rows), best, maxTokens);
+            if (!results.isPartial())
+                renderedOutputCache.put("comparePrices", key, snapshot.version(), output);
+            log.info("✅ [MCP TOOL] comparePrices complete — compact, ~{} tokens",
+                    ToolOutputHelper.estimateTokens(output));
+            return output;
+        }
+
+        StringBuilder sb = new StringBuilder(512 + n * CHARS_PER_LISTING);
         sb.append("📊 4-PLATFORM PRICE COMPARISON: '").append(productName).append("'\n");
-        sb.append("════════════════════════════════════════════════════════════════\n\n");
+        sb.append("════════════════════════════════════════════════════════════════\n");
+        sb.append(partialNote(results)).append("\n");
 
-        for (var entry : grouped.entrySet()) {
-            List<Product> variants = entry.getValue();
-            variants.sort(Comparator.comparingDouble(Product::getPrice));
-            Product best = variants.get(0);
+        for (int from = 0, to; from < n; from = to) {
+            to = groupEnd(columns, sorted, from);
+            Product best = rows[from];
 
-            sb.append("📱 ").append(entry.getKey())
+            sb.append("📱 ").append(columns.variantLabel(columns.variantGroup(sorted[from])))
                     .append(" (").append(best.getRam()).append(" RAM)\n");
             sb.append("   ").append(best.getProcessor()).append("\n");
             sb.append("────────────────────────────────────────────────────────────────\n");
 
-            for (Product p : variants) {
-                String badge = p == best ? " 👑 BEST PRICE" : "";
+            for (int i = from; i < to; i++) {
+                Product p = rows[i];
+                String badge = i == from ? " 👑 BEST PRICE" : "";
                 sb.append("\n  🏪 ").append(p.getPlatform()).append(badge).append("\n");
                 sb.append("     💰 ").append(p.getFormattedPrice())
                         .append("  (MRP: ").append(p.getFormattedMrp())
@@ -87,9 +166,12 @@ public class PriceComparator {
                 }
                 sb.append("     🚚 Delivery: ").append(p.getDeliverySpeed())
                         .append(" → ").append(p.getDeliveryDate()).append("\n");
-                sb.append("        Charge: ")
-                        .append(p.getDeliveryCharge() == 0 ? "FREE" : String.format("₹%.0f", p.getDeliveryCharge()))
-                        .append(" | COD: ").append(p.isCodAvailable() ? "Yes" : "No")
+                sb.append("        Charge: ");
+                if (p.getDeliveryCharge() == 0)
+                    sb.append("FREE");
+                else
+                    InrFormat.append(sb, p.getDeliveryCharge());
+                sb.append(" | COD: ").append(p.isCodAvailable() ? "Yes" : "No")
                         .append(" | Via: ").append(p.getDeliveryPartner()).append("\n");
                 sb.append("     🛡️ Warranty: ").append(p.getWarranty()).append("\n");
                 sb.append("     ↩️ Returns:  ").append(p.getReturnPolicy()).append("\n");
@@ -97,12 +179,10 @@ public class PriceComparator {
                         .append(p.getReviewCount()).append(" reviews)\n");
             }
 
-            if (variants.size() > 1) {
-                double spread = variants.get(variants.size() - 1).getPrice() - best.getPrice();
-                if (spread > 0) {
-                    sb.append("\n  💡 Savings: ₹").append(String.format("%,.0f", spread))
-                            .append(" cheaper on ").append(best.getPlatform()).append("\n");
-                }
+            double spread = spread(columns, sorted, from, to);
+            if (to - from > 1 && spread > 0) {
+                InrFormat.append(sb.append("\n  💡 Savings: "), spread)
+                        .append(" cheaper on ").append(best.getPlatform()).append("\n");
             }
 
             sb.append("\n════════════════════════════════════════════════════════════════\n\n");
@@ -110,7 +190,242 @@ public class PriceComparator {
 
         sb.append("💡 To order, tell me the product ID and I'll complete the purchase.\n");
 
-        log.info("✅ [MCP TOOL] comparePrices complete — {} chars output", sb.length());
+        String output = sb.toString();
+        // Partial results depend on which platforms were slow this time
+        if (!results.isPartial())
+            renderedOutputCache.put("comparePrices", key, snapshot.version(), output);
+        log.info("✅ [MCP TOOL] comparePrices complete — {} chars output", output.length());
+        return output;
+    }
+
+    @Tool(description = "List the N cheapest offers for each Samsung Galaxy variant (model + storage) matching the query, across Amazon India, Flipkart, Samsung.com India, and Croma, cheapest first. Use it when the user only wants the best deals, not a full side-by-side comparison.")
+    public String cheapestForVariant(
+            @ToolParam(description = "The Samsung phone to look up, e.g., 'S24 Ultra 256GB', 'Galaxy S24', 'S23 FE'") String productName,
+            @ToolParam(description = "Optional number of offers per variant, default 3", required = false) Integer count,
+            @ToolParam(description = "Optional: skip out-of-stock offers, default true", required = false) Boolean inStockOnly,
+            @ToolParam(description = "Optional output format: 'text' (default) or 'json'", required = false) String format) {
+
+        int limit = count == null || count < 1 ? 3 : count;
+        boolean skipOutOfStock = inStockOnly == null || inStockOnly;
+        log.info("🏆 [MCP TOOL] cheapestForVariant called with: '{}' (count: {}, inStockOnly: {}, format: {})",
+                productName, limit, skipOutOfStock, format);
+
+        CatalogSnapshot snapshot = catalogStore.snapshot();
+        String key = ToolOutputHelper.outputKey(productName + "#" + limit + "#" + skipOutOfStock, null, format);
+        String cached = renderedOutputCache.get("cheapestForVariant", key, snapshot.version());
+        if (cached != null) {
+            log.info("   → Served rendered offers for catalog v{}", snapshot.version());
+            return cached;
+        }
+
+        // The query only picks the variants; their offers come from the price-ordered index
+        PriceColumns columns = snapshot.priceColumns();
+        SortedSet<Integer> variants = new TreeSet<>();
+        for (String platform : CatalogStore.PLATFORMS) {
+            for (Product p : snapshot.search(platform, productName))
+                variants.add(columns.variantGroup(snapshot.ordinalOf(p.getId())));
+        }
+
+        String output;
+        if (ToolOutputHelper.isJson(format)) {
+            output = JsonOutput.write(128 + variants.size() * limit * 640, json -> {
+                json.writeStartObject();
+                json.writeStringField("query", productName);
+                json.writeNumberField("catalogVersion", snapshot.version());
+                json.writeArrayFieldStart("variants");
+                for (int group : variants) {
+                    json.writeStartObject();
+                    json.writeStringField("variant", columns.variantLabel(group));
+                    JsonOutput.writeAmount(json, "bestPrice", columns.bestPrice(group));
+                    JsonOutput.writeAmount(json, "spread", columns.spread(group));
+                    json.writeArrayFieldStart("listings");
+                    for (int ordinal : cheapest(columns, group, limit, skipOutOfStock))
+                        JsonOutput.writeListing(json, snapshot.get(ordinal));
+                    json.writeEndArray();
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            });
+        } else if (variants.isEmpty()) {
+            return "No Samsung Galaxy phones found for '" + productName + "'.";
+        } else {
+            StringBuilder sb = new StringBuilder(128 + variants.size() * (96 + limit * 128));
+            sb.append("🏆 CHEAPEST OFFERS: '").append(productName).append("'\n");
+            sb.append("════════════════════════════════════════════════════════════════\n");
+            for (int group : variants) {
+                sb.append("\n📱 ").append(columns.variantLabel(group));
+                if (columns.variantSize(group) > 1)
+                    InrFormat.append(sb.append(" (spread "), columns.spread(group)).append(')');
+                sb.append('\n');
+                int[] offers = cheapest(columns, group, limit, skipOutOfStock);
+                if (offers.length == 0)
+                    sb.append("   No offers in stock right now\n");
+                for (int rank = 0; rank < offers.length; rank++) {
+                    Product p = snapshot.get(offers[rank]);
+                    sb.append("   ").append(rank + 1).append(". ").append(p.getId())
+                            .append(" · ").append(p.getPlatform())
+                            .append(" · ").append(p.getFormattedPrice())
+                            .append(" (").append(p.getDiscountPercent()).append("% off)")
+                            .append(" · ").append(p.getDeliverySpeed());
+                    if (p.isInStock())
+                        sb.append(" · ").append(p.getStockCount()).append(" in stock");
+                    else
+                        sb.append(" · out of stock");
+                    sb.append('\n');
+                }
+            }
+            sb.append("\n💡 To order, tell me the product ID and I'll complete the purchase.\n");
+            output = sb.toString();
+        }
+
+        renderedOutputCache.put("cheapestForVariant", key, snapshot.version(), output);
+        log.info("✅ [MCP TOOL] cheapestForVariant complete — {} variants, {} chars", variants.size(),
+                output.length());
+        return output;
+    }
+
+    @Tool(description = "Price history of one listing: lowest, highest and average price over the last N days, and where today's price sits in that range (percentile). Use it to answer 'is this a good time to buy?'. Takes a product ID from the search or comparison results.")
+    public String priceTrend(
+            @ToolParam(description = "The product ID, e.g., 'FK-S24U-256', 'AMZ-S24-128'") String productId,
+            @ToolParam(description = "Optional window in days, default 90", required = false) Integer days,
+            @ToolParam(description = "Optional output format: 'text' (default) or 'json'", required = false) String format) {
+
+        int window = days == null || days < 1 ? 90 : days;
+        log.info("📈 [MCP TOOL] priceTrend called with: '{}' (days: {}, format: {})", productId, window, format);
+        boolean json = ToolOutputHelper.isJson(format);
+
+        Product product = catalogStore.snapshot().getProductById(productId).orElse(null);
+        if (product == null) {
+            log.warn("   → ❌ Product NOT FOUND: '{}'", productId);
+            return json ? JsonOutput.error("Product not found with ID: " + productId)
+                    : "Product not found with ID: " + productId + ". Please check the product ID and try again.";
+        }
+        long now = Instant.now().getEpochSecond();
+        PriceTrend trend = priceHistory.trend(productId, now - window * 86_400L, now, product.getPrice());
+        if (trend == null) {
+            log.warn("   → No price history for '{}'", productId);
+            return json ? JsonOutput.error("No price history for " + productId + " in the last " + window + " days")
+                    : "No price history for " + productId + " in the last " + window + " days.";
+        }
+        log.info("   → {} points, min {}, max {}, percentile {}", trend.points(), InrFormat.format(trend.min()),
+                InrFormat.format(trend.max()), Math.round(trend.percentile()));
+
+        if (json) {
+            return JsonOutput.write(512, out -> {
+                out.writeStartObject();
+                out.writeStringField("productId", productId);
+                out.writeStringField("name", PriceColumns.variantLabel(product));
+                out.writeStringField("platform", product.getPlatform());
+                out.writeNumberField("days", window);
+                out.writeNumberField("points", trend.points());
+                JsonOutput.writeAmount(out, "current", trend.current());
+                JsonOutput.writeAmount(out, "min", trend.min());
+                out.writeStringField("minDate", TREND_DATE.format(Instant.ofEpochSecond(trend.minAt())));
+                JsonOutput.writeAmount(out, "max", trend.max());
+                out.writeStringField("maxDate", TREND_DATE.format(Instant.ofEpochSecond(trend.maxAt())));
+                JsonOutput.writeAmount(out, "average", Math.round(trend.average()));
+                out.writeNumberField("percentile", Math.round(trend.percentile()));
+                out.writeStringField("verdict", trend.verdict());
+                out.writeEndObject();
+            });
+        }
+
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("📈 PRICE TREND: ").append(PriceColumns.variantLabel(product))
+                .append(" on ").append(product.getPlatform()).append(" (").append(productId).append(")\n");
+        sb.append("════════════════════════════════════════════════════════════════\n");
+        sb.append("   Last ").append(window).append(" days · ").append(trend.points()).append(" price points\n\n");
+        InrFormat.append(sb.append("   💰 Now:      "), trend.current())
+                .append("  (").append(Math.round(trend.percentile())).append("th percentile)\n");
+        InrFormat.append(sb.append("   📉 Lowest:   "), trend.min())
+                .append(" on ").append(TREND_DATE.format(Instant.ofEpochSecond(trend.minAt()))).append("\n");
+        InrFormat.append(sb.append("   📈 Highest:  "), trend.max())
+                .append(" on ").append(TREND_DATE.format(Instant.ofEpochSecond(trend.maxAt()))).append("\n");
+        InrFormat.append(sb.append("   ➗ Average:  "), trend.average()).append("\n\n");
+        sb.append("💡 ").append(trend.verdict()).append("\n");
         return sb.toString();
     }
+
+    /**
+     * First {@code limit} ordinals of a variant in price order, optionally skipping
+     * listings with no stock.
+     */
+    private static int[] cheapest(PriceColumns columns, int group, int limit, boolean inStockOnly) {
+        int size = columns.variantSize(group);
+        int[] picked = new int[Math.min(limit, size)];
+        int k = 0;
+        for (int rank = 0; rank < size && k < picked.length; rank++) {
+            int ordinal = columns.variantListing(group, rank);
+            if (!inStockOnly || columns.stockCount(ordinal) > 0)
+                picked[k++] = ordinal;
+        }
+        return k == picked.length ? picked : Arrays.copyOf(picked, k);
+    }
+
+    /**
+     * Groups as {@code variant, ram, processor, bestPrice, bestPlatform, spread, listings[]},
+     * listings cheapest first.
+     */
+    private static String comparisonJson(String productName, PlatformResults results, CatalogSnapshot snapshot,
+            PriceColumns columns, int[] sorted, Product[] rows) {
+        int n = sorted.length;
+        return JsonOutput.write(256 + n * 640, json -> {
+            json.writeStartObject();
+            json.writeStringField("query", productName);
+            json.writeNumberField("catalogVersion", snapshot.version());
+            json.writeBooleanField("partial", results.isPartial());
+            if (results.isPartial()) {
+                json.writeArrayFieldStart("unavailablePlatforms");
+                for (String platform : results.timedOut())
+                    json.writeString(platform);
+                for (String platform : results.failed())
+                    json.writeString(platform);
+                json.writeEndArray();
+            }
+            json.writeArrayFieldStart("groups");
+            for (int from = 0, to; from < n; from = to) {
+                to = groupEnd(columns, sorted, from);
+                Product best = rows[from];
+                json.writeStartObject();
+                json.writeStringField("variant", columns.variantLabel(columns.variantGroup(sorted[from])));
+                json.writeStringField("ram", best.getRam());
+                json.writeStringField("processor", best.getProcessor());
+                JsonOutput.writeAmount(json, "bestPrice", best.getPrice());
+                json.writeStringField("bestPlatform", best.getPlatform());
+                JsonOutput.writeAmount(json, "spread", spread(columns, sorted, from, to));
+                json.writeArrayFieldStart("listings");
+                for (int i = from; i < to; i++)
+                    JsonOutput.writeListing(json, rows[i]);
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        });
+    }
+
+    private static String partialNote(PlatformResults results) {
+        if (!results.isPartial())
+            return "";
+        List<String> missing = new ArrayList<>(results.timedOut());
+        missing.addAll(results.failed());
+        return "\n⚠️ Partial results — no response in time from: " + String.join(", ", missing) + "\n";
+    }
+
+    /**
+     * Dearest minus cheapest of a price-ordered group. Equals the variant's
+     * precomputed spread whenever the query matched all of its listings.
+     */
+    private static double spread(PriceColumns columns, int[] sorted, int from, int to) {
+        return columns.price(sorted[to - 1]) - columns.price(sorted[from]);
+    }
+
+    private static int groupEnd(PriceColumns columns, int[] sorted, int from) {
+        int group = columns.variantGroup(sorted[from]);
+        int to = from + 1;
+        while (to < sorted.length && columns.variantGroup(sorted[to]) == group)
+            to++;
+        return to;
+    }
 }
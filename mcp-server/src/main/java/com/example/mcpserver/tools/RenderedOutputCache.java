@@ -0,0 +1,34 @@
+package com.example.mcpserver.tools;
+
+import com.example.mcpserver.catalog.TinyLfuCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rendered tool output for the current catalog version, keyed by tool and
+ * normalized query (or product id). Text only changes when the listings do, so
+ * output from an older version is a miss and is dropped when next looked up.
+ *
+ * Bounded with the same W-TinyLFU admission as the search result cache: when
+ * full, a new rendering only displaces an entry that is asked for less often.
+ */
+@Component
+public class RenderedOutputCache {
+
+    private final TinyLfuCache<String> rendered;
+
+    public RenderedOutputCache(@Value("${shopping.tools.rendered-cache.max-entries:2000}") int maxEntries) {
+        this.rendered = new TinyLfuCache<>(maxEntries);
+    }
+
+    /**
+     * Returns the output rendered for this version, or null if there is none.
+     */
+    public String get(String tool, String key, long version) {
+        return rendered.get(tool + '\u0000' + key, version);
+    }
+
+    public void put(String tool, String key, long version, String output) {
+        rendered.put(tool + '\u0000' + key, version, output);
+    }
+}
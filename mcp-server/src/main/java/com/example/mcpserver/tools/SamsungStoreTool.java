@@ -1,7 +1,9 @@
 package com.example.mcpserver.tools;
 
-import com.example.mcpserver.mock.MockDataProvider;
+import com.example.mcpserver.catalog.CatalogSnapshot;
+import com.example.mcpserver.catalog.CatalogStore;
 import com.example.mcpserver.model.Product;
+import com.example.mcpserver.search.ProductIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.tool.annotation.Tool;
@@ -14,20 +16,33 @@ import java.util.List;
 public class SamsungStoreTool {
 
     private static final Logger log = LoggerFactory.getLogger(SamsungStoreTool.class);
-    private final MockDataProvider mockDataProvider;
+    private final CatalogStore catalogStore;
+    private final RenderedOutputCache renderedOutputCache;
 
-    public SamsungStoreTool(MockDataProvider mockDataProvider) {
-        this.mockDataProvider = mockDataProvider;
+    public SamsungStoreTool(CatalogStore catalogStore, RenderedOutputCache renderedOutputCache) {
+        this.catalogStore = catalogStore;
+        this.renderedOutputCache = renderedOutputCache;
     }
 
     @Tool(description = "Search for Samsung Galaxy S series phones on Samsung.com India (official Samsung store). Returns full specs, price with MRP/discount, exclusive colors, free Galaxy Buds/Fit/Care+ freebies, Samsung Finance+ EMI, delivery via BlueDart, 15-day return policy, and SmartSwitch trade-in value.")
     public String searchSamsungStore(
-            @ToolParam(description = "The Samsung phone to search for, e.g., 'S24 Ultra', 'Galaxy S24', 'S23 FE', 'samsung'") String productName) {
+            @ToolParam(description = "The Samsung phone to search for, e.g., 'S24 Ultra', 'Galaxy S24', 'S23 FE', 'samsung'") String productName,
+            @ToolParam(description = "Optional token budget for the reply, e.g. 300. Omit for the full listing; when set, returns a compact table trimmed to fit, most important columns first.", required = false) Integer maxTokens,
+            @ToolParam(description = "Optional output format: 'text' (default) or 'json' for compact machine-readable JSON. maxTokens applies to text only.", required = false) String format) {
 
-        log.info("🏢 [MCP TOOL] searchSamsungStore called with: '{}'", productName);
+        log.info("🏢 [MCP TOOL] searchSamsungStore called with: '{}' (maxTokens: {}, format: {})", productName, maxTokens,
+                format);
         long start = System.currentTimeMillis();
 
-        List<Product> products = mockDataProvider.searchSamsungStore(productName);
+        CatalogSnapshot snapshot = catalogStore.snapshot();
+        String key = ToolOutputHelper.outputKey(ProductIndex.normalize(productName), maxTokens, format);
+        String cached = renderedOutputCache.get("searchSamsungStore", key, snapshot.version());
+        if (cached != null) {
+            log.info("   → Served rendered output for catalog v{}", snapshot.version());
+            return cached;
+        }
+
+        List<Product> products = snapshot.search(CatalogStore.SAMSUNG_STORE, productName);
 
         log.info("   → Found {} products on Samsung.com India in {}ms",
                 products.size(), System.currentTimeMillis() - start);
@@ -35,8 +50,18 @@ public class SamsungStoreTool {
                 p.getId(), p.getColor(), p.getStorage(), p.getFormattedPrice(), p.getFreebie()));
 
         if (products.isEmpty())
-            return "No Samsung Galaxy phones found on Samsung.com India for: " + productName;
-        return ToolOutputHelper.formatResults("🏢 SAMSUNG.COM INDIA (Official Store) — Samsung Galaxy S Series",
-                products);
+            return ToolOutputHelper.isJson(format)
+                    ? JsonOutput.products(CatalogStore.SAMSUNG_STORE, products)
+                    : "No Samsung Galaxy phones found on Samsung.com India for: " + productName;
+        String header = "🏢 SAMSUNG.COM INDIA (Official Store) — Samsung Galaxy S Series";
+        String output;
+        if (ToolOutputHelper.isJson(format))
+            output = JsonOutput.products(CatalogStore.SAMSUNG_STORE, products);
+        else if (ToolOutputHelper.isBudgeted(maxTokens))
+            output = ToolOutputHelper.formatCompact(header, products, null, maxTokens);
+        else
+            output = ToolOutputHelper.formatResults(header, products);
+        renderedOutputCache.put("searchSamsungStore", key, snapshot.version(), output);
+        return output;
     }
 }
@@ -1,19 +1,31 @@
 package com.example.mcpserver.tools;
 
+import com.example.mcpserver.model.InrFormat;
 import com.example.mcpserver.model.Product;
 
 import java.util.List;
 
 /**
  * Shared output formatting for all platform tools.
+ *
+ * Every tool also has a compact mode for callers that pass a token budget: a
+ * table whose columns are dropped, least decision-relevant first, until the
+ * output fits. Price and product ID are always kept.
  */
 public class ToolOutputHelper {
 
+    // A rendered listing is ~1.2 KB; sizing up front avoids repeated array copies
+    private static final int CHARS_PER_PRODUCT = 1280;
+
+    // Table columns, most decision-relevant first: ID+price, model, discount, delivery, trust, offers
+    private static final int MAX_COLUMNS = 6;
+    private static final int OFFER_CHARS = 60;
+
     public static String formatResults(String platformHeader, List<Product> products) {
         if (products.isEmpty())
             return "No Samsung Galaxy phones found.";
 
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(256 + products.size() * CHARS_PER_PRODUCT);
         sb.append(platformHeader).append("\n");
         sb.append("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n\n");
 
@@ -49,9 +61,12 @@ public class ToolOutputHelper {
             sb.append("   🚚 DELIVERY:\n");
             sb.append("      Speed:    ").append(p.getDeliverySpeed()).append("\n");
             sb.append("      Expected: ").append(p.getDeliveryDate()).append("\n");
-            sb.append("      Charge:   ")
-                    .append(p.getDeliveryCharge() == 0 ? "FREE" : String.format("₹%.0f", p.getDeliveryCharge()))
-                    .append("\n");
+            sb.append("      Charge:   ");
+            if (p.getDeliveryCharge() == 0)
+                sb.append("FREE");
+            else
+                InrFormat.append(sb, p.getDeliveryCharge());
+            sb.append("\n");
             sb.append("      COD:      ").append(p.isCodAvailable() ? "✅ Available" : "❌ Not Available").append("\n");
             sb.append("      Partner:  ").append(p.getDeliveryPartner()).append("\n\n");
 
@@ -70,4 +85,174 @@ public class ToolOutputHelper {
         sb.append("💡 To buy, tell me the product ID (e.g., '").append(products.get(0).getId()).append("')\n");
         return sb.toString();
     }
+
+    /**
+     * Rough LLM token count: ~4 ASCII characters per token, and one token for each
+     * other character (₹, emoji, box drawing), which tokenizers rarely merge.
+     */
+    public static int estimateTokens(CharSequence text) {
+        int ascii = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < 128)
+                ascii++;
+            else if (!Character.isLowSurrogate(text.charAt(i)))
+                other++;
+        }
+        return (ascii + 3) / 4 + other;
+    }
+
+    /**
+     * True when the caller asked for output within a token budget.
+     */
+    public static boolean isBudgeted(Integer maxTokens) {
+        return maxTokens != null && maxTokens > 0;
+    }
+
+    /**
+     * True when the caller asked for the structured JSON mode instead of text.
+     */
+    public static boolean isJson(String format) {
+        return format != null && format.trim().equalsIgnoreCase("json");
+    }
+
+    /**
+     * Rendered-output cache key for one output variant of a query: JSON, a
+     * token-budgeted table, or the full text.
+     */
+    public static String outputKey(String query, Integer maxTokens, String format) {
+        if (isJson(format))
+            return query + "#json";
+        return isBudgeted(maxTokens) ? query + "#" + maxTokens : query;
+    }
+
+    /**
+     * Compact table of listings fitted to {@code maxTokens}. For comparisons,
+     * {@code best} marks the first (cheapest) row of each model+storage group:
+     * rows get a platform column and the model moves to a line above each group.
+     * Pass null for single-platform results.
+     */
+    public static String formatCompact(String header, List<Product> products, boolean[] best, int maxTokens) {
+        for (int columns = MAX_COLUMNS; columns > 1; columns--) {
+            String table = compactTable(header, products, best, columns, products.size());
+            if (estimateTokens(table) <= maxTokens)
+                return table;
+        }
+        // Even ID and price for every row is over budget: keep the leading rows that fit
+        int lo = 1;
+        int hi = products.size();
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (estimateTokens(compactTable(header, products, best, 1, mid)) <= maxTokens)
+                lo = mid;
+            else
+                hi = mid - 1;
+        }
+        return compactTable(header, products, best, 1, lo);
+    }
+
+    private static String compactTable(String header, List<Product> products, boolean[] best, int columns,
+            int rows) {
+        StringBuilder sb = new StringBuilder(128 + rows * (24 + columns * 24));
+        sb.append(header).append('\n');
+        sb.append("ID");
+        if (best != null)
+            sb.append(" | Platform");
+        sb.append(" | Price");
+        if (columns >= 2 && best == null)
+            sb.append(" | Model");
+        if (columns >= 3)
+            sb.append(" | Off");
+        if (columns >= 4)
+            sb.append(" | Delivery");
+        if (columns >= 5)
+            sb.append(" | Rating/Stock");
+        if (columns >= 6)
+            sb.append(" | Offers");
+        sb.append('\n');
+
+        for (int i = 0; i < rows; i++) {
+            Product p = products.get(i);
+            if (best != null && best[i])
+                sb.append("▸ ").append(shortName(p)).append(' ').append(p.getStorage()).append('\n');
+            sb.append(p.getId());
+            if (best != null)
+                sb.append(" | ").append(p.getPlatform());
+            sb.append(" | ").append(p.getFormattedPrice());
+            if (best != null && best[i])
+                sb.append(" 👑");
+            if (columns >= 2 && best == null)
+                sb.append(" | ").append(shortName(p)).append(' ').append(p.getStorage());
+            if (columns >= 3)
+                sb.append(" | ").append(p.getDiscountPercent()).append('%');
+            if (columns >= 4)
+                sb.append(" | ").append(p.getDeliverySpeed()).append(p.isCodAvailable() ? ", COD" : "");
+            if (columns >= 5) {
+                sb.append(" | ").append(p.getRating()).append("★ ");
+                if (p.isInStock())
+                    sb.append(p.getStockCount()).append(" left");
+                else
+                    sb.append("out of stock");
+            }
+            if (columns >= 6)
+                sb.append(" | ").append(clip(p.getOffers(), OFFER_CHARS));
+            sb.append('\n');
+        }
+        if (rows < products.size())
+            sb.append("… ").append(products.size() - rows).append(" more — raise maxTokens to see them\n");
+        return sb.toString();
+    }
+
+    /**
+     * Product card trimmed to {@code maxTokens}: lines are added in order of
+     * purchase relevance until the next one would not fit.
+     */
+    public static String formatCompactCard(Product p, int maxTokens) {
+        StringBuilder delivery = new StringBuilder(64).append(p.getDeliverySpeed()).append(" (")
+                .append(p.getDeliveryDate()).append("), ");
+        if (p.getDeliveryCharge() == 0)
+            delivery.append("free");
+        else
+            InrFormat.append(delivery, p.getDeliveryCharge());
+        delivery.append(p.isCodAvailable() ? ", COD" : ", no COD");
+
+        String[] lines = {
+                p.getId() + " | " + shortName(p) + " " + p.getStorage() + "/" + p.getRam() + ", " + p.getColor(),
+                "Price: " + p.getFormattedPrice() + " (MRP " + p.getFormattedMrp() + ", "
+                        + p.getDiscountPercent() + "% off) on " + p.getPlatform(),
+                "Stock: " + (p.isInStock() ? p.getStockCount() + " units" : "Out of Stock"),
+                "Delivery: " + delivery,
+                "Rating: " + p.getRating() + "★ (" + p.getReviewCount() + " reviews), seller " + p.getSeller(),
+                "Offers: " + p.getOffers(),
+                "EMI: " + p.getEmiOption(),
+                "Exchange: " + p.getExchangeValue(),
+                "Freebie: " + p.getFreebie(),
+                "Warranty: " + p.getWarranty(),
+                "Returns: " + p.getReturnPolicy(),
+                "Specs: " + p.getProcessor() + "; " + p.getDisplay() + "; " + p.getCamera() + "; "
+                        + p.getBattery() + "; " + p.getOs()
+        };
+
+        StringBuilder sb = new StringBuilder(512);
+        int used = 0;
+        for (String line : lines) {
+            int cost = estimateTokens(line) + 1;
+            if (used > 0 && used + cost > maxTokens)
+                break;
+            sb.append(line).append('\n');
+            used += cost;
+        }
+        return sb.toString();
+    }
+
+    private static String shortName(Product p) {
+        String name = p.getName();
+        return name.startsWith("Samsung Galaxy ") ? name.substring("Samsung Galaxy ".length()) : name;
+    }
+
+    private static String clip(String text, int max) {
+        if (text == null)
+            return "-";
+        return text.length() <= max ? text : text.substring(0, max - 1) + "…";
+    }
 }
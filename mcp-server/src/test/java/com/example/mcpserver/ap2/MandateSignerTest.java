@@ -0,0 +1,56 @@
+package com.example.mcpserver.ap2;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MandateSignerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void mandatesVerifyOnlyUnderTheSignerThatMadeThem() {
+        MandateSigner signer = new MandateSigner(key(1), false, dir.toString());
+        MandateSigner other = new MandateSigner(key(2), false, dir.toString());
+        IntentMandate intent = IntentMandate.create("IM-1", "Buy an S24", 80_000, "Flipkart", signer);
+
+        assertTrue(signer.verify(intent.signingPayload(), intent.signature()));
+        // Building a second signer no longer re-keys the first one's records
+        assertFalse(other.verify(intent.signingPayload(), intent.signature()));
+        assertFalse(signer.verify(intent.signingPayload() + "x", intent.signature()));
+        assertFalse(signer.verify(intent.signingPayload(), "not base64!"));
+    }
+
+    @Test
+    void generatedKeyIsKeptAcrossRestarts() {
+        String signature = new MandateSigner("", true, dir.toString()).sign("payload");
+        assertEquals(signature, new MandateSigner("", true, dir.toString()).sign("payload"));
+    }
+
+    @Test
+    void payloadFieldsCannotRunTogether() {
+        assertFalse(MandateSigner.payload("a|b", "c").equals(MandateSigner.payload("a", "b|c")));
+        assertFalse(MandateSigner.payload("ab", "c").equals(MandateSigner.payload("a", "bc")));
+    }
+
+    @Test
+    void rejectsShortKeys() {
+        String shortKey = Base64.getEncoder().encodeToString(new byte[16]);
+        assertThrows(IllegalArgumentException.class, () -> new MandateSigner(shortKey, false, dir.toString()));
+    }
+
+    private static String key(int seed) {
+        byte[] key = new byte[32];
+        for (int i = 0; i < key.length; i++)
+            key[i] = (byte) (seed * 31 + i);
+        return Base64.getEncoder().encodeToString(key);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.mcpserver.ap2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Timings for the settlement pipeline. Wall-clock numbers only, so these run
+ * with {@code -Pbenchmark} and never in the default test run.
+ */
+@Tag("benchmark")
+class PaymentGatewayBenchmarkTest {
+
+    private static final int CALLERS = 32;
+    private static final int PAYMENTS_PER_CALLER = 10;
+    private static final long LATENCY_MS = 50;
+
+    private final List<PaymentGateway> gateways = new ArrayList<>();
+
+    @AfterEach
+    void close() {
+        gateways.forEach(PaymentGateway::close);
+    }
+
+    /**
+     * Settling inside the call holds the caller for the whole gateway round trip;
+     * handing it to the gateway frees the caller at once. Prints both timings.
+     */
+    @Test
+    void syncVersusAsyncSettlement() throws InterruptedException {
+        long sync = callerMillis(true);
+        long async = callerMillis(false);
+        System.out.printf("settlement, %d callers x %d payments at %dms: sync callers busy %dms, async %dms%n",
+                CALLERS, PAYMENTS_PER_CALLER, LATENCY_MS, sync, async);
+    }
+
+    /**
+     * Load test for the virtual-thread mode: the same burst of charges on 64
+     * platform workers and on virtual threads, then 20000 charges against the
+     * default 10000 virtual workers. Prints the timings.
+     */
+    @Test
+    void platformVersusVirtualWorkers() throws InterruptedException {
+        long platform = settleMillis(track(new PaymentGateway(50, 0, 0, 64, 2_000, 10_000, false)), 2_000);
+        long virtual = settleMillis(track(new PaymentGateway(50, 0, 0, 64, 2_000, 10_000, true)), 2_000);
+        long tenThousand = settleMillis(track(new PaymentGateway(200, 0, 0, 64, 10_000, 10_000, true)), 20_000);
+        System.out.printf("gateway load: 2000 charges at 50ms: platform x64 %dms, virtual %dms; "
+                + "20000 at 200ms on 10000 virtual workers %dms%n", platform, virtual, tenThousand);
+    }
+
+    /**
+     * Longest time any caller spent making its payments; in sync mode each caller
+     * waits for every outcome before making the next payment.
+     */
+    private long callerMillis(boolean waitForOutcome) throws InterruptedException {
+        PaymentGateway gateway = track(new PaymentGateway(LATENCY_MS, 0, 0, 64, CALLERS * PAYMENTS_PER_CALLER,
+                1_000, false));
+        CountDownLatch allSettled = new CountDownLatch(CALLERS * PAYMENTS_PER_CALLER);
+        long[] busy = new long[CALLERS];
+        Thread[] callers = new Thread[CALLERS];
+        for (int c = 0; c < CALLERS; c++) {
+            int caller = c;
+            callers[c] = new Thread(() -> {
+                long start = System.nanoTime();
+                for (int i = 0; i < PAYMENTS_PER_CALLER; i++) {
+                    CountDownLatch outcome = new CountDownLatch(1);
+                    gateway.submit("TXN-" + caller + "-" + i, 1_000, reason -> {
+                        outcome.countDown();
+                        allSettled.countDown();
+                    });
+                    if (waitForOutcome) {
+                        try {
+                            outcome.await();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+                busy[caller] = (System.nanoTime() - start) / 1_000_000;
+            });
+            callers[c].start();
+        }
+        for (Thread caller : callers)
+            caller.join();
+        assertTrue(allSettled.await(30, TimeUnit.SECONDS));
+        long longest = 0;
+        for (long millis : busy)
+            longest = Math.max(longest, millis);
+        return longest;
+    }
+
+    private long settleMillis(PaymentGateway gateway, int charges) throws InterruptedException {
+        CountDownLatch settled = new CountDownLatch(charges);
+        long start = System.nanoTime();
+        for (int i = 0; i < charges; i++)
+            assertTrue(gateway.submit("TXN-" + i, 1_000, reason -> settled.countDown()));
+        assertTrue(settled.await(60, TimeUnit.SECONDS));
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private PaymentGateway track(PaymentGateway gateway) {
+        gateways.add(gateway);
+        return gateway;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.mcpserver.ap2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentGatewayTest {
+
+    private final List<PaymentGateway> gateways = new ArrayList<>();
+
+    @AfterEach
+    void close() {
+        gateways.forEach(PaymentGateway::close);
+    }
+
+    @Test
+    void defaultsSettleAtOnceAndApproveEverything() throws InterruptedException {
+        PaymentGateway gateway = track(new PaymentGateway(0, 0, 0, 64, 100, 1_000, false));
+        CountDownLatch settled = new CountDownLatch(100);
+        AtomicInteger declined = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(gateway.submit("TXN-" + i, 1_000, reason -> {
+                if (reason != null)
+                    declined.incrementAndGet();
+                settled.countDown();
+            }));
+        }
+        assertTrue(settled.await(5, TimeUnit.SECONDS));
+        assertEquals(0, declined.get());
+    }
+
+    @Test
+    void virtualWorkersCapChargesInFlightAndFailFastPastTheQueue() throws InterruptedException {
+        PaymentGateway gateway = track(new PaymentGateway(1_000, 0, 0, 64, 50, 100, true));
+        CountDownLatch started = new CountDownLatch(100);
+        AtomicInteger entered = new AtomicInteger();
+        gateway.onChargeStart(() -> {
+            entered.incrementAndGet();
+            started.countDown();
+        });
+        CountDownLatch settled = new CountDownLatch(150);
+        int accepted = 0;
+        for (int i = 0; i < 200; i++) {
+            if (gateway.submit("TXN-" + i, 1_000, reason -> settled.countDown()))
+                accepted++;
+        }
+        assertEquals(150, accepted);
+        assertEquals(50, gateway.stats().rejected());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // The first wave is still charging, so the 50 queued charges wait for a permit
+        assertEquals(100, entered.get());
+        assertEquals(100, gateway.stats().active());
+        assertEquals(50, gateway.stats().queued());
+        assertTrue(settled.await(10, TimeUnit.SECONDS));
+        assertEquals(150, entered.get());
+    }
+
+    private PaymentGateway track(PaymentGateway gateway) {
+        gateways.add(gateway);
+        return gateway;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.mcpserver.ap2;
+
+import com.example.mcpserver.catalog.InMemoryCatalogStore;
+import com.example.mcpserver.catalog.SearchResultCache;
+import com.example.mcpserver.events.EventBus;
+import com.example.mcpserver.id.IdGenerator;
+import com.example.mcpserver.inventory.InventoryLedger;
+import com.example.mcpserver.mock.MockDataProvider;
+import com.example.mcpserver.order.OrderStore;
+import com.example.mcpserver.store.TimingWheel;
+import com.example.mcpserver.store.WriteAheadLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentServiceTest {
+
+    private static final String LISTING = "FK-S24-256";
+
+    @TempDir
+    Path dir;
+
+    private final TimingWheel wheel = new TimingWheel(10);
+    private final IdGenerator ids = new IdGenerator(0);
+    private final InMemoryCatalogStore catalog = new InMemoryCatalogStore(new MockDataProvider(),
+            new SearchResultCache(100));
+    private final List<PaymentGateway> gateways = new ArrayList<>();
+    private final List<WriteAheadLog> logs = new ArrayList<>();
+
+    @AfterEach
+    void close() {
+        gateways.forEach(PaymentGateway::close);
+        logs.forEach(WriteAheadLog::close);
+    }
+
+    @Test
+    void concurrentAndLateDuplicatesGetTheFirstTransaction() throws Exception {
+        PaymentGateway gateway = gateway(new PaymentGateway(200, 0, 0, 4, 16, 16, false));
+        OrderStore orders = new OrderStore(ids);
+        PaymentService payments = service(orders, gateway, 100, wal());
+        IntentMandate intent = payments.createIntentMandate("S24 for Amma", 1e9, null);
+        CartMandate cart = payments.createCartMandate(intent.mandateId(),
+                List.of(new PaymentService.CartLine(LISTING, 1)));
+
+        int callers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        List<Future<PaymentResult>> calls = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            calls.add(pool.submit(() -> {
+                start.await();
+                return payments.processPayment(cart.mandateId(), "UPI", "Asha", "Pune");
+            }));
+        }
+        start.countDown();
+        Set<String> transactions = new HashSet<>();
+        for (Future<PaymentResult> call : calls)
+            transactions.add(call.get(10, TimeUnit.SECONDS).transactionId());
+        pool.shutdown();
+        assertEquals(1, transactions.size());
+        String transactionId = transactions.iterator().next();
+
+        awaitSettled(payments, transactionId);
+        PaymentResult late = payments.processPayment(cart.mandateId(), "CREDIT_CARD", "Asha", "Pune");
+        assertEquals(transactionId, late.transactionId());
+        assertEquals(PaymentResult.COMPLETED, late.status());
+        assertEquals(1, gateway.stats().accepted());
+        assertEquals(1, orders.size());
+        assertEquals(callers, payments.storeStats().duplicatesCoalesced()
+                + payments.storeStats().duplicatesReplayed());
+    }
+
+    @Test
+    void retryOfAPendingCartEvictedFromTheHotStoreIsNotChargedAgain() {
+        // One charge in flight at a time, no queue: every later charge is turned away
+        PaymentGateway gateway = gateway(new PaymentGateway(60_000, 0, 0, 64, 0, 1, true));
+        PaymentService payments = service(gateway, 3);
+        IntentMandate intent = payments.createIntentMandate("S24 for Amma", 1e9, null);
+        CartMandate cart = payments.createCartMandate(intent.mandateId(),
+                List.of(new PaymentService.CartLine(LISTING, 1)));
+        PaymentResult first = payments.processPayment(cart.mandateId(), "UPI", "Asha", "Pune");
+        assertEquals(PaymentResult.PENDING, first.status());
+
+        // Declined attempts on another cart push the pending receipt out of the 3-entry store
+        CartMandate other = payments.createCartMandate(intent.mandateId(),
+                List.of(new PaymentService.CartLine(LISTING, 1)));
+        for (int i = 0; i < 3; i++)
+            assertTrue(payments.processPayment(other.mandateId(), "UPI", "Asha", "Pune").status()
+                    .startsWith("FAILED"));
+        assertTrue(payments.storeStats().transactions().evicted() > 0);
+
+        PaymentResult retry = payments.processPayment(cart.mandateId(), "UPI", "Asha", "Pune");
+        assertEquals(first.transactionId(), retry.transactionId());
+        assertEquals(PaymentResult.PENDING, retry.status());
+        assertEquals(PaymentResult.PENDING,
+                payments.getTransaction(first.transactionId()).orElseThrow().status());
+        assertEquals(1, gateway.stats().accepted());
+    }
+
+    @Test
+    void declineLoggedBeforeAStalePendingRecordIsNotResubmitted() throws InterruptedException {
+        WriteAheadLog wal = wal();
+        PaymentGateway declining = gateway(new PaymentGateway(0, 0, 1.0, 4, 16, 16, false));
+        PaymentService payments = service(new OrderStore(ids), declining, 100, wal);
+        IntentMandate intent = payments.createIntentMandate("S24", 1e9, null);
+        CartMandate cart = payments.createCartMandate(intent.mandateId(),
+                List.of(new PaymentService.CartLine(LISTING, 1)));
+        PaymentResult pending = payments.processPayment(cart.mandateId(), "UPI", "Asha", "Pune");
+        awaitSettled(payments, pending.transactionId());
+
+        // What a checkpoint racing the decline used to write: the decline, then the stale pending record
+        wal.sync(wal.append((byte) 5, RecordCodec.chain(intent, cart, pending)));
+        wal.close();
+
+        PaymentGateway approving = gateway(new PaymentGateway(0, 0, 0, 4, 16, 16, false));
+        PaymentService recovered = service(new OrderStore(ids), approving, 100, wal());
+        assertTrue(recovered.getTransaction(pending.transactionId()).orElseThrow().status().startsWith("FAILED"));
+        assertEquals(0, approving.stats().accepted());
+
+        // The cart is free again, so paying it is a new charge, not a replay
+        PaymentResult retry = recovered.processPayment(cart.mandateId(), "UPI", "Asha", "Pune");
+        assertNotNull(retry.transactionId());
+        assertTrue(!pending.transactionId().equals(retry.transactionId()));
+    }
+
+    private static void awaitSettled(PaymentService payments, String transactionId) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            if (!payments.getTransaction(transactionId).orElseThrow().isPending())
+                return;
+            Thread.sleep(10);
+        }
+        throw new AssertionError(transactionId + " never settled");
+    }
+
+    private PaymentService service(PaymentGateway gateway, int maxEntries) {
+        return service(new OrderStore(ids), gateway, maxEntries, wal());
+    }
+
+    private PaymentService service(OrderStore orders, PaymentGateway gateway, int maxEntries, WriteAheadLog wal) {
+        return new PaymentService(catalog, orders, ledger(), signer(), ids, gateway, events(), wheel, wal, 30, 10, 30,
+                maxEntries, 1000);
+    }
+
+    private InventoryLedger ledger() {
+        return new InventoryLedger(catalog, 4, 10, 3600, 1000);
+    }
+
+    private MandateSigner signer() {
+        return new MandateSigner("", true, dir.toString());
+    }
+
+    private static EventBus events() {
+        return new EventBus(List.of(), 16, "drop", 10);
+    }
+
+    private WriteAheadLog wal() {
+        WriteAheadLog wal = new WriteAheadLog(true, dir.toString(), 64);
+        logs.add(wal);
+        return wal;
+    }
+
+    private PaymentGateway gateway(PaymentGateway gateway) {
+        gateways.add(gateway);
+        return gateway;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.mcpserver.ap2;
+
+import com.example.mcpserver.order.Order;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecordCodecTest {
+
+    private final MandateSigner signer = new MandateSigner("", false, "unused");
+
+    @Test
+    void chainRoundTripsWithEveryLineAndField() {
+        IntentMandate intent = IntentMandate.create("IM-1", "दो फ़ोन चाहिए — S24 & S24 Ultra", 250_000, null, signer);
+        CartMandate cart = CartMandate.create("CM-1", intent, List.of(
+                new CartMandate.LineItem("FK-S24-256", "Galaxy S24 256GB", "Flipkart", 74_999, 1),
+                new CartMandate.LineItem("AMZ-S24U-256", "Galaxy S24 Ultra 256GB", "Amazon India", 129_999, 1)),
+                Instant.parse("2026-01-01T10:15:30.123456789Z"), signer);
+        PaymentResult result = PaymentResult.pending("TXN-1", cart, "UPI", "Asha", "12 MG Road, Pune", signer);
+
+        RecordCodec.Chain chain = RecordCodec.chain(RecordCodec.chain(intent, cart, result));
+        assertEquals(intent, chain.intent());
+        assertEquals(cart, chain.cart());
+        assertEquals(result, chain.result());
+        assertNull(chain.intent().preferredPlatform());
+        assertEquals(intent, RecordCodec.intent(RecordCodec.intent(intent)));
+        assertEquals(cart, RecordCodec.cart(RecordCodec.cart(cart)));
+    }
+
+    @Test
+    void freeTextPastSixtyFourKilobytesRoundTrips() {
+        // writeUTF capped every string at 65535 encoded bytes
+        String intentText = "Need a phone with a great camera. ".repeat(4_000);
+        String address = "फ्लैट 4B, ".repeat(10_000);
+        IntentMandate intent = IntentMandate.create("IM-2", intentText, 90_000, "Croma", signer);
+        assertTrue(intentText.length() > 65_535);
+        assertEquals(intent, RecordCodec.intent(RecordCodec.intent(intent)));
+
+        Order order = new Order("ORD-1", "FK-S24-256", "Galaxy S24 256GB", "Flipkart", 1, 74_999, 74_999, "Asha",
+                address, "Tomorrow", "Ekart", "CONFIRMED", "01 Jan 2026, 10:15 AM");
+        assertEquals(order, RecordCodec.order(RecordCodec.order(order)));
+    }
+
+    @Test
+    void otherFormatVersionsAndTruncatedRecordsAreRejected() {
+        byte[] record = RecordCodec.intent(IntentMandate.create("IM-3", "Buy an S23 FE", 40_000, null, signer));
+        byte[] older = record.clone();
+        older[0] = 2;
+        assertThrows(UncheckedIOException.class, () -> RecordCodec.intent(older));
+        assertThrows(UncheckedIOException.class,
+                () -> RecordCodec.intent(Arrays.copyOf(record, record.length - 10)));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.mcpserver.catalog;
+
+import com.example.mcpserver.mock.MockDataProvider;
+import com.example.mcpserver.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedCatalogStoreTest {
+
+    private static final String LISTING = "FK-S24-256";
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+    private MappedCatalogStore store;
+
+    @BeforeEach
+    void open() {
+        file = dir.resolve("catalog.bin");
+        store = new MappedCatalogStore(new MockDataProvider(), new SearchResultCache(0), file.toString(), 64);
+    }
+
+    @AfterEach
+    void close() {
+        store.close();
+    }
+
+    @Test
+    void deltasPublishNewVersionsAndLeaveOldSnapshotsAlone() {
+        CatalogSnapshot before = store.snapshot();
+        double price = before.getProductById(LISTING).orElseThrow().getPrice();
+
+        store.applyDeltas(List.of(new ListingDelta(LISTING, price - 1000, null, 0, "Flat ₹1,000 off", null, null)));
+
+        Product updated = store.getProductById(LISTING).orElseThrow();
+        assertEquals((double) price - 1000, updated.getPrice());
+        assertFalse(updated.isInStock());
+        assertEquals("Flat ₹1,000 off", updated.getOffers());
+        assertEquals((double) price, before.getProductById(LISTING).orElseThrow().getPrice());
+        assertEquals(before.version() + 1, store.version());
+    }
+
+    @Test
+    void repeatedReadsOfARecordShareOneDecode() {
+        CatalogSnapshot snapshot = store.snapshot();
+        int ordinal = snapshot.ordinalOf(LISTING);
+        assertSame(snapshot.get(ordinal), snapshot.get(ordinal));
+    }
+
+    @Test
+    void compactsOnceSupersededRecordsOutweighLiveOnes() {
+        CatalogSnapshot first = store.snapshot();
+        double price = first.getProductById(LISTING).orElseThrow().getPrice();
+        for (int i = 1; i <= 8000; i++)
+            store.applyDeltas(List.of(new ListingDelta(LISTING, price + i, null, null, null, null, null)));
+
+        assertTrue(store.compactions() > 0);
+        assertEquals((double) price + 8000, store.getProductById(LISTING).orElseThrow().getPrice());
+        // Snapshots taken before a compaction still read the old file's records
+        assertEquals((double) price, first.getProductById(LISTING).orElseThrow().getPrice());
+        assertEquals(first.size(), store.snapshot().size());
+        for (String platform : CatalogStore.PLATFORMS)
+            assertEquals(first.search(platform, "galaxy").size(), store.search(platform, "galaxy").size());
+        assertFalse(Files.exists(dir.resolve("catalog.bin.compact")));
+    }
+}
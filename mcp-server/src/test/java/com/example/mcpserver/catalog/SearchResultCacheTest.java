@@ -0,0 +1,55 @@
+package com.example.mcpserver.catalog;
+
+import com.example.mcpserver.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SearchResultCacheTest {
+
+    private final SearchResultCache cache = new SearchResultCache(1600);
+    private final AtomicInteger searches = new AtomicInteger();
+    private final Supplier<List<Product>> search = () -> {
+        searches.incrementAndGet();
+        return List.of();
+    };
+
+    @Test
+    void hitsOnlyTheVersionItWasComputedFrom() {
+        cache.get("amazon", "S24 Ultra", 1, search);
+        cache.get("amazon", "s24  ultra", 1, search);
+        assertEquals(1, searches.get());
+
+        cache.get("amazon", "S24 Ultra", 2, search);
+        cache.get("amazon", "S24 Ultra", 2, search);
+        assertEquals(2, searches.get());
+        assertEquals(1, cache.stats().size());
+        assertEquals(2, cache.stats().hits());
+    }
+
+    @Test
+    void olderSnapshotNeverDisplacesANewerResult() {
+        cache.get("flipkart", "S23 FE", 5, search);
+        cache.get("flipkart", "S23 FE", 4, search);
+        assertEquals(2, searches.get());
+
+        cache.get("flipkart", "S23 FE", 5, search);
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    void staleEntriesAreDroppedNotKept() {
+        cache.get("croma", "galaxy", 1, search);
+        cache.get("croma", "tab", 1, search);
+        assertEquals(2, cache.stats().size());
+
+        cache.get("croma", "galaxy", 2, search);
+        cache.get("croma", "galaxy", 2, search);
+        assertEquals(3, searches.get());
+        assertEquals(2, cache.stats().size());
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.mcpserver.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TinyLfuCacheTest {
+
+    @Test
+    void smallCachesEvictInsteadOfFailing() {
+        for (int maxEntries = 2; maxEntries <= 40; maxEntries++) {
+            TinyLfuCache<String> cache = new TinyLfuCache<>(maxEntries);
+            for (int i = 0; i < 500; i++) {
+                cache.put("key-" + i, 1, "value-" + i);
+                cache.get("key-" + (i / 2), 1);
+            }
+            assertTrue(cache.capacity() > 0 && cache.capacity() <= maxEntries);
+            assertTrue(cache.size() <= cache.capacity());
+            assertTrue(cache.evictions() > 0);
+        }
+    }
+
+    @Test
+    void smallestCacheStillHoldsTheLatestValue() {
+        TinyLfuCache<String> cache = new TinyLfuCache<>(2);
+        cache.put("a", 1, "A");
+        assertEquals("A", cache.get("a", 1));
+    }
+
+    @Test
+    void zeroTurnsTheCacheOff() {
+        TinyLfuCache<String> cache = new TinyLfuCache<>(0);
+        cache.put("a", 1, "A");
+        assertNull(cache.get("a", 1));
+        assertEquals(0, cache.capacity());
+    }
+
+    @Test
+    void rejectsSizesWithNoRoomToEvictInto() {
+        assertThrows(IllegalArgumentException.class, () -> new TinyLfuCache<String>(1));
+        assertThrows(IllegalArgumentException.class, () -> new TinyLfuCache<String>(-5));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.mcpserver.events;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventRingTest {
+
+    @Test
+    void rejectsSizeThatIsNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new EventRing(12, 1));
+    }
+
+    @Test
+    void claimStopsOneRingAheadOfTheSlowestConsumer() {
+        EventRing ring = new EventRing(4, 2);
+        for (long s = 0; s < 4; s++) {
+            assertEquals(s, ring.tryClaim());
+            ring.slot(s).set(ShopEvent.Type.ORDER_PLACED, s, "e" + s);
+            ring.publish(s);
+        }
+        assertEquals(-1, ring.tryClaim());
+
+        ring.consumed(0, 3);
+        assertEquals(-1, ring.tryClaim(), "the other consumer still needs slot 0");
+        ring.consumed(1, 0);
+        assertEquals(4, ring.tryClaim());
+        assertEquals(-1, ring.tryClaim());
+    }
+
+    @Test
+    void unpublishedSlotHidesEverythingAfterIt() {
+        EventRing ring = new EventRing(8, 1);
+        long first = ring.tryClaim();
+        long second = ring.tryClaim();
+        ring.publish(second);
+        assertEquals(first - 1, ring.highestPublished(first));
+        ring.publish(first);
+        assertEquals(second, ring.highestPublished(first));
+    }
+
+    @Test
+    void everyEventFromConcurrentPublishersArrivesOnceAndInOrderPerPublisher() throws Exception {
+        int publishers = 4;
+        int perPublisher = 20_000;
+        EventRing ring = new EventRing(1024, 1);
+        ExecutorService pool = Executors.newFixedThreadPool(publishers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> running = new ArrayList<>();
+        for (int p = 0; p < publishers; p++) {
+            int publisher = p;
+            running.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perPublisher; i++) {
+                    long seq;
+                    while ((seq = ring.tryClaim()) < 0)
+                        Thread.onSpinWait();
+                    ring.slot(seq).set(ShopEvent.Type.ORDER_PLACED, seq, new long[] {publisher, i});
+                    ring.publish(seq);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+
+        long[] lastSeen = {-1, -1, -1, -1};
+        long received = 0;
+        long next = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received < (long) publishers * perPublisher && System.nanoTime() < deadline) {
+            long available = ring.highestPublished(next);
+            for (long s = next; s <= available; s++) {
+                ShopEvent event = ring.slot(s);
+                assertEquals(s, event.sequence());
+                long[] payload = (long[]) event.payload();
+                int publisher = (int) payload[0];
+                assertEquals(lastSeen[publisher] + 1, payload[1], "publisher " + publisher + " out of order");
+                lastSeen[publisher] = payload[1];
+                received++;
+            }
+            if (available >= next) {
+                ring.consumed(0, available);
+                next = available + 1;
+            }
+        }
+        for (Future<?> f : running)
+            f.get(5, TimeUnit.SECONDS);
+        pool.shutdown();
+        assertEquals((long) publishers * perPublisher, received);
+        for (long last : lastSeen)
+            assertTrue(last == perPublisher - 1);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.mcpserver.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceSeriesTest {
+
+    private static final long START = 1_700_000_000L;
+
+    @Test
+    void scanReturnsExactlyWhatWasAppended() {
+        PriceSeries series = new PriceSeries();
+        List<long[]> points = new ArrayList<>();
+        Random random = new Random(42);
+        long time = START;
+        double price = 79_999;
+        // Enough points for several blocks, with irregular gaps, repeats and odd prices
+        for (int i = 0; i < PriceSeries.BLOCK_POINTS * 3 + 17; i++) {
+            time += random.nextInt(10) == 0 ? 0 : 3_600 + random.nextInt(86_400);
+            if (random.nextInt(4) == 0)
+                price = Math.round(price * (0.9 + random.nextDouble() * 0.2) * 100) / 100.0;
+            series.append(time, price);
+            points.add(new long[] {time, Double.doubleToLongBits(price)});
+        }
+
+        List<long[]> scanned = new ArrayList<>();
+        int count = series.scan(Long.MIN_VALUE, Long.MAX_VALUE,
+                (t, p) -> scanned.add(new long[] {t, Double.doubleToLongBits(p)}));
+        assertEquals(points.size(), count);
+        assertEquals(points.size(), series.size());
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(points.get(i)[0], scanned.get(i)[0], "time of point " + i);
+            assertEquals(points.get(i)[1], scanned.get(i)[1], "price of point " + i);
+        }
+    }
+
+    @Test
+    void dailySeriesWithRarePriceChangesCompressesToAFewBitsAPoint() {
+        PriceSeries series = new PriceSeries();
+        for (int day = 0; day < 2_000; day++)
+            series.append(START + day * 86_400L, 79_999 - (day / 30) * 500);
+        // Raw, a point is 16 bytes
+        assertTrue(series.compressedBytes() * 8 < 2_000 * 4L, series.compressedBytes() + " bytes");
+    }
+
+    @Test
+    void rangeScanIsInclusiveOnBothEnds() {
+        PriceSeries series = new PriceSeries();
+        for (int day = 0; day < 1_000; day++)
+            series.append(START + day * 86_400L, 1_000 + day);
+        List<Double> prices = new ArrayList<>();
+        int count = series.scan(START + 600 * 86_400L, START + 610 * 86_400L, (t, p) -> prices.add(p));
+        assertEquals(11, count);
+        assertEquals(1_600.0, (double) prices.get(0));
+        assertEquals(1_610.0, (double) prices.get(10));
+    }
+
+    @Test
+    void rejectsPointsThatGoBackInTime() {
+        PriceSeries series = new PriceSeries();
+        series.append(START, 10);
+        series.append(START, 11);
+        assertThrows(IllegalArgumentException.class, () -> series.append(START - 1, 12));
+        assertEquals(START, series.lastTime());
+    }
+
+    @Test
+    void appendLatestClampsInsteadOfThrowing() {
+        PriceSeries series = new PriceSeries();
+        series.append(START, 10);
+        assertEquals(START, series.appendLatest(START - 60, 11));
+        assertEquals(START + 60, series.appendLatest(START + 60, 12));
+        assertEquals(START + 60, series.lastTime());
+    }
+
+    @Test
+    void concurrentLatestAppendsNeverGoBackInTime() throws InterruptedException {
+        PriceSeries series = new PriceSeries();
+        Thread[] writers = new Thread[8];
+        for (int w = 0; w < writers.length; w++) {
+            int writer = w;
+            writers[w] = new Thread(() -> {
+                Random random = new Random(writer);
+                for (int i = 0; i < 5_000; i++)
+                    series.appendLatest(START + i * 10L + random.nextInt(50), 1_000 + writer);
+            });
+            writers[w].start();
+        }
+        for (Thread writer : writers)
+            writer.join();
+
+        long[] previous = {Long.MIN_VALUE};
+        int[] count = {0};
+        series.scan(Long.MIN_VALUE, Long.MAX_VALUE, (time, price) -> {
+            assertTrue(time >= previous[0]);
+            previous[0] = time;
+            count[0]++;
+        });
+        assertEquals(40_000, count[0]);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.mcpserver.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdGeneratorTest {
+
+    @Test
+    void idsAreUniqueAndSortInIssueOrder() {
+        IdGenerator ids = new IdGenerator(7);
+        String previous = "";
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            String id = ids.next("ORD-");
+            assertEquals(17, id.length());
+            assertTrue(id.compareTo(previous) > 0, id + " after " + previous);
+            assertTrue(seen.add(id));
+            previous = id;
+        }
+    }
+
+    @Test
+    void generatorsOnDifferentNodesNeverCollide() {
+        // Each generator keeps its own node: building one no longer changes the IDs another issues
+        IdGenerator first = new IdGenerator(1);
+        IdGenerator second = new IdGenerator(2);
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(seen.add(first.next("TXN-")));
+            assertTrue(seen.add(second.next("TXN-")));
+        }
+    }
+
+    @Test
+    void timestampAndLowerBoundFollowTheClock() {
+        Instant before = Instant.now().minusMillis(1);
+        String id = new IdGenerator(0).next("IM-");
+        assertTrue(!IdGenerator.timestampOf(id).isBefore(before));
+        assertTrue(id.compareTo(IdGenerator.lowerBound("IM-", before)) >= 0);
+        assertTrue(id.compareTo(IdGenerator.lowerBound("IM-", Instant.now().plusSeconds(1))) < 0);
+    }
+
+    @Test
+    void rejectsNodesOutsideTenBits() {
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(1024));
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.mcpserver.inventory;
+
+import com.example.mcpserver.catalog.CatalogStore;
+import com.example.mcpserver.catalog.InMemoryCatalogStore;
+import com.example.mcpserver.catalog.ListingDelta;
+import com.example.mcpserver.catalog.SearchResultCache;
+import com.example.mcpserver.mock.MockDataProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryLedgerTest {
+
+    private static final String LISTING = "FK-S24-256";
+    private static final String OTHER = "AMZ-S24U-256";
+
+    private final CatalogStore catalog = new InMemoryCatalogStore(new MockDataProvider(), new SearchResultCache(100));
+    private final InventoryLedger ledger = new InventoryLedger(catalog, 8, 10, 3600, 3_600_000);
+
+    @AfterEach
+    void close() {
+        ledger.close();
+    }
+
+    @Test
+    void concurrentHoldsNeverOversell() throws Exception {
+        int units = 500;
+        restock(LISTING, units);
+        int threads = 32;
+        AtomicLong committed = new AtomicLong();
+        AtomicLong attempts = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 2_000; i++) {
+                    String hold = "CM-" + worker + "-" + i;
+                    int quantity = 1 + random.nextInt(3);
+                    attempts.incrementAndGet();
+                    if (ledger.reserve(hold, List.of(new InventoryLedger.Units(LISTING, quantity))) == null)
+                        continue;
+                    // Settle some holds twice over, from both sides, as a payment racing the sweeper would
+                    if (random.nextInt(3) == 0) {
+                        boolean released = ledger.release(hold);
+                        assertFalse(released && ledger.commit(hold), "a released hold must not commit");
+                    } else if (ledger.commit(hold)) {
+                        committed.addAndGet(quantity);
+                        assertFalse(ledger.release(hold), "a committed hold must not release");
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : workers)
+            f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        InventoryLedger.Levels levels = ledger.levels(LISTING);
+        assertEquals(committed.get(), levels.sold());
+        assertEquals(0, levels.held());
+        assertEquals(units, levels.sold() + levels.available());
+        assertTrue(levels.sold() <= units, "sold " + levels.sold() + " of " + units);
+        assertTrue(attempts.get() > units, "the listing must have sold out under load");
+    }
+
+    @Test
+    void multiLineHoldIsAllOrNothing() {
+        restock(LISTING, 5);
+        restock(OTHER, 1);
+        assertNull(ledger.reserve("CM-1", List.of(new InventoryLedger.Units(LISTING, 2),
+                new InventoryLedger.Units(OTHER, 2))));
+        assertEquals(5, ledger.levels(LISTING).available());
+        assertEquals(1, ledger.levels(OTHER).available());
+
+        assertNotNull(ledger.reserve("CM-2", List.of(new InventoryLedger.Units(LISTING, 2),
+                new InventoryLedger.Units(OTHER, 1))));
+        assertTrue(ledger.commit("CM-2"));
+        assertFalse(ledger.commit("CM-2"));
+        assertEquals(2, ledger.levels(LISTING).sold());
+        assertEquals(1, ledger.levels(OTHER).sold());
+    }
+
+    @Test
+    void sellOutAndReleaseUpdateTheCatalog() {
+        restock(LISTING, 2);
+        assertTrue(catalog.getProductById(LISTING).orElseThrow().isInStock());
+
+        assertNotNull(ledger.reserve("CM-1", List.of(new InventoryLedger.Units(LISTING, 2))));
+        assertTrue(catalog.getProductById(LISTING).orElseThrow().isInStock(), "published on the next flush");
+        assertEquals(1, ledger.flushAvailability());
+        assertFalse(catalog.getProductById(LISTING).orElseThrow().isInStock());
+
+        assertTrue(ledger.release("CM-1"));
+        assertEquals(1, ledger.flushAvailability());
+        assertTrue(catalog.getProductById(LISTING).orElseThrow().isInStock());
+        assertEquals(2, catalog.getProductById(LISTING).orElseThrow().getStockCount());
+    }
+
+    @Test
+    void sellOutsBetweenFlushesPublishOneCatalogVersion() {
+        restock(LISTING, 1);
+        restock(OTHER, 1);
+        long version = catalog.version();
+        assertNotNull(ledger.reserve("CM-1", List.of(new InventoryLedger.Units(LISTING, 1))));
+        assertNotNull(ledger.reserve("CM-2", List.of(new InventoryLedger.Units(OTHER, 1))));
+        assertEquals(2, ledger.flushAvailability());
+        assertEquals(version + 1, catalog.version());
+        assertFalse(catalog.getProductById(LISTING).orElseThrow().isInStock());
+        assertFalse(catalog.getProductById(OTHER).orElseThrow().isInStock());
+    }
+
+    @Test
+    void holdReleasedBeforeTheFlushPublishesNothing() {
+        restock(LISTING, 1);
+        long version = catalog.version();
+        assertNotNull(ledger.reserve("CM-1", List.of(new InventoryLedger.Units(LISTING, 1))));
+        assertTrue(ledger.release("CM-1"));
+        assertEquals(0, ledger.flushAvailability());
+        assertEquals(version, catalog.version());
+    }
+
+    @Test
+    void restockBelowHeldUnitsIsPaidBackByReleases() {
+        restock(LISTING, 10);
+        assertNotNull(ledger.reserve("CM-1", List.of(new InventoryLedger.Units(LISTING, 8))));
+        restock(LISTING, 5);
+        assertEquals(0, ledger.levels(LISTING).available());
+        assertNull(ledger.reserve("CM-2", List.of(new InventoryLedger.Units(LISTING, 1))));
+
+        assertTrue(ledger.release("CM-1"));
+        assertEquals(5, ledger.levels(LISTING).available());
+        assertNotNull(ledger.reserve("CM-3", List.of(new InventoryLedger.Units(LISTING, 5))));
+        assertNull(ledger.reserve("CM-4", List.of(new InventoryLedger.Units(LISTING, 1))));
+    }
+
+    @Test
+    void recordedSalesComeOffTheSeededCount() {
+        long seeded = ledger.levels(LISTING).available();
+        ledger.recordSold(List.of(new InventoryLedger.Units(LISTING, 3)));
+        assertEquals(seeded - 3, ledger.levels(LISTING).available());
+        assertEquals(3, ledger.levels(LISTING).sold());
+    }
+
+    private void restock(String listingId, int units) {
+        List<ListingDelta> deltas = List.of(new ListingDelta(listingId, null, null, units, null, null, null));
+        catalog.applyDeltas(deltas);
+        ledger.restock(deltas);
+    }
+}
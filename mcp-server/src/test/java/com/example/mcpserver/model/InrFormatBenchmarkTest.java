@@ -0,0 +1,51 @@
+package com.example.mcpserver.model;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * InrFormat against the String.format call it replaced. Timing only, so it runs
+ * with {@code -Pbenchmark} and never in the default test run.
+ */
+@Tag("benchmark")
+class InrFormatBenchmarkTest {
+
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int ROUNDS = 10;
+    private static final int CALLS = 200_000;
+
+    @Test
+    void inrFormatVersusStringFormat() {
+        double[] prices = new double[1024];
+        for (int i = 0; i < prices.length; i++)
+            prices[i] = 9_999 + i * 1_237.5;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            run(prices, true);
+            run(prices, false);
+        }
+
+        long inr = Long.MAX_VALUE;
+        long formatter = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            inr = Math.min(inr, run(prices, true));
+            formatter = Math.min(formatter, run(prices, false));
+        }
+        System.out.printf("InrFormat.format %d ns/op, String.format(\"₹%%,.0f\") %d ns/op (best of %d)%n",
+                inr / CALLS, formatter / CALLS, ROUNDS);
+    }
+
+    private static long run(double[] prices, boolean inrFormat) {
+        long chars = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            double price = prices[i & (prices.length - 1)];
+            chars += inrFormat ? InrFormat.format(price).length() : String.format("₹%,.0f", price).length();
+        }
+        long elapsed = System.nanoTime() - start;
+        // Keeps the results live so the loop can't be optimized away
+        assertTrue(chars > 0);
+        return elapsed;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.mcpserver.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InrFormatTest {
+
+    @Test
+    void groupsInLakhsAndCrores() {
+        assertEquals("₹0", InrFormat.format(0));
+        assertEquals("₹999", InrFormat.format(999));
+        assertEquals("₹1,000", InrFormat.format(1_000));
+        assertEquals("₹1,29,999", InrFormat.format(129_999));
+        assertEquals("₹1,00,00,000", InrFormat.format(10_000_000));
+        assertEquals("₹12,34,56,789", InrFormat.format(123_456_789));
+    }
+
+    @Test
+    void roundsToWholeRupeesAndKeepsTheSign() {
+        assertEquals("₹1,30,000", InrFormat.format(129_999.5));
+        assertEquals("₹-1,000", InrFormat.format(-1_000.2));
+        assertEquals("₹0", InrFormat.format(-0.4));
+        assertEquals("₹NaN", InrFormat.format(Double.NaN));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.mcpserver.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpiringStoreTest {
+
+    private final TimingWheel wheel = new TimingWheel(5);
+    private final List<String> expired = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void close() {
+        wheel.close();
+    }
+
+    @Test
+    void fullStoreEvictsOldestThroughOnExpire() {
+        ExpiringStore<String> store = store(3, true, Duration.ofMinutes(1));
+        for (int i = 0; i < 3; i++)
+            assertTrue(store.put("k" + i, "v"));
+        store.remove("k1");
+        assertTrue(store.put("k3", "v"));
+        assertTrue(store.put("k4", "v"));
+
+        assertEquals(List.of("k0"), expired);
+        assertNull(store.get("k0"));
+        assertEquals(3, store.size());
+        assertEquals(1, store.stats().evicted());
+    }
+
+    @Test
+    void fullStoreStillReplacesExistingKeys() {
+        ExpiringStore<String> store = store(2, false, Duration.ofMinutes(1));
+        assertTrue(store.put("a", "1"));
+        assertTrue(store.put("b", "1"));
+        assertFalse(store.put("c", "1"));
+        assertTrue(store.put("a", "2"));
+        assertEquals("2", store.get("a"));
+        assertEquals(1, store.stats().rejected());
+    }
+
+    @Test
+    void entriesExpireAfterTheirTtlUnlessExtended() throws Exception {
+        ExpiringStore<String> store = store(10, true, Duration.ofMillis(40));
+        store.put("short", "v");
+        store.put("long", "v");
+        store.extend("long", Instant.now().plusSeconds(60));
+        Thread.sleep(200);
+        assertNull(store.get("short"));
+        assertEquals("v", store.get("long"));
+        assertEquals(List.of("short"), expired);
+    }
+
+    @Test
+    void restoreKeepsOnlyTheLifeThatIsLeft() {
+        ExpiringStore<String> store = store(10, true, Duration.ofMinutes(1));
+        assertFalse(store.restore("gone", "v", Instant.now().minusSeconds(1)));
+        assertTrue(store.restore("left", "v", Instant.now().plusSeconds(30)));
+        assertEquals("v", store.get("left"));
+    }
+
+    private ExpiringStore<String> store(int maxEntries, boolean evict, Duration ttl) {
+        return new ExpiringStore<>("test", ttl, maxEntries, evict, wheel, (key, value) -> expired.add(key),
+                value -> 16);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.mcpserver.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private final TimingWheel wheel = new TimingWheel(5);
+
+    @AfterEach
+    void close() {
+        wheel.close();
+    }
+
+    @Test
+    void firesEachTimeoutOnceAndNotEarly() throws Exception {
+        // Delays spanning the first two levels, so some timeouts cascade down before firing
+        List<Long> delays = List.of(0L, 5L, 40L, 320L, 700L);
+        ConcurrentHashMap<Long, Long> firedAfter = new ConcurrentHashMap<>();
+        AtomicInteger fires = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(delays.size());
+        long start = System.nanoTime();
+        for (long delay : delays) {
+            wheel.schedule(() -> {
+                firedAfter.put(delay, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                fires.incrementAndGet();
+                done.countDown();
+            }, Duration.ofMillis(delay));
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(delays.size(), fires.get());
+        for (long delay : delays)
+            assertTrue(firedAfter.get(delay) >= delay, delay + "ms timeout fired after " + firedAfter.get(delay) + "ms");
+    }
+
+    @Test
+    void cancelledTimeoutNeverFires() throws Exception {
+        AtomicInteger fires = new AtomicInteger();
+        TimingWheel.Timeout timeout = wheel.schedule(fires::incrementAndGet, Duration.ofMillis(30));
+        CountDownLatch later = new CountDownLatch(1);
+        wheel.schedule(later::countDown, Duration.ofMillis(60));
+        timeout.cancel();
+        assertTrue(later.await(5, TimeUnit.SECONDS));
+        assertEquals(0, fires.get());
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.mcpserver.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteAheadLogTest {
+
+    private static final byte TYPE = 7;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Keeps every replayed payload; a checkpoint writes them all back.
+     */
+    private static final class Recorder implements WriteAheadLog.Participant {
+        final Set<String> records = Collections.synchronizedSet(new LinkedHashSet<>());
+
+        @Override
+        public void replay(byte type, byte[] payload) {
+            assertEquals(TYPE, type);
+            records.add(new String(payload, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void checkpoint(WriteAheadLog.RecordSink sink) throws IOException {
+            List<String> snapshot;
+            synchronized (records) {
+                snapshot = List.copyOf(records);
+            }
+            for (String record : snapshot)
+                sink.write(TYPE, record.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void replaysEverySyncedRecordAfterRestart() {
+        WriteAheadLog wal = open(new Recorder(), 64);
+        List<String> written = new ArrayList<>();
+        long lsn = 0;
+        for (int i = 0; i < 1_000; i++) {
+            written.add("record-" + i);
+            lsn = wal.append(TYPE, ("record-" + i).getBytes(StandardCharsets.UTF_8));
+        }
+        wal.sync(lsn);
+        wal.close();
+
+        Recorder recovered = new Recorder();
+        open(recovered, 64).close();
+        assertEquals(written, new ArrayList<>(recovered.records));
+    }
+
+    @Test
+    void tornTailIsCutOffAndTheRestKept() throws IOException {
+        WriteAheadLog wal = open(new Recorder(), 64);
+        wal.append(TYPE, "first".getBytes(StandardCharsets.UTF_8));
+        wal.sync(wal.append(TYPE, "second".getBytes(StandardCharsets.UTF_8)));
+        wal.close();
+        Path segment = files("wal").get(0);
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            file.truncate(file.size() - 2);
+        }
+
+        Recorder recovered = new Recorder();
+        open(recovered, 64).close();
+        assertEquals(List.of("first"), new ArrayList<>(recovered.records));
+    }
+
+    @Test
+    void noCheckpointUntilTheOwnerHasRecovered() throws Exception {
+        WriteAheadLog wal = open(new Recorder(), 64);
+        wal.sync(wal.append(TYPE, "before".getBytes(StandardCharsets.UTF_8)));
+        wal.close();
+
+        // Restart: the participant adds state of its own after replay, as resubmitted payments do
+        Recorder owner = new Recorder();
+        WriteAheadLog reopened = new WriteAheadLog(true, dir.toString(), 64);
+        reopened.open(owner);
+        Thread.sleep(200);
+        assertTrue(files("checkpoint").isEmpty(), "checkpointed before the owner finished recovering");
+        owner.records.add("rebuilt");
+        reopened.recovered();
+        awaitCheckpoint();
+        reopened.close();
+
+        Recorder again = new Recorder();
+        open(again, 64).close();
+        assertEquals(Set.of("before", "rebuilt"), again.records);
+    }
+
+    @Test
+    void rollOverCheckpointsAndDeletesOlderSegments() throws Exception {
+        Recorder owner = new Recorder();
+        // 0 MB segments: every group commit rolls over and checkpoints
+        WriteAheadLog wal = open(owner, 0);
+        for (int i = 0; i < 20; i++) {
+            String record = "r" + i;
+            owner.records.add(record);
+            wal.sync(wal.append(TYPE, record.getBytes(StandardCharsets.UTF_8)));
+        }
+        awaitCheckpoint();
+        wal.close();
+        assertFalse(files("checkpoint").isEmpty());
+
+        Recorder recovered = new Recorder();
+        open(recovered, 0).close();
+        assertEquals(owner.records, recovered.records);
+    }
+
+    private WriteAheadLog open(Recorder participant, long segmentMb) {
+        WriteAheadLog wal = new WriteAheadLog(true, dir.toString(), segmentMb);
+        wal.open(participant);
+        wal.recovered();
+        return wal;
+    }
+
+    private void awaitCheckpoint() throws Exception {
+        for (int i = 0; i < 100 && files("checkpoint").isEmpty(); i++)
+            Thread.sleep(20);
+        assertFalse(files("checkpoint").isEmpty(), "no checkpoint written");
+    }
+
+    private List<Path> files(String kind) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(kind + "-")
+                    && !p.getFileName().toString().endsWith(".tmp")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.mcpserver.tools;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RenderedOutputCacheTest {
+
+    private final RenderedOutputCache cache = new RenderedOutputCache(320);
+
+    @Test
+    void keepsCachingOnceFull() {
+        for (int i = 0; i < 5000; i++)
+            cache.put("searchAmazon", "query " + i, 1, "output " + i);
+        cache.put("searchAmazon", "latest", 1, "output");
+        assertEquals("output", cache.get("searchAmazon", "latest", 1));
+    }
+
+    @Test
+    void popularOutputSurvivesABurstOfOneOffs() {
+        cache.put("comparePrices", "s24 ultra", 1, "table");
+        for (int i = 0; i < 50; i++)
+            assertNotNull(cache.get("comparePrices", "s24 ultra", 1));
+        for (int i = 0; i < 5000; i++)
+            cache.put("searchFlipkart", "one-off " + i, 1, "output " + i);
+        assertEquals("table", cache.get("comparePrices", "s24 ultra", 1));
+    }
+
+    @Test
+    void otherVersionsMiss() {
+        cache.put("getProductDetails", "FK-S24-256", 3, "card v3");
+        assertNull(cache.get("getProductDetails", "FK-S24-256", 4));
+        cache.put("getProductDetails", "FK-S24-256", 4, "card v4");
+        cache.put("getProductDetails", "FK-S24-256", 3, "card v3");
+        assertEquals("card v4", cache.get("getProductDetails", "FK-S24-256", 4));
+    }
+}